@@ -0,0 +1,74 @@
+/**
+ * Benchmarks de la conversion pour l'affichage
+ * Auteurs : BONNIN Simon, CARRARA Tim
+ * Groupe  : S5 - A2
+ * Date    : Octobre 2026
+ * Description : Cette classe mesure la conversion d'une frame OpenCV en Image
+ * JavaFX, faite pour chaque aperçu affiché.
+ */
+
+package org.example;
+
+import javafx.application.Platform;
+import javafx.scene.image.Image;
+import org.opencv.core.Mat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversion Mat BGR vers Image JavaFX par {@link OpenCVUtils#matToImage(Mat)}.
+ * Les frames de la vidéo sont toujours en BGR : seul le cas 3 canaux est mesuré.
+ * La boîte à outils JavaFX est démarrée une fois par JVM de mesure ; sur une machine sans
+ * écran, lancer avec -Dglass.platform=Monocle -Dmonocle.platform=Headless (Monocle sur le classpath).
+ *
+ * @author BONNIN Simon, CARRARA Tim
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConversionBenchmark {
+
+    @Param({"480", "1080", "2160"})
+    public int hauteur;
+
+    private Mat frame;
+
+    @Setup(Level.Trial)
+    public void preparer() {
+        ChargeurOpenCV.charger(false);
+        try {
+            Platform.startup(() -> {
+            });
+        } catch (IllegalStateException e) {
+            // Boîte à outils déjà démarrée
+        }
+        frame = FramesSynthetiques.frame(hauteur, 3, 42);
+    }
+
+    @TearDown(Level.Trial)
+    public void liberer() {
+        frame.release();
+    }
+
+    @Benchmark
+    public Image matToImage() {
+        return OpenCVUtils.matToImage(frame);
+    }
+}
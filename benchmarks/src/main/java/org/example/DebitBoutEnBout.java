@@ -0,0 +1,630 @@
+/**
+ * Mesure du débit de bout en bout
+ * Auteurs : BONNIN Simon, CARRARA Tim
+ * Groupe  : S5 - A2
+ * Date    : Octobre 2026
+ * Description : Cette classe génère des vidéos synthétiques, les fait passer par
+ * chaque mode de traitement (VideoCapture, pipeline, VideoWriter), et compare le
+ * débit obtenu à une mesure de référence pour détecter les régressions.
+ */
+
+package org.example;
+
+import org.opencv.core.Mat;
+import org.opencv.core.Size;
+import org.opencv.videoio.VideoCapture;
+import org.opencv.videoio.VideoWriter;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * Suite de non-régression du débit, sans interface graphique.
+ * Pour chaque motif ({@link FramesSynthetiques.Motif}) et chaque hauteur demandée, une vidéo AVI
+ * non compressée est générée, puis traitée par {@link TraitementVideo} comme en ligne de commande :
+ * 1. chiffrement, et chiffrement avec clé embarquée
+ * 2. déchiffrement avec la clé, déchiffrement avec la clé embarquée
+ * 3. crack puis déchiffrement (cache des cracks désactivé)
+ * Chaque mode est mesuré : frames par seconde, latence du crack (jusqu'à la clé trouvée),
+ * pic de mémoire résidente du processus (VmHWM de Linux, remis à zéro avant chaque mode quand
+ * le noyau le permet) et exactitude : les vidéos déchiffrées doivent être identiques à l'originale,
+ * aux pixels portant la clé près pour la clé embarquée. Quand la hauteur est une puissance de deux,
+ * l'image est un seul bloc : la clé « miroir » donne les mêmes paires de lignes voisines et le crack
+ * ne peut pas distinguer le sens de lecture. Une vidéo crackée exactement à l'envers y est acceptée
+ * et signalée dans les remarques.
+ * Cas difficiles : le crack d'une vidéo BRUIT n'est mesuré qu'avec --cas-difficiles. Dans le plus
+ * grand bloc, toutes les rotations de la bonne clé (même s, autre r) ne diffèrent que par une paire
+ * de lignes voisines, que le bruit couvre : le crack retrouve s (ou son miroir) mais pas r quand ce
+ * bloc fait presque toute l'image. Attendu : crack mal déchiffré à 256 et 1080 lignes, exact à
+ * 481 et 720 ; la suite échoue alors, comme pour toute vidéo mal déchiffrée. Ces mesures suivent
+ * les progrès du crack et n'entrent pas dans la référence (--enregistrer les refuse).
+ * Chaque mode est répété (--repetitions, 3 par défaut) et la meilleure mesure est gardée,
+ * pour que le bruit de la machine ne passe pas pour une régression.
+ * Avec --reference, chaque débit est comparé à celui du fichier de référence : un mode plus lent
+ * que la référence de plus de --tolerance (15 % par défaut), un crack plus long d'autant, ou une
+ * vidéo mal déchiffrée font échouer la suite (code de sortie 1). Une vidéo mal déchiffrée fait
+ * toujours échouer la suite, avec ou sans référence : la référence ne garde que des débits.
+ * --enregistrer écrit les débits dans le fichier de référence, à faire une fois sur la machine de mesure ;
+ * aucune référence n'est livrée avec le dépôt, les débits dépendant de la machine.
+ * Une passe d'échauffement sur une petite vidéo précède les mesures, pour que le JIT ne pèse
+ * pas sur la première vidéo mesurée.
+ *
+ * @author BONNIN Simon, CARRARA Tim
+ * @version 1.0
+ */
+public final class DebitBoutEnBout {
+
+    private static final int SUCCES = 0;
+    private static final int ECHEC = 1;
+    private static final int ERREUR_USAGE = 2;
+
+    /**
+     * Clé utilisée pour chiffrer les vidéos de test.
+     */
+    private static final int CLE_R = 201;
+    private static final int CLE_S = 77;
+
+    /**
+     * Nombre maximal de pixels modifiés par frame par la clé embarquée (format étendu).
+     */
+    private static final int PIXELS_CLE = 4;
+
+    private static final double FPS_VIDEO = 25;
+
+    private static final String USAGE = String.join("\n",
+            "Usage : java org.example.DebitBoutEnBout [options]",
+            "Options :",
+            "  --hauteurs <h,...>    hauteurs des vidéos générées (défaut 256,481,720,1080)",
+            "  --frames <n>          nombre de frames par vidéo (défaut 48)",
+            "  --repetitions <n>     mesures de chaque mode, la meilleure est gardée (défaut 3)",
+            "  --motifs <m,...>      texture, degrade, bruit (défaut : tous)",
+            "  --cas-difficiles      mesure aussi le crack des vidéos bruit (attendu : échec à 256 et 1080)",
+            "  --reference <fichier> débits de référence à ne pas perdre",
+            "  --tolerance <part>    perte de débit tolérée (défaut 0.15)",
+            "  --enregistrer         écrit les mesures dans le fichier de référence",
+            "  --csv <fichier>       écrit les mesures au format CSV",
+            "  --dossier <dossier>   dossier des vidéos (défaut : dossier temporaire supprimé à la fin)",
+            "  --sans-echauffement   mesure dès la première vidéo",
+            "  -t <n>                threads de transformation");
+
+    /**
+     * Options lues sur la ligne de commande.
+     */
+    private static class Options {
+        int[] hauteurs = {256, 481, 720, 1080};
+        int nbFrames = 48;
+        int repetitions = 3;
+        List<FramesSynthetiques.Motif> motifs = new ArrayList<>(List.of(FramesSynthetiques.Motif.values()));
+        String reference = null;
+        double tolerance = 0.15;
+        boolean enregistrer = false;
+        boolean casDifficiles = false;
+        String csv = null;
+        String dossier = null;
+        boolean echauffement = true;
+        int nbTravailleurs = PipelineVideo.nbTravailleursParDefaut();
+    }
+
+    /**
+     * Mesure d'un mode sur une vidéo.
+     */
+    private static class Mesure {
+        final String video;
+        final String mode;
+        int frames;
+        double fps;
+        long crackMs = -1;
+        long picMemoireKo = -1;
+        // null : rien à vérifier pour ce mode
+        Boolean correcte = null;
+        String remarque = null;
+        String regression = null;
+
+        Mesure(String video, String mode) {
+            this.video = video;
+            this.mode = mode;
+        }
+
+        String cle() {
+            return video + "." + mode;
+        }
+    }
+
+    private DebitBoutEnBout() {
+    }
+
+    public static void main(String[] args) {
+        System.exit(executer(args));
+    }
+
+    /**
+     * Exécute la suite et retourne le code de sortie.
+     *
+     * @param args  Les arguments de la ligne de commande
+     * @return 0 si tout est correct et sans régression, 1 sinon, 2 en cas d'erreur d'usage
+     */
+    public static int executer(String[] args) {
+        Options options;
+        try {
+            options = lireOptions(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Erreur : " + e.getMessage());
+            System.err.println(USAGE);
+            return ERREUR_USAGE;
+        }
+
+        ChargeurOpenCV.charger(false);
+
+        File dossier;
+        boolean dossierTemporaire = options.dossier == null;
+        try {
+            dossier = dossierTemporaire ? Files.createTempDirectory("videoscramble-debit").toFile() : new File(options.dossier);
+            Files.createDirectories(dossier.toPath());
+        } catch (IOException e) {
+            System.err.println("Création du dossier des vidéos impossible : " + e.getMessage());
+            return ECHEC;
+        }
+
+        try {
+            if (options.echauffement) {
+                System.out.println("--- Échauffement ---");
+                int hauteurMin = options.hauteurs[0];
+                for (int hauteur : options.hauteurs) hauteurMin = Math.min(hauteurMin, hauteur);
+                String video = genererVideo(dossier, FramesSynthetiques.Motif.TEXTURE, hauteurMin, Math.min(12, options.nbFrames));
+                mesurerVideo(dossier, "echauffement", video, hauteurMin, true, 1, options.nbTravailleurs);
+            }
+
+            List<Mesure> mesures = new ArrayList<>();
+            for (FramesSynthetiques.Motif motif : options.motifs) {
+                for (int hauteur : options.hauteurs) {
+                    String video = genererVideo(dossier, motif, hauteur, options.nbFrames);
+                    // Crack d'une vidéo bruitée : cas difficile, mesuré seulement sur demande
+                    boolean cracker = motif != FramesSynthetiques.Motif.BRUIT || options.casDifficiles;
+                    mesures.addAll(mesurerVideo(dossier, motif.name().toLowerCase(Locale.ROOT) + "-" + hauteur, video, hauteur,
+                            cracker, options.repetitions, options.nbTravailleurs));
+                }
+            }
+
+            if (options.reference != null) {
+                if (options.enregistrer) {
+                    enregistrerReference(options.reference, mesures);
+                } else {
+                    comparerReference(options.reference, options.tolerance, mesures);
+                }
+            }
+            boolean echec = false;
+            for (Mesure mesure : mesures) {
+                if (mesure.frames == 0 || mesure.regression != null) echec = true;
+                if (Boolean.FALSE.equals(mesure.correcte)) echec = true;
+            }
+
+            afficher(mesures);
+            if (options.csv != null) {
+                ecrireCsv(options.csv, mesures);
+            }
+            System.out.println(echec ? "ÉCHEC : vidéo mal déchiffrée ou débit en régression" : "Débit et exactitude conformes");
+            return echec ? ECHEC : SUCCES;
+        } catch (IOException e) {
+            System.err.println("Erreur de la suite de débit : " + e.getMessage());
+            return ECHEC;
+        } finally {
+            if (dossierTemporaire) {
+                supprimer(dossier);
+            }
+        }
+    }
+
+    /**
+     * Fait passer une vidéo par tous les modes.
+     *
+     * @param dossier           Dossier des vidéos produites
+     * @param nom               Nom de la vidéo dans les mesures
+     * @param source            Chemin de la vidéo claire
+     * @param hauteur           Hauteur de la vidéo
+     * @param cracker           true pour mesurer aussi le crack puis déchiffrement
+     * @param repetitions       Nombre de mesures de chaque mode
+     * @param nbTravailleurs    Threads de transformation
+     * @return Les mesures des cinq modes (quatre sans le crack)
+     */
+    private static List<Mesure> mesurerVideo(File dossier, String nom, String source, int hauteur, boolean cracker,
+                                             int repetitions, int nbTravailleurs) {
+        String chiffree = new File(dossier, nom + "_chiffree.avi").getPath();
+        String chiffreeCle = new File(dossier, nom + "_chiffree_cle.avi").getPath();
+        String dechiffree = new File(dossier, nom + "_dechiffree.avi").getPath();
+        String dechiffreeCle = new File(dossier, nom + "_dechiffree_cle.avi").getPath();
+        String crackee = new File(dossier, nom + "_crackee.avi").getPath();
+
+        List<Mesure> mesures = new ArrayList<>();
+        Mesure chiffrement = mesurer(nom, "chiffrement", source, chiffree, "-e", false, false, false, repetitions, nbTravailleurs);
+        mesures.add(chiffrement);
+        mesures.add(mesurer(nom, "chiffrement_cle", source, chiffreeCle, "-e", true, false, false, repetitions, nbTravailleurs));
+
+        Mesure dechiffrement = mesurer(nom, "dechiffrement", chiffree, dechiffree, "-d", false, false, false, repetitions, nbTravailleurs);
+        dechiffrement.correcte = pixelsDifferents(source, dechiffree, false) == 0;
+        mesures.add(dechiffrement);
+
+        Mesure cleEmbarquee = mesurer(nom, "dechiffrement_cle", chiffreeCle, dechiffreeCle, "-d", false, true, false, repetitions, nbTravailleurs);
+        int differences = pixelsDifferents(source, dechiffreeCle, false);
+        cleEmbarquee.correcte = differences >= 0 && differences <= PIXELS_CLE;
+        mesures.add(cleEmbarquee);
+
+        if (cracker) {
+            Mesure crack = mesurer(nom, "crack", chiffree, crackee, "-d", false, false, true, repetitions, nbTravailleurs);
+            crack.correcte = pixelsDifferents(source, crackee, false) == 0;
+            // Un seul bloc : le sens de lecture n'est pas identifiable
+            if (!crack.correcte && Integer.bitCount(hauteur) == 1 && pixelsDifferents(source, crackee, true) == 0) {
+                crack.correcte = true;
+                crack.remarque = "à l'envers";
+            }
+            mesures.add(crack);
+        }
+
+        for (String video : new String[]{chiffree, chiffreeCle, dechiffree, dechiffreeCle, crackee}) {
+            new File(video).delete();
+        }
+        return mesures;
+    }
+
+    /**
+     * Traite une vidéo plusieurs fois dans un mode et garde la meilleure mesure
+     * (débit le plus haut, crack le plus court, pic de mémoire le plus haut).
+     */
+    private static Mesure mesurer(String video, String mode, String entree, String sortie, String sens,
+                                  boolean embarquer, boolean extraire, boolean cracker, int repetitions, int nbTravailleurs) {
+        Mesure meilleure = null;
+        for (int i = 0; i < repetitions; i++) {
+            Mesure mesure = mesurer(video, mode, entree, sortie, sens, embarquer, extraire, cracker, nbTravailleurs);
+            if (meilleure == null || mesure.frames == 0) {
+                meilleure = mesure;
+                if (mesure.frames == 0) break;
+                continue;
+            }
+            meilleure.fps = Math.max(meilleure.fps, mesure.fps);
+            if (mesure.crackMs >= 0 && (meilleure.crackMs < 0 || mesure.crackMs < meilleure.crackMs)) {
+                meilleure.crackMs = mesure.crackMs;
+            }
+            meilleure.picMemoireKo = Math.max(meilleure.picMemoireKo, mesure.picMemoireKo);
+        }
+        return meilleure;
+    }
+
+    /**
+     * Traite une vidéo dans un mode et mesure le débit, la latence du crack et le pic de mémoire.
+     */
+    private static Mesure mesurer(String video, String mode, String entree, String sortie, String sens,
+                                  boolean embarquer, boolean extraire, boolean cracker, int nbTravailleurs) {
+        Mesure mesure = new Mesure(video, mode);
+        TraitementVideo traitement = new TraitementVideo(entree, sortie, sens, CLE_R, CLE_S);
+        traitement.setEmbedKey(embarquer);
+        traitement.setExtractKey(extraire);
+        traitement.setCrackKey(cracker);
+        traitement.setCacheCracks(false);
+        traitement.setNbTravailleurs(nbTravailleurs);
+        long debut = System.nanoTime();
+        long[] cleTrouvee = {-1};
+        traitement.setEcouteur(new TraitementVideo.Ecouteur() {
+            @Override
+            public void cleConnue(String libelle, int r, int s) {
+                if (cleTrouvee[0] < 0) cleTrouvee[0] = System.nanoTime();
+            }
+        });
+
+        reinitialiserPicMemoire();
+        try {
+            traitement.executer();
+        } catch (RuntimeException e) {
+            System.err.println(video + " / " + mode + " : " + e.getMessage());
+            e.printStackTrace();
+            mesure.correcte = false;
+            return mesure;
+        }
+        long duree = System.nanoTime() - debut;
+
+        mesure.frames = traitement.getFramesEcrites();
+        mesure.fps = mesure.frames * 1e9 / Math.max(1, duree);
+        if (cracker && cleTrouvee[0] >= 0) {
+            mesure.crackMs = (cleTrouvee[0] - debut) / 1_000_000;
+        }
+        mesure.picMemoireKo = picMemoireKo();
+        return mesure;
+    }
+
+    /**
+     * Génère une vidéo synthétique AVI non compressée (pixels exacts, sans perte de codec).
+     *
+     * @return Le chemin de la vidéo
+     */
+    private static String genererVideo(File dossier, FramesSynthetiques.Motif motif, int hauteur, int nbFrames) throws IOException {
+        String chemin = new File(dossier, motif.name().toLowerCase(Locale.ROOT) + "-" + hauteur + ".avi").getPath();
+        VideoWriter writer = new VideoWriter(chemin, 0, FPS_VIDEO, new Size(FramesSynthetiques.largeur(hauteur), hauteur), true);
+        if (!writer.isOpened()) {
+            throw new IOException("Impossible de créer la vidéo de test : " + chemin);
+        }
+        for (int index = 0; index < nbFrames; index++) {
+            Mat frame = FramesSynthetiques.frame(hauteur, 3, hauteur, motif, index);
+            writer.write(frame);
+            frame.release();
+        }
+        writer.release();
+        return chemin;
+    }
+
+    /**
+     * Compare deux vidéos frame par frame.
+     *
+     * @param aLEnvers  true pour comparer chaque ligne à la ligne symétrique (frames retournées)
+     * @return Le plus grand nombre de pixels différents dans une frame, ou -1 si les vidéos
+     *         n'ont pas le même nombre de frames ou les mêmes dimensions
+     */
+    private static int pixelsDifferents(String reference, String video, boolean aLEnvers) {
+        VideoCapture a = new VideoCapture(reference);
+        VideoCapture b = new VideoCapture(video);
+        Mat frameA = new Mat();
+        Mat frameB = new Mat();
+        int maximum = 0;
+        int nbFrames = 0;
+        try {
+            if (!a.isOpened() || !b.isOpened()) return -1;
+            while (true) {
+                boolean lueA = a.read(frameA) && !frameA.empty();
+                boolean lueB = b.read(frameB) && !frameB.empty();
+                if (lueA != lueB) return -1;
+                if (!lueA) break;
+                if (frameA.rows() != frameB.rows() || frameA.cols() != frameB.cols() || frameA.channels() != frameB.channels()) return -1;
+                int canaux = frameA.channels();
+                byte[] pixelsA = new byte[(int) (frameA.total() * canaux)];
+                byte[] pixelsB = new byte[pixelsA.length];
+                frameA.get(0, 0, pixelsA);
+                frameB.get(0, 0, pixelsB);
+                int octetsParLigne = frameA.cols() * canaux;
+                int differents = 0;
+                for (int y = 0; y < frameA.rows(); y++) {
+                    int ligneA = y * octetsParLigne;
+                    int ligneB = (aLEnvers ? frameA.rows() - 1 - y : y) * octetsParLigne;
+                    for (int p = 0; p < octetsParLigne; p += canaux) {
+                        for (int c = 0; c < canaux; c++) {
+                            if (pixelsA[ligneA + p + c] != pixelsB[ligneB + p + c]) {
+                                differents++;
+                                break;
+                            }
+                        }
+                    }
+                }
+                maximum = Math.max(maximum, differents);
+                nbFrames++;
+            }
+            return nbFrames > 0 ? maximum : -1;
+        } finally {
+            frameA.release();
+            frameB.release();
+            a.release();
+            b.release();
+        }
+    }
+
+    /**
+     * Remet à zéro le pic de mémoire résidente du processus (Linux), pour mesurer chaque mode à part.
+     */
+    private static void reinitialiserPicMemoire() {
+        try {
+            Files.write(Paths.get("/proc/self/clear_refs"), "5".getBytes(StandardCharsets.US_ASCII));
+        } catch (IOException | UnsupportedOperationException | SecurityException e) {
+            // Pas de remise à zéro : le pic mesuré est celui du processus depuis son lancement
+        }
+    }
+
+    /**
+     * @return Le pic de mémoire résidente du processus en Ko, ou -1 hors Linux
+     */
+    private static long picMemoireKo() {
+        Path statut = Paths.get("/proc/self/status");
+        if (!Files.exists(statut)) return -1;
+        try {
+            for (String ligne : Files.readAllLines(statut, StandardCharsets.US_ASCII)) {
+                if (ligne.startsWith("VmHWM:")) {
+                    return Long.parseLong(ligne.replaceAll("[^0-9]", ""));
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // Statut illisible : pic inconnu
+        }
+        return -1;
+    }
+
+    /**
+     * Compare les mesures aux débits de référence et note les régressions.
+     */
+    private static void comparerReference(String chemin, double tolerance, List<Mesure> mesures) throws IOException {
+        Properties reference = new Properties();
+        try (InputStream entree = new FileInputStream(chemin)) {
+            reference.load(entree);
+        }
+        for (Mesure mesure : mesures) {
+            String fps = reference.getProperty(mesure.cle() + ".fps");
+            if (fps != null && mesure.fps < Double.parseDouble(fps) * (1 - tolerance)) {
+                mesure.regression = String.format(Locale.ROOT, "fps %.1f < %.1f", mesure.fps, Double.parseDouble(fps));
+            }
+            String crackMs = reference.getProperty(mesure.cle() + ".crack_ms");
+            if (crackMs != null && mesure.crackMs >= 0 && mesure.crackMs > Long.parseLong(crackMs) * (1 + tolerance)) {
+                mesure.regression = (mesure.regression == null ? "" : mesure.regression + ", ")
+                        + "crack " + mesure.crackMs + " ms > " + crackMs + " ms";
+            }
+        }
+    }
+
+    /**
+     * Écrit les débits dans le fichier de référence (les autres entrées du fichier sont gardées).
+     * Rien n'est écrit si une vidéo est mal déchiffrée : une erreur de déchiffrement ne doit
+     * jamais entrer dans la référence comme un cas connu.
+     */
+    private static void enregistrerReference(String chemin, List<Mesure> mesures) throws IOException {
+        for (Mesure mesure : mesures) {
+            if (Boolean.FALSE.equals(mesure.correcte)) {
+                System.out.println("Référence non enregistrée : " + mesure.video + " / " + mesure.mode + " mal déchiffrée");
+                return;
+            }
+        }
+        Properties reference = new Properties();
+        File fichier = new File(chemin);
+        if (fichier.exists()) {
+            try (InputStream entree = new FileInputStream(fichier)) {
+                reference.load(entree);
+            }
+        }
+        for (Mesure mesure : mesures) {
+            reference.setProperty(mesure.cle() + ".fps", String.format(Locale.ROOT, "%.2f", mesure.fps));
+            if (mesure.crackMs >= 0) {
+                reference.setProperty(mesure.cle() + ".crack_ms", Long.toString(mesure.crackMs));
+            }
+        }
+        try (OutputStream sortie = new FileOutputStream(fichier)) {
+            reference.store(sortie, "VideoScramble - débits de référence (DebitBoutEnBout --enregistrer)");
+        }
+        System.out.println("Référence enregistrée : " + fichier.getAbsolutePath());
+    }
+
+    private static void afficher(List<Mesure> mesures) {
+        System.out.println();
+        System.out.println(String.format(Locale.ROOT, "%-18s %-18s %7s %9s %10s %11s %8s  %s",
+                "vidéo", "mode", "frames", "fps", "crack ms", "pic RSS Mo", "exacte", "remarques"));
+        for (Mesure mesure : mesures) {
+            System.out.println(String.format(Locale.ROOT, "%-18s %-18s %7d %9.1f %10s %11s %8s  %s",
+                    mesure.video, mesure.mode, mesure.frames, mesure.fps,
+                    mesure.crackMs >= 0 ? Long.toString(mesure.crackMs) : "-",
+                    mesure.picMemoireKo >= 0 ? Long.toString(mesure.picMemoireKo / 1024) : "n/d",
+                    mesure.correcte == null ? "-" : mesure.correcte ? "oui" : "NON",
+                    remarques(mesure)));
+        }
+    }
+
+    private static String remarques(Mesure mesure) {
+        if (mesure.remarque == null) return mesure.regression == null ? "" : mesure.regression;
+        return mesure.regression == null ? mesure.remarque : mesure.remarque + ", " + mesure.regression;
+    }
+
+    private static void ecrireCsv(String chemin, List<Mesure> mesures) throws IOException {
+        try (PrintWriter sortie = new PrintWriter(chemin, StandardCharsets.UTF_8)) {
+            sortie.println("video,mode,frames,fps,crack_ms,pic_rss_ko,exacte,remarques");
+            for (Mesure mesure : mesures) {
+                sortie.println(String.format(Locale.ROOT, "%s,%s,%d,%.2f,%d,%d,%s,%s",
+                        mesure.video, mesure.mode, mesure.frames, mesure.fps, mesure.crackMs, mesure.picMemoireKo,
+                        mesure.correcte == null ? "" : mesure.correcte, remarques(mesure).replace(',', ';')));
+            }
+        }
+    }
+
+    private static void supprimer(File dossier) {
+        File[] fichiers = dossier.listFiles();
+        if (fichiers != null) {
+            for (File fichier : fichiers) {
+                fichier.delete();
+            }
+        }
+        dossier.delete();
+    }
+
+    /**
+     * Lit les arguments de la ligne de commande.
+     *
+     * @throws IllegalArgumentException si les arguments sont invalides
+     */
+    private static Options lireOptions(String[] args) {
+        Options options = new Options();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+                case "--hauteurs":
+                    String[] valeurs = lireValeur(args, ++i, arg).split(",");
+                    options.hauteurs = new int[valeurs.length];
+                    for (int k = 0; k < valeurs.length; k++) {
+                        options.hauteurs[k] = lireEntier(valeurs[k], arg);
+                        if (options.hauteurs[k] < 16) throw new IllegalArgumentException("hauteur trop petite : " + valeurs[k]);
+                    }
+                    break;
+                case "--frames":
+                    options.nbFrames = lireEntier(lireValeur(args, ++i, arg), arg);
+                    break;
+                case "--repetitions":
+                    options.repetitions = lireEntier(lireValeur(args, ++i, arg), arg);
+                    break;
+                case "--motifs":
+                    options.motifs.clear();
+                    for (String motif : lireValeur(args, ++i, arg).split(",")) {
+                        try {
+                            options.motifs.add(FramesSynthetiques.Motif.valueOf(motif.trim().toUpperCase(Locale.ROOT)));
+                        } catch (IllegalArgumentException e) {
+                            throw new IllegalArgumentException("motif inconnu : " + motif);
+                        }
+                    }
+                    break;
+                case "--cas-difficiles":
+                    options.casDifficiles = true;
+                    break;
+                case "--reference":
+                    options.reference = lireValeur(args, ++i, arg);
+                    break;
+                case "--tolerance":
+                    try {
+                        options.tolerance = Double.parseDouble(lireValeur(args, ++i, arg));
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("nombre attendu pour " + arg + " : " + args[i]);
+                    }
+                    break;
+                case "--enregistrer":
+                    options.enregistrer = true;
+                    break;
+                case "--csv":
+                    options.csv = lireValeur(args, ++i, arg);
+                    break;
+                case "--dossier":
+                    options.dossier = lireValeur(args, ++i, arg);
+                    break;
+                case "--sans-echauffement":
+                    options.echauffement = false;
+                    break;
+                case "-t":
+                    options.nbTravailleurs = lireEntier(lireValeur(args, ++i, arg), arg);
+                    break;
+                default:
+                    throw new IllegalArgumentException("option inconnue : " + arg);
+            }
+        }
+        if (options.nbFrames < 1) throw new IllegalArgumentException("--frames doit valoir au moins 1");
+        if (options.repetitions < 1) throw new IllegalArgumentException("--repetitions doit valoir au moins 1");
+        if (options.motifs.isEmpty()) throw new IllegalArgumentException("aucun motif");
+        if (options.enregistrer && options.reference == null) {
+            throw new IllegalArgumentException("--enregistrer demande --reference");
+        }
+        if (options.enregistrer && options.casDifficiles) {
+            throw new IllegalArgumentException("--enregistrer n'accepte pas --cas-difficiles : les cas difficiles ne sont pas une référence");
+        }
+        if (options.tolerance < 0 || options.tolerance >= 1) throw new IllegalArgumentException("--tolerance doit être dans [0, 1[");
+        return options;
+    }
+
+    private static String lireValeur(String[] args, int i, String option) {
+        if (i >= args.length) throw new IllegalArgumentException("valeur manquante pour " + option);
+        return args[i];
+    }
+
+    private static int lireEntier(String valeur, String option) {
+        try {
+            return Integer.parseInt(valeur.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("nombre attendu pour " + option + " : " + valeur);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/**
+ * Frames synthétiques des benchmarks
+ * Auteurs : BONNIN Simon, CARRARA Tim
+ * Groupe  : S5 - A2
+ * Date    : Octobre 2026
+ * Description : Cette classe fabrique des frames reproductibles aux résolutions
+ * mesurées (480p, 1080p, 4K), sans dépendre d'une vidéo sur disque.
+ */
+
+package org.example;
+
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+
+import java.util.Random;
+
+/**
+ * Frames de test au format 16/9, de trois motifs :
+ * - TEXTURE : image naturelle, dégradés et ondulations lentes plus un léger bruit. Les lignes voisines
+ *   sont bien corrélées, comme dans une vraie vidéo, et les scores de clés mesurés se comportent
+ *   comme ceux d'un vrai crack (élagage compris)
+ * - DEGRADE : dégradé diagonal en dents de scie, sans bruit (aplats et transitions nettes)
+ * - BRUIT : la texture noyée dans un bruit fort, cas difficile pour le crack
+ * Le motif défile avec le numéro de la frame : deux frames d'une vidéo ne sont jamais identiques.
+ *
+ * @author BONNIN Simon, CARRARA Tim
+ * @version 1.0
+ */
+final class FramesSynthetiques {
+
+    /**
+     * Contenu des frames générées.
+     */
+    enum Motif {
+        TEXTURE, DEGRADE, BRUIT
+    }
+
+    private FramesSynthetiques() {
+    }
+
+    /**
+     * @param hauteur   Nombre de lignes (480, 1080, 2160...)
+     * @return La largeur 16/9 correspondante, paire
+     */
+    static int largeur(int hauteur) {
+        return (hauteur * 16 / 9 + 1) & ~1;
+    }
+
+    /**
+     * Construit une frame claire (non chiffrée) de texture naturelle.
+     *
+     * @param hauteur   Nombre de lignes
+     * @param canaux    Nombre de canaux (1, 3 ou 4)
+     * @param graine    Graine du bruit, pour des frames reproductibles
+     * @return La frame, de type CV_8UC(canaux)
+     */
+    static Mat frame(int hauteur, int canaux, long graine) {
+        return frame(hauteur, canaux, graine, Motif.TEXTURE, 0);
+    }
+
+    /**
+     * Construit une frame claire (non chiffrée) d'une vidéo synthétique.
+     *
+     * @param hauteur   Nombre de lignes
+     * @param canaux    Nombre de canaux (1, 3 ou 4)
+     * @param graine    Graine du bruit et des phases, la même pour toute la vidéo
+     * @param motif     Contenu de la frame
+     * @param index     Numéro de la frame dans la vidéo (0 pour une image fixe)
+     * @return La frame, de type CV_8UC(canaux)
+     */
+    static Mat frame(int hauteur, int canaux, long graine, Motif motif, int index) {
+        int largeur = largeur(hauteur);
+        // Phases fixes pour la vidéo, qui dérivent d'une frame à l'autre ; bruit propre à chaque frame
+        Random phases = new Random(graine);
+        double phaseX = phases.nextDouble() * Math.PI * 2 + index * 0.05;
+        double phaseY = phases.nextDouble() * Math.PI * 2 + index * 0.03;
+        Random aleatoire = new Random(graine + index);
+        aleatoire.nextDouble();
+        aleatoire.nextDouble();
+        double ecartBruit = motif == Motif.BRUIT ? 20 : 3;
+
+        // Ondulation séparable : un sinus par colonne, un cosinus par ligne
+        double[] ondulationX = new double[largeur];
+        for (int x = 0; x < largeur; x++) {
+            ondulationX[x] = Math.sin((double) x / largeur * 11 + phaseX);
+        }
+
+        byte[] pixels = new byte[hauteur * largeur * canaux];
+        int k = 0;
+        for (int y = 0; y < hauteur; y++) {
+            double v = (double) y / hauteur;
+            double ondulationY = Math.cos(v * 7 + phaseY);
+            for (int x = 0; x < largeur; x++) {
+                double u = (double) x / largeur;
+                if (motif == Motif.DEGRADE) {
+                    double dent = 2 * u + 1.5 * v + index * 0.01;
+                    double base = 30 + 200 * (dent - Math.floor(dent));
+                    for (int c = 0; c < canaux; c++) {
+                        pixels[k++] = (byte) Math.min(255, (int) (base + 20 * c));
+                    }
+                    continue;
+                }
+                double base = 60 + 90 * u + 50 * v + 30 * ondulationX[x] * ondulationY;
+                for (int c = 0; c < canaux; c++) {
+                    int valeur = (int) (base + 15 * c + aleatoire.nextGaussian() * ecartBruit);
+                    pixels[k++] = (byte) Math.max(0, Math.min(255, valeur));
+                }
+            }
+        }
+        Mat frame = new Mat(hauteur, largeur, CvType.CV_8UC(canaux));
+        frame.put(0, 0, pixels);
+        return frame;
+    }
+
+    /**
+     * Lit une clé de paramètre JMH de la forme "r:s" (la virgule sépare les valeurs de -p).
+     *
+     * @param cle   La clé écrite "r:s"
+     * @return La clé [r, s]
+     */
+    static int[] cle(String cle) {
+        String[] parties = cle.split(":");
+        return new int[]{Integer.parseInt(parties[0].trim()), Integer.parseInt(parties[1].trim())};
+    }
+}
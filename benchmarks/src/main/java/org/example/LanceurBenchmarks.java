@@ -0,0 +1,46 @@
+/**
+ * Lancement des benchmarks
+ * Auteurs : BONNIN Simon, CARRARA Tim
+ * Groupe  : S5 - A2
+ * Date    : Octobre 2026
+ * Description : Cette classe lance les benchmarks JMH avec le profileur
+ * d'allocations activé et les options JVM dont l'application a besoin.
+ */
+
+package org.example;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Point d'entrée du jar de benchmarks.
+ * Accepte les mêmes arguments que le lanceur JMH (filtre de benchmarks, -p, -f, -wi, -i, -rf json...),
+ * et ajoute toujours :
+ * - le profileur GC (octets alloués par opération, nombre de GC), pour suivre les allocations
+ * - le module jdk.incubator.vector dans les JVM de mesure (noyau de corrélation vectoriel)
+ * La bibliothèque native d'OpenCV est cherchée dans java.library.path, transmis aux JVM de mesure.
+ *
+ * @author BONNIN Simon, CARRARA Tim
+ * @version 1.0
+ */
+public final class LanceurBenchmarks {
+
+    private LanceurBenchmarks() {
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions ligneDeCommande = new CommandLineOptions(args);
+        Options options = new OptionsBuilder()
+                .parent(ligneDeCommande)
+                .addProfiler(GCProfiler.class)
+                .jvmArgsPrepend("--add-modules", "jdk.incubator.vector",
+                        "-Djava.library.path=" + System.getProperty("java.library.path", ""))
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,118 @@
+/**
+ * Benchmarks du chiffrement
+ * Auteurs : BONNIN Simon, CARRARA Tim
+ * Groupe  : S5 - A2
+ * Date    : Octobre 2026
+ * Description : Cette classe mesure la permutation des lignes d'une frame :
+ * chiffrement, déchiffrement et version sur tableaux d'octets du crack.
+ */
+
+package org.example;
+
+import org.opencv.core.Mat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Permutation des lignes d'une frame, par résolution, nombre de canaux et clé.
+ * La clé "0:0" garde les lignes dans l'ordre (accès mémoire séquentiels) ; "201:77" est une clé
+ * standard ; "40001:30001" une clé étendue (16 bits), ramenée au calcul par masque du bloc.
+ * Les versions avec destination réutilisent la même Mat d'une opération à l'autre, comme le
+ * pipeline vidéo : elles ne doivent rien allouer. La version par le pool mesure le prêt de tampon.
+ *
+ * @author BONNIN Simon, CARRARA Tim
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PermutationBenchmark {
+
+    @Param({"480", "1080", "2160"})
+    public int hauteur;
+
+    @Param({"1", "3"})
+    public int canaux;
+
+    @Param({"0:0", "201:77", "40001:30001"})
+    public String cle;
+
+    private Mat claire;
+    private Mat chiffree;
+    private Mat destination;
+    private RowPermutation permutation;
+    private byte[][] lignesChiffrees;
+    private byte[][] lignesDechiffrees;
+    private int r;
+    private int s;
+
+    @Setup(Level.Trial)
+    public void preparer() {
+        ChargeurOpenCV.charger(false);
+        int[] rs = FramesSynthetiques.cle(cle);
+        r = rs[0];
+        s = rs[1];
+        claire = FramesSynthetiques.frame(hauteur, canaux, 42);
+        permutation = RowPermutation.of(hauteur, r, s);
+        chiffree = new Mat();
+        PermutationLignes.scrambleFrame(claire, chiffree, permutation);
+        destination = new Mat();
+        lignesChiffrees = TrouveCleBruteForce.extraireLignes(chiffree);
+        lignesDechiffrees = new byte[hauteur][];
+    }
+
+    @TearDown(Level.Trial)
+    public void liberer() {
+        claire.release();
+        chiffree.release();
+        destination.release();
+    }
+
+    @Benchmark
+    public Mat chiffrer() {
+        PermutationLignes.scrambleFrame(claire, destination, permutation);
+        return destination;
+    }
+
+    @Benchmark
+    public Mat dechiffrer() {
+        PermutationLignes.unscrambleFrame(chiffree, destination, permutation);
+        return destination;
+    }
+
+    @Benchmark
+    public void chiffrerParLePool() {
+        Mat resultat = PermutationLignes.scrambleFrame(claire, permutation);
+        PoolTampons.partage().restituer(resultat);
+    }
+
+    @Benchmark
+    public RowPermutation construirePermutation() {
+        return RowPermutation.of(hauteur, r, s);
+    }
+
+    /**
+     * Déchiffrement par références de lignes, tel qu'il est fait pour chaque clé testée.
+     */
+    @Benchmark
+    public byte[][] dechiffrerLignes() {
+        PermutationLignes.unscrambleBlockRowsFast(lignesDechiffrees, lignesChiffrees, 0, hauteur, r, s);
+        return lignesDechiffrees;
+    }
+}
@@ -0,0 +1,113 @@
+/**
+ * Benchmarks du score des clés
+ * Auteurs : BONNIN Simon, CARRARA Tim
+ * Groupe  : S5 - A2
+ * Date    : Octobre 2026
+ * Description : Cette classe mesure la corrélation de Pearson entre deux lignes
+ * et l'évaluation d'une clé, qui forment le cœur de la force brute.
+ */
+
+package org.example;
+
+import org.opencv.core.Mat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Score d'une clé sur une frame chiffrée, par résolution, nombre de canaux et clé.
+ * - pearson : une paire de lignes voisines de la frame claire
+ * - evaluerCle : la clé juste, sur l'échantillon de paires de la force brute, sans élagage
+ * - evaluerMauvaiseCle : une clé voisine (r + 1) face au score de la bonne clé,
+ *   c'est-à-dire le cas le plus fréquent de la force brute, où l'élagage s'applique
+ * - evaluerCleMatrice : la clé juste par la matrice de corrélation (statistiques des lignes
+ *   précalculées, corrélations mémorisées après le premier passage)
+ *
+ * @author BONNIN Simon, CARRARA Tim
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ScoreBenchmark {
+
+    @Param({"480", "1080", "2160"})
+    public int hauteur;
+
+    @Param({"1", "3"})
+    public int canaux;
+
+    @Param({"201:77", "40001:30001"})
+    public String cle;
+
+    private byte[] ligneA;
+    private byte[] ligneB;
+    private int[] indicesEchantillon;
+    private byte[][] lignesBonneCle;
+    private byte[][] lignesMauvaiseCle;
+    private double scoreBonneCle;
+    private MatriceCorrelation correlations;
+    private int[] ordreBonneCle;
+
+    @Setup(Level.Trial)
+    public void preparer() {
+        ChargeurOpenCV.charger(false);
+        int[] rs = FramesSynthetiques.cle(cle);
+        int r = rs[0];
+        int s = rs[1];
+
+        Mat claire = FramesSynthetiques.frame(hauteur, canaux, 42);
+        byte[][] lignesClaires = TrouveCleBruteForce.extraireLignes(claire);
+        ligneA = lignesClaires[hauteur / 2];
+        ligneB = lignesClaires[hauteur / 2 + 1];
+
+        Mat chiffree = PermutationLignes.scrambleFrame(claire, r, s);
+        byte[][] lignesChiffrees = TrouveCleBruteForce.extraireLignes(chiffree);
+        claire.release();
+        chiffree.release();
+
+        indicesEchantillon = TrouveCleBruteForce.echantillonnerPaires(hauteur - 1, TrouveCleBruteForce.LIGNES_POURCENTAGE_TEST);
+        lignesBonneCle = new byte[hauteur][];
+        PermutationLignes.unscrambleBlockRowsFast(lignesBonneCle, lignesChiffrees, 0, hauteur, r, s);
+        lignesMauvaiseCle = new byte[hauteur][];
+        PermutationLignes.unscrambleBlockRowsFast(lignesMauvaiseCle, lignesChiffrees, 0, hauteur, r + 1, s);
+        scoreBonneCle = EvaluationScoreImage.evaluateKeyScore(lignesBonneCle, indicesEchantillon, Double.NEGATIVE_INFINITY);
+
+        correlations = new MatriceCorrelation(lignesChiffrees);
+        ordreBonneCle = RowPermutation.of(hauteur, r, s).forward();
+    }
+
+    @Benchmark
+    public double pearson() {
+        return PearsonCorrelation.pearson(ligneA, ligneB);
+    }
+
+    @Benchmark
+    public double evaluerCle() {
+        return EvaluationScoreImage.evaluateKeyScore(lignesBonneCle, indicesEchantillon, Double.NEGATIVE_INFINITY);
+    }
+
+    @Benchmark
+    public double evaluerMauvaiseCle() {
+        return EvaluationScoreImage.evaluateKeyScore(lignesMauvaiseCle, indicesEchantillon, scoreBonneCle);
+    }
+
+    @Benchmark
+    public double evaluerCleMatrice() {
+        return EvaluationScoreImage.evaluateKeyScore(correlations, ordreBonneCle, indicesEchantillon, Double.NEGATIVE_INFINITY);
+    }
+}
@@ -0,0 +1,264 @@
+/**
+ * Vérification de l'élagage par bornes
+ * Auteurs : BONNIN Simon, CARRARA Tim
+ * Groupe  : S5 - A2
+ * Date    : Octobre 2026
+ * Description : Cette classe compare, sur des frames synthétiques de nombreuses
+ * hauteurs, la recherche de clé élaguée par les bornes de corrélation à une
+ * recherche exhaustive sans élagage, et échoue à la moindre différence.
+ */
+
+package org.example;
+
+import org.opencv.core.Mat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Auto-vérification de l'élagage ({@link BornesCorrelation}, {@link EvaluationScoreImage}).
+ * Un élagage faux ne se voit pas : la recherche rend simplement une autre clé. Pour chaque hauteur
+ * demandée et quelques clés tirées au hasard (graine fixe), une frame TEXTURE est chiffrée, puis
+ * le score exact de chaque clé de l'espace est calculé sans élagage et comparé à :
+ * 1. la borne de la clé ({@link BornesCorrelation#borneCle(int, int)}) : elle ne doit jamais être
+ *    inférieure au score exact
+ * 2. l'évaluation élaguée, avec pour meilleur score connu un seuil juste sous le score exact :
+ *    la clé ne doit pas être abandonnée et son score doit être exact
+ * 3. les scores exacts par sommes cumulées le long des cycles
+ *    ({@link BornesCorrelation#scoresExacts(MatriceCorrelation, int, int[])})
+ * 4. la force brute élaguée : la clé rendue doit avoir le meilleur score exact (à égalité près,
+ *    la clé miroir d'une hauteur puissance de deux ayant le même score)
+ * Code de sortie 1 si une seule frame est en défaut (les premières différences de chaque frame sont affichées).
+ *
+ * @author BONNIN Simon, CARRARA Tim
+ * @version 1.0
+ */
+public final class VerificationElagage {
+
+    private static final int SUCCES = 0;
+    private static final int ECHEC = 1;
+    private static final int ERREUR_USAGE = 2;
+
+    /**
+     * Écart toléré entre deux scores : les sommes ne sont pas faites dans le même ordre.
+     */
+    private static final double TOLERANCE = 1e-6;
+
+    /**
+     * Nombre maximal de différences affichées par hauteur.
+     */
+    private static final int DIFFERENCES_AFFICHEES = 5;
+
+    private static final String USAGE = String.join("\n",
+            "Usage : java org.example.VerificationElagage [options]",
+            "Options :",
+            "  --hauteurs <a-b|h,...>  hauteurs vérifiées (défaut 2-160 ; 2-719 avec --cles 1 : 5 min environ)",
+            "  --cles <n>              clés de chiffrement tirées par hauteur (défaut 2)",
+            "  --etendu                espace de clés étendu au lieu de l'espace standard");
+
+    /**
+     * Options lues sur la ligne de commande.
+     */
+    private static class Options {
+        List<Integer> hauteurs = intervalle(2, 160);
+        int nbCles = 2;
+        EspaceCles espace = EspaceCles.STANDARD;
+    }
+
+    private VerificationElagage() {
+    }
+
+    public static void main(String[] args) {
+        System.exit(executer(args));
+    }
+
+    /**
+     * Exécute la vérification et retourne le code de sortie.
+     *
+     * @param args  Les arguments de la ligne de commande
+     * @return 0 si l'élagage ne change aucun résultat, 1 sinon, 2 en cas d'erreur d'usage
+     */
+    public static int executer(String[] args) {
+        Options options;
+        try {
+            options = lireOptions(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Erreur : " + e.getMessage());
+            System.err.println(USAGE);
+            return ERREUR_USAGE;
+        }
+
+        ChargeurOpenCV.charger(false);
+
+        Random aleatoire = new Random(42);
+        long debut = System.nanoTime();
+        int verifiees = 0;
+        List<Integer> enDefaut = new ArrayList<>();
+        for (int hauteur : options.hauteurs) {
+            for (int k = 0; k < options.nbCles; k++) {
+                int r = aleatoire.nextInt(options.espace.getNbValeursR());
+                int s = aleatoire.nextInt(options.espace.getNbValeursS());
+                int differences = verifier(hauteur, r, s, hauteur * 31L + k, options.espace);
+                verifiees++;
+                if (differences > 0) {
+                    System.out.println("Hauteur " + hauteur + ", clé (r=" + r + ", s=" + s + ") : " + differences + " différence(s)");
+                    if (!enDefaut.contains(hauteur)) enDefaut.add(hauteur);
+                }
+            }
+            if (hauteur % 50 == 0) {
+                System.out.println("Hauteur " + hauteur + " vérifiée");
+            }
+        }
+
+        long dureeMs = (System.nanoTime() - debut) / 1_000_000;
+        if (!enDefaut.isEmpty()) {
+            System.out.println("ÉCHEC : l'élagage change le résultat pour les hauteurs " + enDefaut
+                    + " (" + verifiees + " frames, " + dureeMs + " ms)");
+            return ECHEC;
+        }
+        System.out.println("Élagage conforme à la recherche exhaustive : " + verifiees + " frames, "
+                + options.hauteurs.size() + " hauteurs, " + dureeMs + " ms");
+        return SUCCES;
+    }
+
+    /**
+     * Vérifie l'élagage sur une frame chiffrée.
+     *
+     * @param hauteur   Hauteur de la frame
+     * @param r         Première clé de chiffrement
+     * @param s         Seconde clé de chiffrement
+     * @param graine    Graine de la frame
+     * @param espace    L'espace des clés cherchées
+     * @return Le nombre de différences avec la recherche exhaustive
+     */
+    private static int verifier(int hauteur, int r, int s, long graine, EspaceCles espace) {
+        Mat claire = FramesSynthetiques.frame(hauteur, 3, graine);
+        Mat chiffree = PermutationLignes.scrambleFrame(claire, r, s);
+        byte[][] lignes = TrouveCleBruteForce.extraireLignes(chiffree);
+        claire.release();
+        chiffree.release();
+
+        MatriceCorrelation correlations = new MatriceCorrelation(lignes);
+        EspaceCles cles = espace.pourHauteur(hauteur);
+        int[] indicesEchantillon = TrouveCleBruteForce.echantillonnerPaires(hauteur - 1, TrouveCleBruteForce.LIGNES_POURCENTAGE_TEST);
+        BornesCorrelation bornes = new BornesCorrelation(correlations, cles.getNbValeursS(), indicesEchantillon);
+        BornesCorrelation exacts = BornesCorrelation.scoresExacts(correlations, cles.getNbValeursS(), indicesEchantillon);
+
+        int differences = 0;
+        double meilleurScore = Double.NEGATIVE_INFINITY;
+        int[] ordreLignes = new int[hauteur];
+        for (int cle = 0; cle < cles.getNbCles(); cle++) {
+            int rCle = cles.r(cle);
+            int sCle = cles.s(cle);
+            RowPermutation.remplirForward(ordreLignes, hauteur, rCle, sCle);
+            double score = EvaluationScoreImage.evaluateKeyScore(correlations, ordreLignes, indicesEchantillon, Double.NEGATIVE_INFINITY);
+            meilleurScore = Math.max(meilleurScore, score);
+
+            double borne = bornes.borneCle(rCle, sCle);
+            if (borne < score - TOLERANCE) {
+                differences += signaler(differences, hauteur, rCle, sCle, "borne " + borne + " < score " + score);
+            }
+            double elague = EvaluationScoreImage.evaluateKeyScore(correlations, bornes, ordreLignes, indicesEchantillon,
+                    borne, score - TOLERANCE);
+            if (Math.abs(elague - score) > TOLERANCE) {
+                differences += signaler(differences, hauteur, rCle, sCle, "score élagué " + elague + " au lieu de " + score);
+            }
+            double cycle = exacts.borneCle(rCle, sCle);
+            if (Math.abs(cycle - score) > TOLERANCE) {
+                differences += signaler(differences, hauteur, rCle, sCle, "score par cycles " + cycle + " au lieu de " + score);
+            }
+        }
+
+        int[] trouvee = TrouveCleBruteForce.bruteForce(correlations, espace);
+        RowPermutation.remplirForward(ordreLignes, hauteur, trouvee[0], trouvee[1]);
+        double scoreTrouvee = EvaluationScoreImage.evaluateKeyScore(correlations, ordreLignes, indicesEchantillon, Double.NEGATIVE_INFINITY);
+        if (scoreTrouvee < meilleurScore - TOLERANCE) {
+            differences += signaler(differences, hauteur, trouvee[0], trouvee[1],
+                    "force brute élaguée : score " + scoreTrouvee + " au lieu du meilleur " + meilleurScore);
+        }
+        return differences;
+    }
+
+    /**
+     * Affiche une différence (les premières seulement).
+     *
+     * @return 1, la différence à compter
+     */
+    private static int signaler(int dejaSignalees, int hauteur, int r, int s, String message) {
+        if (dejaSignalees < DIFFERENCES_AFFICHEES) {
+            System.out.println("  hauteur " + hauteur + ", clé (r=" + r + ", s=" + s + ") : " + message);
+        }
+        return 1;
+    }
+
+    /**
+     * Lit les arguments de la ligne de commande.
+     *
+     * @throws IllegalArgumentException si les arguments sont invalides
+     */
+    private static Options lireOptions(String[] args) {
+        Options options = new Options();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+                case "--hauteurs":
+                    options.hauteurs = lireHauteurs(lireValeur(args, ++i, arg));
+                    break;
+                case "--cles":
+                    options.nbCles = lireEntier(lireValeur(args, ++i, arg), arg);
+                    break;
+                case "--etendu":
+                    options.espace = EspaceCles.ETENDU;
+                    break;
+                default:
+                    throw new IllegalArgumentException("option inconnue : " + arg);
+            }
+        }
+        if (options.nbCles < 1) throw new IllegalArgumentException("--cles doit valoir au moins 1");
+        return options;
+    }
+
+    /**
+     * @param valeur    Un intervalle "a-b" ou une liste "h1,h2,..."
+     * @return Les hauteurs, toutes d'au moins 2 lignes
+     */
+    private static List<Integer> lireHauteurs(String valeur) {
+        List<Integer> hauteurs = new ArrayList<>();
+        int tiret = valeur.indexOf('-');
+        if (tiret > 0) {
+            hauteurs = intervalle(lireEntier(valeur.substring(0, tiret), "--hauteurs"),
+                    lireEntier(valeur.substring(tiret + 1), "--hauteurs"));
+        } else {
+            for (String hauteur : valeur.split(",")) {
+                hauteurs.add(lireEntier(hauteur, "--hauteurs"));
+            }
+        }
+        if (hauteurs.isEmpty()) throw new IllegalArgumentException("aucune hauteur : " + valeur);
+        for (int hauteur : hauteurs) {
+            if (hauteur < 2) throw new IllegalArgumentException("hauteur trop petite : " + hauteur);
+        }
+        return hauteurs;
+    }
+
+    private static List<Integer> intervalle(int premiere, int derniere) {
+        List<Integer> hauteurs = new ArrayList<>();
+        for (int hauteur = premiere; hauteur <= derniere; hauteur++) {
+            hauteurs.add(hauteur);
+        }
+        return hauteurs;
+    }
+
+    private static String lireValeur(String[] args, int i, String option) {
+        if (i >= args.length) throw new IllegalArgumentException("valeur manquante pour " + option);
+        return args[i];
+    }
+
+    private static int lireEntier(String valeur, String option) {
+        try {
+            return Integer.parseInt(valeur.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("nombre attendu pour " + option + " : " + valeur);
+        }
+    }
+}
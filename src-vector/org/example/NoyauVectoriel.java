@@ -0,0 +1,169 @@
+/**
+ * Noyau de corrélation vectoriel
+ * Auteurs : BONNIN Simon, CARRARA Tim
+ * Groupe  : S5 - A2
+ * Date    : Octobre 2026
+ * Description : Cette classe calcule les sommes de la corrélation de Pearson
+ * avec l'API Vector de Java (instructions SIMD : SSE, AVX2, AVX-512, NEON...).
+ * Elle est dans un dossier de sources à part (src-vector), compilé après src avec
+ * --add-modules jdk.incubator.vector, pour que src se compile sans le module incubateur :
+ *   javac -d out $(find src -name "*.java") ...
+ *   javac --add-modules jdk.incubator.vector -cp out -d out src-vector/org/example/NoyauVectoriel.java
+ * Sans cette seconde compilation, l'application utilise le noyau scalaire.
+ */
+
+package org.example;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Implémentation vectorielle du {@link NoyauCorrelation}.
+ * Chaque itération charge un vecteur d'octets de chaque ligne, l'élargit en 4 vecteurs
+ * d'entiers (pixels de 0 à 255) et met à jour des accumulateurs entiers par voie.
+ * Pour éviter tout dépassement, les accumulateurs sont vidés dans des long tous les
+ * BLOC octets ; les pixels restants en fin de ligne sont traités en scalaire.
+ * Cette classe n'est chargée (par réflexion) que si le module jdk.incubator.vector est présent.
+ *
+ * @author BONNIN Simon, CARRARA Tim
+ * @version 1.0
+ */
+final class NoyauVectoriel extends NoyauCorrelation {
+
+    private static final VectorSpecies<Byte> OCTETS = ByteVector.SPECIES_PREFERRED;
+    // Vecteurs d'entiers de même taille : un vecteur d'octets en donne 4
+    private static final VectorSpecies<Integer> ENTIERS = VectorSpecies.of(int.class, OCTETS.vectorShape());
+    private static final int PAS = OCTETS.length();
+
+    /**
+     * Octets traités avant de vider les accumulateurs entiers.
+     * Chaque voie reçoit au plus BLOC / ENTIERS.length() produits ≤ 255², soit
+     * moins de 2^31 même avec des vecteurs de 64 bits.
+     */
+    private static final int BLOC = 1 << 15;
+
+    /**
+     * @return true si la machine a de vrais registres SIMD (au moins 128 bits)
+     */
+    @Override
+    public boolean estAccelere() {
+        return OCTETS.vectorBitSize() >= 128;
+    }
+
+    @Override
+    public String nom() {
+        return "vectoriel " + OCTETS.vectorBitSize() + " bits";
+    }
+
+    @Override
+    public void sommes(byte[] x, byte[] y, long[] resultat) {
+        long sx = 0, sy = 0, sxy = 0, sxx = 0, syy = 0;
+        int limite = OCTETS.loopBound(x.length);
+
+        for (int debut = 0; debut < limite; debut += BLOC) {
+            int fin = Math.min(limite, debut + BLOC);
+            IntVector vx = IntVector.zero(ENTIERS);
+            IntVector vy = IntVector.zero(ENTIERS);
+            IntVector vxy = IntVector.zero(ENTIERS);
+            IntVector vxx = IntVector.zero(ENTIERS);
+            IntVector vyy = IntVector.zero(ENTIERS);
+            for (int i = debut; i < fin; i += PAS) {
+                ByteVector bx = ByteVector.fromArray(OCTETS, x, i);
+                ByteVector by = ByteVector.fromArray(OCTETS, y, i);
+                for (int partie = 0; partie < 4; partie++) {
+                    IntVector a = pixels(bx, partie);
+                    IntVector b = pixels(by, partie);
+                    vx = vx.add(a);
+                    vy = vy.add(b);
+                    vxy = vxy.add(a.mul(b));
+                    vxx = vxx.add(a.mul(a));
+                    vyy = vyy.add(b.mul(b));
+                }
+            }
+            sx += vx.reduceLanesToLong(VectorOperators.ADD);
+            sy += vy.reduceLanesToLong(VectorOperators.ADD);
+            sxy += vxy.reduceLanesToLong(VectorOperators.ADD);
+            sxx += vxx.reduceLanesToLong(VectorOperators.ADD);
+            syy += vyy.reduceLanesToLong(VectorOperators.ADD);
+        }
+
+        // Fin de ligne en scalaire
+        for (int i = limite; i < x.length; i++) {
+            int a = x[i] & 0xFF;
+            int b = y[i] & 0xFF;
+            sx += a;
+            sy += b;
+            sxy += a * b;
+            sxx += a * a;
+            syy += b * b;
+        }
+        resultat[0] = sx;
+        resultat[1] = sy;
+        resultat[2] = sxy;
+        resultat[3] = sxx;
+        resultat[4] = syy;
+    }
+
+    @Override
+    public void statistiques(byte[] x, long[] resultat) {
+        long sx = 0, sxx = 0;
+        int limite = OCTETS.loopBound(x.length);
+
+        for (int debut = 0; debut < limite; debut += BLOC) {
+            int fin = Math.min(limite, debut + BLOC);
+            IntVector vx = IntVector.zero(ENTIERS);
+            IntVector vxx = IntVector.zero(ENTIERS);
+            for (int i = debut; i < fin; i += PAS) {
+                ByteVector bx = ByteVector.fromArray(OCTETS, x, i);
+                for (int partie = 0; partie < 4; partie++) {
+                    IntVector a = pixels(bx, partie);
+                    vx = vx.add(a);
+                    vxx = vxx.add(a.mul(a));
+                }
+            }
+            sx += vx.reduceLanesToLong(VectorOperators.ADD);
+            sxx += vxx.reduceLanesToLong(VectorOperators.ADD);
+        }
+
+        for (int i = limite; i < x.length; i++) {
+            int a = x[i] & 0xFF;
+            sx += a;
+            sxx += a * a;
+        }
+        resultat[0] = sx;
+        resultat[1] = sxx;
+    }
+
+    @Override
+    public long produitScalaire(byte[] x, byte[] y) {
+        long produit = 0;
+        int limite = OCTETS.loopBound(x.length);
+
+        for (int debut = 0; debut < limite; debut += BLOC) {
+            int fin = Math.min(limite, debut + BLOC);
+            IntVector vxy = IntVector.zero(ENTIERS);
+            for (int i = debut; i < fin; i += PAS) {
+                ByteVector bx = ByteVector.fromArray(OCTETS, x, i);
+                ByteVector by = ByteVector.fromArray(OCTETS, y, i);
+                for (int partie = 0; partie < 4; partie++) {
+                    vxy = vxy.add(pixels(bx, partie).mul(pixels(by, partie)));
+                }
+            }
+            produit += vxy.reduceLanesToLong(VectorOperators.ADD);
+        }
+
+        for (int i = limite; i < x.length; i++) {
+            produit += (x[i] & 0xFF) * (y[i] & 0xFF);
+        }
+        return produit;
+    }
+
+    /**
+     * Élargit un quart d'un vecteur d'octets en entiers non signés (pixels de 0 à 255).
+     */
+    private static IntVector pixels(ByteVector octets, int partie) {
+        return ((IntVector) octets.convertShape(VectorOperators.B2I, ENTIERS, partie)).and(0xFF);
+    }
+}
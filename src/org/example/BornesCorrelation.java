@@ -0,0 +1,321 @@
+/**
+ * Bornes de corrélation par ligne
+ * Auteurs : BONNIN Simon, CARRARA Tim
+ * Groupe  : S5 - A2
+ * Date    : Octobre 2026
+ * Description : Cette classe calcule une fois par frame, pour chaque ligne de
+ * l'image chiffrée, la meilleure corrélation qu'elle peut avoir avec une ligne
+ * voisine sous n'importe quelle clé. La recherche de clé s'en sert pour
+ * abandonner une mauvaise clé après très peu de paires, voire sans en calculer aucune.
+ */
+
+package org.example;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Majorants du score des clés, par ligne et par clé.
+ * Sans borne, l'élagage suppose qu'une paire non encore évaluée peut valoir 1 : une mauvaise
+ * clé n'est abandonnée qu'après une trentaine de paires. Or la bonne clé obtient presque, pour
+ * chaque ligne, la meilleure corrélation possible de cette ligne : avec une borne par ligne,
+ * une mauvaise clé est abandonnée après quelques paires dès que la bonne clé a été vue.
+ * Principe :
+ * 1. Dans un bloc de p lignes, la ligne chiffrée qui suit la ligne a est toujours a ± (2s+1) mod p :
+ *    la borne de la ligne a est sa plus forte corrélation avec ces seules voisines possibles.
+ *    Ces corrélations sont celles que la recherche calculerait de toute façon, elles restent
+ *    mémorisées dans la matrice
+ * 2. La borne d'une paire de lignes est la plus petite des bornes de ses deux lignes ;
+ *    les paires à cheval sur deux blocs de la permutation gardent la borne 1
+ * 3. Pour un multiplicateur 2s+1, les lignes d'un bloc se suivent toujours dans le même cycle
+ *    x → x + 2s+1 et r ne fait que choisir le point de départ : des sommes cumulées des bornes
+ *    le long de chaque cycle donnent la borne d'une clé entière en quelques opérations
+ * Avec {@link #scoresExacts(MatriceCorrelation, int, int[])}, les sommes cumulées portent sur les
+ * vraies corrélations des maillons au lieu des bornes : {@link #borneCle(int, int)} rend alors le
+ * score exact de la clé. Toutes les clés d'un même s se partagent les corrélations de son cycle :
+ * classer tout un espace de clés ne coûte que les corrélations des maillons possibles,
+ * au lieu d'une évaluation paire par paire de chaque clé.
+ *
+ * @author BONNIN Simon, CARRARA Tim
+ * @version 1.0
+ */
+public class BornesCorrelation {
+
+    /**
+     * Marge ajoutée aux bornes : les corrélations de la matrice sont arrondies en float.
+     */
+    private static final double MARGE_ARRONDI = 1e-5;
+
+    // Borne de chaque ligne chiffrée, entre 0 et 1
+    private final double[] bornes;
+    // frontiere[i] : les positions i et i+1 sont dans deux blocs différents de la permutation
+    private final boolean[] frontiere;
+
+    // Blocs de la permutation : début et taille (puissance de deux)
+    private final int[] debutsBlocs;
+    private final int[] taillesBlocs;
+    // cumuls[bloc][(2s+1) mod p / 2][t] : somme des bornes des t premières paires du cycle x → x + 2s+1
+    private final double[][][] cumuls;
+    // inverses[bloc][(2s+1) mod p / 2] : inverse de 2s+1 modulo p
+    private final int[][] inverses;
+
+    // Paires échantillonnées regroupées en segments contigus d'un même bloc
+    private final int[] segmentBloc;
+    private final int[] segmentDebut;
+    private final int[] segmentLongueur;
+    // Paires échantillonnées à cheval sur deux blocs (borne 1 chacune)
+    private final int nbPairesFrontiere;
+
+    // Scores exacts : matrice et blocs des paires à cheval sur deux blocs, évaluées pour chaque clé
+    private final MatriceCorrelation correlationsExactes;
+    private final int[] frontieresEchantillon;
+
+    /**
+     * Calcule les bornes des lignes d'une image chiffrée.
+     *
+     * @param correlations          La matrice de corrélation des lignes de l'image chiffrée
+     * @param nbValeursS            Nombre de valeurs possibles de la seconde clé (s dans [0, nbValeursS[)
+     * @param indicesEchantillon    Indices des paires évaluées pour chaque clé
+     */
+    public BornesCorrelation(MatriceCorrelation correlations, int nbValeursS, int[] indicesEchantillon) {
+        this(correlations, nbValeursS, null, indicesEchantillon, false);
+    }
+
+    /**
+     * Prépare le calcul du score exact de chaque clé ({@link #borneCle(int, int)} rend le score
+     * que donnerait {@link EvaluationScoreImage#evaluateKeyScore(MatriceCorrelation, int[], int[], double)}
+     * sans élagage). Les bornes de ligne ne sont pas calculées.
+     *
+     * @param correlations          La matrice de corrélation des lignes de l'image chiffrée
+     * @param nbValeursS            Nombre de valeurs possibles de la seconde clé (s dans [0, nbValeursS[)
+     * @param indicesEchantillon    Indices des paires évaluées pour chaque clé
+     * @return Les scores exacts des clés
+     */
+    public static BornesCorrelation scoresExacts(MatriceCorrelation correlations, int nbValeursS, int[] indicesEchantillon) {
+        return new BornesCorrelation(correlations, nbValeursS, null, indicesEchantillon, true);
+    }
+
+    /**
+     * Scores exacts des seules clés dont la seconde clé est dans valeursS : seuls les cycles de
+     * ces valeurs de s sont calculés, soit quelques corrélations par ligne pour classer toutes
+     * les valeurs de r. {@link #borneCle(int, int)} ne doit être appelée qu'avec ces valeurs de s.
+     *
+     * @param correlations          La matrice de corrélation des lignes de l'image chiffrée
+     * @param valeursS              Les valeurs de la seconde clé à classer
+     * @param indicesEchantillon    Indices des paires évaluées pour chaque clé
+     * @return Les scores exacts des clés de ces valeurs de s
+     */
+    public static BornesCorrelation scoresExacts(MatriceCorrelation correlations, int[] valeursS, int[] indicesEchantillon) {
+        return new BornesCorrelation(correlations, 0, valeursS, indicesEchantillon, true);
+    }
+
+    private BornesCorrelation(MatriceCorrelation correlations, int nbValeursS, int[] valeursS, int[] indicesEchantillon,
+                              boolean exacte) {
+        int nbLignes = correlations.nbLignes();
+        this.bornes = new double[nbLignes];
+        this.frontiere = new boolean[nbLignes];
+        // Lignes non traitées (interruption) : borne triviale
+        Arrays.fill(bornes, 1.0);
+
+        // 1. Découpage en blocs, comme RowPermutation
+        List<Integer> debuts = new ArrayList<>();
+        int[] blocDeLigne = new int[nbLignes];
+        int debut = 0;
+        while (debut < nbLignes) {
+            int p = Integer.highestOneBit(nbLignes - debut);
+            Arrays.fill(blocDeLigne, debut, debut + p, debuts.size());
+            debuts.add(debut);
+            debut += p;
+            if (debut < nbLignes) frontiere[debut - 1] = true;
+        }
+        int nbBlocs = debuts.size();
+        debutsBlocs = new int[nbBlocs];
+        taillesBlocs = new int[nbBlocs];
+        for (int b = 0; b < nbBlocs; b++) {
+            debutsBlocs[b] = debuts.get(b);
+            taillesBlocs[b] = Integer.highestOneBit(nbLignes - debutsBlocs[b]);
+        }
+
+        // 2. Borne de chaque ligne : meilleure corrélation avec une voisine possible
+        if (!exacte) try {
+            // Chaque « clé » de l'ordonnanceur est ici une ligne de l'image
+            OrdonnanceurCles.parcourirLignes(nbLignes, new OrdonnanceurCles.Parcours<boolean[]>() {
+                @Override
+                public boolean[] nouvelEtat() {
+                    // Écarts (2s+1) mod p déjà essayés pour la ligne courante
+                    return new boolean[Integer.highestOneBit(Math.max(1, nbLignes))];
+                }
+
+                @Override
+                public void evaluer(boolean[] vus, int a) {
+                    int base = debutsBlocs[blocDeLigne[a]];
+                    int p = taillesBlocs[blocDeLigne[a]];
+                    double borne = 0;
+                    if (p > 1) {
+                        Arrays.fill(vus, 0, p, false);
+                        for (int s = 0; s < nbValeursS; s++) {
+                            int ecart = (2 * s + 1) & (p - 1);
+                            if (vus[ecart]) continue;
+                            vus[ecart] = true;
+                            // Ligne suivante et ligne précédente possibles
+                            borne = Math.max(borne, correlations.correlation(a, base + ((a - base + ecart) & (p - 1))));
+                            borne = Math.max(borne, correlations.correlation(a, base + ((a - base - ecart) & (p - 1))));
+                        }
+                    }
+                    bornes[a] = Math.min(1.0, borne + MARGE_ARRONDI);
+                }
+            });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            e.printStackTrace();
+        }
+
+        // 3. Sommes cumulées des bornes de paires (ou des corrélations) le long de chaque cycle
+        cumuls = new double[nbBlocs][][];
+        inverses = new int[nbBlocs][];
+        for (int b = 0; b < nbBlocs; b++) {
+            int p = taillesBlocs[b];
+            int base = debutsBlocs[b];
+            if (p < 2) continue;
+            cumuls[b] = new double[p / 2][];
+            inverses[b] = new int[p / 2];
+            int nbS = valeursS != null ? valeursS.length : nbValeursS;
+            for (int k = 0; k < nbS; k++) {
+                int s = valeursS != null ? valeursS[k] : k;
+                int multiplicateur = (2 * s + 1) & (p - 1);
+                if (cumuls[b][multiplicateur >> 1] != null) continue;
+                double[] cumul = new double[p + 1];
+                for (int t = 0; t < p; t++) {
+                    int ligne = base + ((multiplicateur * t) & (p - 1));
+                    int suivante = base + ((multiplicateur * (t + 1)) & (p - 1));
+                    double poids;
+                    if (exacte) {
+                        // Comme l'évaluation d'une clé : une corrélation non calculable compte 0
+                        double c = correlations.correlation(ligne, suivante);
+                        poids = c > -1 ? c : 0;
+                    } else {
+                        poids = Math.min(bornes[ligne], bornes[suivante]);
+                    }
+                    cumul[t + 1] = cumul[t] + poids;
+                }
+                cumuls[b][multiplicateur >> 1] = cumul;
+                inverses[b][multiplicateur >> 1] = inverseModulo(multiplicateur) & (p - 1);
+            }
+        }
+
+        // 4. Segments contigus de paires échantillonnées dans un même bloc
+        int[] tries = indicesEchantillon.clone();
+        Arrays.sort(tries);
+        List<int[]> segments = new ArrayList<>();
+        List<Integer> blocsFrontieres = new ArrayList<>();
+        for (int idx : tries) {
+            if (frontiere[idx]) {
+                blocsFrontieres.add(blocDeLigne[idx]);
+                continue;
+            }
+            int[] dernier = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+            int bloc = blocDeLigne[idx];
+            int position = idx - debutsBlocs[bloc];
+            if (dernier != null && dernier[0] == bloc && dernier[1] + dernier[2] == position) {
+                dernier[2]++;
+            } else {
+                segments.add(new int[]{bloc, position, 1});
+            }
+        }
+        nbPairesFrontiere = blocsFrontieres.size();
+        correlationsExactes = exacte ? correlations : null;
+        frontieresEchantillon = new int[blocsFrontieres.size()];
+        for (int k = 0; k < frontieresEchantillon.length; k++) {
+            frontieresEchantillon[k] = blocsFrontieres.get(k);
+        }
+        segmentBloc = new int[segments.size()];
+        segmentDebut = new int[segments.size()];
+        segmentLongueur = new int[segments.size()];
+        for (int k = 0; k < segments.size(); k++) {
+            segmentBloc[k] = segments.get(k)[0];
+            segmentDebut[k] = segments.get(k)[1];
+            segmentLongueur[k] = segments.get(k)[2];
+        }
+    }
+
+    /**
+     * Majorant du score d'une clé sur les paires échantillonnées : somme des bornes de ses paires.
+     * Si cette valeur ne dépasse pas le meilleur score connu, la clé peut être rejetée
+     * sans calculer l'ordre de ses lignes ni aucune corrélation.
+     * Construit par {@link #scoresExacts(MatriceCorrelation, int, int[])}, rend le score exact.
+     *
+     * @param r     Première clé
+     * @param s     Seconde clé
+     * @return La somme des bornes des paires échantillonnées pour cette clé
+     */
+    public double borneCle(int r, int s) {
+        double total = correlationsExactes == null ? nbPairesFrontiere : scoreFrontieres(r, s);
+        for (int k = 0; k < segmentBloc.length; k++) {
+            int b = segmentBloc[k];
+            int masque = taillesBlocs[b] - 1;
+            int multiplicateur = (2 * s + 1) & masque;
+            double[] cumul = cumuls[b][multiplicateur >> 1];
+            // La position i du bloc contient la ligne r + (2s+1)·i : rang (r·inverse + i) dans le cycle
+            int t = ((r & masque) * inverses[b][multiplicateur >> 1] + segmentDebut[k]) & masque;
+            int fin = t + segmentLongueur[k];
+            if (fin <= masque + 1) {
+                total += cumul[fin] - cumul[t];
+            } else {
+                total += cumul[masque + 1] - cumul[t] + cumul[fin - masque - 1];
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Score exact des paires échantillonnées à cheval sur deux blocs : dernière position
+     * d'un bloc et première position du suivant.
+     */
+    private double scoreFrontieres(int r, int s) {
+        double total = 0;
+        for (int b : frontieresEchantillon) {
+            int p = taillesBlocs[b];
+            int derniere = debutsBlocs[b] + ((r + (2 * s + 1) * (p - 1)) & (p - 1));
+            // Le bloc suivant commence par la ligne r mod p' (une ligne isolée reste à sa place)
+            int premiere = debutsBlocs[b + 1] + (r & (taillesBlocs[b + 1] - 1));
+            double c = correlationsExactes.correlation(derniere, premiere);
+            if (c > -1) total += c;
+        }
+        return total;
+    }
+
+    /**
+     * Majorant de la contribution au score de la paire de positions (idx, idx+1)
+     * pour un ordre de lignes donné.
+     *
+     * @param ordreLignes   Index de la ligne chiffrée placée à chaque position déchiffrée
+     * @param idx           Position de la première ligne de la paire
+     * @return Une valeur au moins égale à la corrélation de la paire (ou à 0 si elle est comptée nulle)
+     */
+    public double bornePaire(int[] ordreLignes, int idx) {
+        if (frontiere[idx]) return 1.0;
+        return Math.min(bornes[ordreLignes[idx]], bornes[ordreLignes[idx + 1]]);
+    }
+
+    /**
+     * @param ligne     Index d'une ligne chiffrée
+     * @return La borne de cette ligne
+     */
+    public double borne(int ligne) {
+        return bornes[ligne];
+    }
+
+    /**
+     * Inverse d'un entier impair modulo 2^32 (méthode de Newton), réduit ensuite modulo p.
+     */
+    private static int inverseModulo(int impair) {
+        int inverse = impair;
+        for (int k = 0; k < 5; k++) {
+            inverse *= 2 - impair * inverse;
+        }
+        return inverse;
+    }
+}
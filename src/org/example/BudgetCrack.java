@@ -0,0 +1,92 @@
+/**
+ * Budget d'une recherche de clé
+ * Auteurs : BONNIN Simon, CARRARA Tim
+ * Groupe  : S5 - A2
+ * Date    : Octobre 2026
+ * Description : Cette classe limite la durée ou le nombre de clés évaluées
+ * par une recherche de clé, pour borner le temps de réponse.
+ */
+
+package org.example;
+
+/**
+ * Limite d'une recherche de clé : une durée maximale, un nombre maximal de clés, ou les deux.
+ * La recherche s'arrête dès que l'une des limites est atteinte et rend la meilleure
+ * clé trouvée jusque-là.
+ *
+ * @author BONNIN Simon, CARRARA Tim
+ * @version 1.0
+ */
+public final class BudgetCrack {
+
+    private static final BudgetCrack ILLIMITE = new BudgetCrack(Long.MAX_VALUE, Integer.MAX_VALUE);
+
+    private final long dureeMaxNanos;
+    private final int clesMax;
+
+    private BudgetCrack(long dureeMaxNanos, int clesMax) {
+        this.dureeMaxNanos = dureeMaxNanos;
+        this.clesMax = clesMax;
+    }
+
+    /**
+     * @return Un budget sans limite : tout l'espace des clés est parcouru
+     */
+    public static BudgetCrack illimite() {
+        return ILLIMITE;
+    }
+
+    /**
+     * @param millisecondes     Durée maximale de la recherche
+     * @return Un budget limité en temps
+     */
+    public static BudgetCrack duree(long millisecondes) {
+        return new BudgetCrack(Math.max(0, millisecondes) * 1_000_000L, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param nbCles    Nombre maximal de clés évaluées
+     * @return Un budget limité en travail
+     */
+    public static BudgetCrack cles(int nbCles) {
+        return new BudgetCrack(Long.MAX_VALUE, Math.max(0, nbCles));
+    }
+
+    /**
+     * @param millisecondes     Durée maximale de la recherche
+     * @return Ce budget, limité en plus par une durée
+     */
+    public BudgetCrack etDuree(long millisecondes) {
+        return new BudgetCrack(Math.min(dureeMaxNanos, Math.max(0, millisecondes) * 1_000_000L), clesMax);
+    }
+
+    /**
+     * @param nbCles    Nombre maximal de clés évaluées
+     * @return Ce budget, limité en plus par un nombre de clés
+     */
+    public BudgetCrack etCles(int nbCles) {
+        return new BudgetCrack(dureeMaxNanos, Math.min(clesMax, Math.max(0, nbCles)));
+    }
+
+    /**
+     * @return Le nombre maximal de clés évaluées
+     */
+    public int getClesMax() {
+        return clesMax;
+    }
+
+    /**
+     * @param debutNanos    Instant de début de la recherche (System.nanoTime())
+     * @return L'instant (System.nanoTime()) où la durée est épuisée, ou Long.MAX_VALUE sans limite de durée
+     */
+    long echeance(long debutNanos) {
+        return dureeMaxNanos == Long.MAX_VALUE ? Long.MAX_VALUE : debutNanos + dureeMaxNanos;
+    }
+
+    @Override
+    public String toString() {
+        if (this == ILLIMITE) return "illimité";
+        return (dureeMaxNanos == Long.MAX_VALUE ? "" : (dureeMaxNanos / 1_000_000L) + " ms ")
+                + (clesMax == Integer.MAX_VALUE ? "" : clesMax + " clés");
+    }
+}
@@ -0,0 +1,231 @@
+/**
+ * Cache des clés crackées
+ * Auteurs : BONNIN Simon, CARRARA Tim
+ * Groupe  : S5 - A2
+ * Date    : Octobre 2026
+ * Description : Cette classe garde sur disque les clés déjà crackées, retrouvées
+ * à partir d'une empreinte de la frame analysée. Relancer le crack d'une vidéo
+ * déjà traitée ne coûte alors qu'une vérification de la clé.
+ */
+
+package org.example;
+
+import org.opencv.core.Mat;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Cache persistant des clés crackées.
+ * - clé du cache : empreinte de la frame analysée (dimensions et moyenne de SEGMENTS_PAR_LIGNE
+ *   segments de chaque ligne, arrondie pour ne pas dépendre des petites différences de décodage)
+ * - valeur : la clé (r, s) et son score sur les paires échantillonnées, comme pendant la force brute
+ * Une clé retrouvée n'est rendue qu'après une passe de score sur la frame : elle doit retrouver
+ * son score enregistré, à TOLERANCE_SCORE près par paire, puis passer la vérification du suivi de
+ * clé ({@link SuiviCle}), comme une clé fraîchement crackée : corrélation au-dessus du fond et
+ * meilleure que ses rotations voisines. Le score enregistré est celui de la même clé, il ne
+ * suffit pas à écarter une clé fausse enregistrée ; la seconde vérification, si, dans la plupart
+ * des cas (et une clé qui y échoue n'est pas enregistrée). Une collision d'empreinte ou un fichier
+ * abîmé donne donc en général un nouveau crack, mais une frame trop uniforme pour conclure peut
+ * encore rendre une mauvaise clé.
+ * Le fichier garde au plus TAILLE_MAX clés, les moins récemment utilisées sont oubliées.
+ * Son emplacement peut être remplacé par la propriété système "videoscramble.cache",
+ * sa taille par "videoscramble.cache.taille".
+ *
+ * @author BONNIN Simon, CARRARA Tim
+ * @version 1.0
+ */
+public final class CacheCracks {
+
+    /**
+     * Nombre de clés gardées par défaut.
+     */
+    private static final int TAILLE_MAX = 256;
+
+    /**
+     * Nombre de segments moyennés par ligne pour l'empreinte.
+     */
+    private static final int SEGMENTS_PAR_LIGNE = 16;
+
+    /**
+     * Écart de score toléré par paire échantillonnée lors de la vérification.
+     * Une clé voisine (r décalé de 1) ne fait que décaler les lignes et ne perd qu'une paire :
+     * la tolérance couvre les arrondis, pas un décodage différent de la frame.
+     */
+    private static final double TOLERANCE_SCORE = 1e-4;
+
+    private static final String ENTETE = "# VideoScramble - cache des clés crackées : empreinte hauteur largeur canaux r s score";
+
+    // Clés du cache, de la moins récemment utilisée à la plus récente (chargées au premier appel)
+    private static LinkedHashMap<String, double[]> entrees = null;
+
+    private CacheCracks() {
+    }
+
+    /**
+     * Cherche la clé d'une frame déjà crackée et la vérifie.
+     *
+     * @param frame     La frame chiffrée analysée par le crack
+     * @return La clé [r, s] vérifiée, ou null si la frame est inconnue ou si la clé ne la déchiffre plus
+     */
+    public static synchronized int[] chercher(Mat frame) {
+        if (frame.rows() < 2) return null;
+        String empreinte = empreinte(frame);
+        double[] entree = entrees().get(empreinte);
+        if (entree == null) return null;
+
+        int r = (int) entree[0];
+        int s = (int) entree[1];
+        byte[][] lignes = TrouveCleBruteForce.extraireLignes(frame);
+        int nbPaires = TrouveCleBruteForce.echantillonnerPaires(lignes.length - 1, TrouveCleBruteForce.LIGNES_POURCENTAGE_TEST).length;
+        double score = score(lignes, r, s);
+        if (score < entree[2] - TOLERANCE_SCORE * nbPaires) {
+            System.out.println("Clé du cache non vérifiée (score " + score + " au lieu de " + entree[2] + "), nouveau crack");
+            entrees.remove(empreinte);
+            sauvegarder();
+            return null;
+        }
+        // Le score enregistré est celui de la même clé : une clé fausse s'y retrouverait toujours
+        if (SuiviCle.verifier(frame, r, s) == SuiviCle.Verdict.INVALIDE) {
+            System.out.println("Clé du cache (r=" + r + ", s=" + s + ") moins bonne que ses rotations voisines, nouveau crack");
+            entrees.remove(empreinte);
+            sauvegarder();
+            return null;
+        }
+        // L'entrée devient la plus récemment utilisée
+        sauvegarder();
+        return new int[]{r, s};
+    }
+
+    /**
+     * Enregistre la clé crackée d'une frame, si elle passe la vérification du suivi de clé.
+     *
+     * @param frame     La frame chiffrée analysée par le crack
+     * @param cle       La clé [r, s] trouvée
+     */
+    public static synchronized void enregistrer(Mat frame, int[] cle) {
+        if (frame.rows() < 2) return;
+        if (SuiviCle.verifier(frame, cle[0], cle[1]) == SuiviCle.Verdict.INVALIDE) {
+            System.out.println("Clé (r=" + cle[0] + ", s=" + cle[1] + ") non vérifiée, non enregistrée dans le cache");
+            return;
+        }
+        double score = score(TrouveCleBruteForce.extraireLignes(frame), cle[0], cle[1]);
+        entrees().put(empreinte(frame), new double[]{cle[0], cle[1], score});
+        sauvegarder();
+    }
+
+    /**
+     * Score d'une clé sur les paires échantillonnées, comme pendant la force brute.
+     * Les lignes ne sont pas copiées : le tableau déchiffré référence les lignes chiffrées.
+     */
+    private static double score(byte[][] lignes, int r, int s) {
+        int[] forward = RowPermutation.of(lignes.length, r, s).forward();
+        byte[][] lignesDechiffrees = new byte[lignes.length][];
+        for (int i = 0; i < lignes.length; i++) {
+            lignesDechiffrees[i] = lignes[forward[i]];
+        }
+        int[] indicesEchantillon = TrouveCleBruteForce.echantillonnerPaires(lignes.length - 1, TrouveCleBruteForce.LIGNES_POURCENTAGE_TEST);
+        return EvaluationScoreImage.evaluateKeyScore(lignesDechiffrees, indicesEchantillon, Double.NEGATIVE_INFINITY);
+    }
+
+    /**
+     * Empreinte d'une frame : dimensions, puis moyenne arrondie de chaque segment de chaque ligne,
+     * condensées par FNV-1a sur 64 bits.
+     */
+    static String empreinte(Mat frame) {
+        int canaux = frame.channels();
+        int octetsParLigne = frame.cols() * canaux;
+        byte[] ligne = new byte[octetsParLigne];
+        long hash = 0xcbf29ce484222325L;
+        for (int y = 0; y < frame.rows(); y++) {
+            frame.get(y, 0, ligne);
+            for (int k = 0; k < SEGMENTS_PAR_LIGNE; k++) {
+                int debut = (int) ((long) k * octetsParLigne / SEGMENTS_PAR_LIGNE);
+                int fin = (int) ((long) (k + 1) * octetsParLigne / SEGMENTS_PAR_LIGNE);
+                if (fin <= debut) continue;
+                long somme = 0;
+                for (int x = debut; x < fin; x++) {
+                    somme += ligne[x] & 0xFF;
+                }
+                // Moyenne sur 32 niveaux
+                hash ^= (somme / (fin - debut)) >> 3;
+                hash *= 0x100000001b3L;
+            }
+        }
+        return Long.toHexString(hash) + " " + frame.rows() + " " + frame.cols() + " " + canaux;
+    }
+
+    /**
+     * @return Les entrées du cache, lues sur disque au premier appel
+     */
+    private static LinkedHashMap<String, double[]> entrees() {
+        if (entrees != null) return entrees;
+        int tailleMax = Integer.getInteger("videoscramble.cache.taille", TAILLE_MAX);
+        // Ordre d'accès : la plus récemment utilisée en dernier, la plus ancienne oubliée en premier
+        entrees = new LinkedHashMap<String, double[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, double[]> eldest) {
+                return size() > tailleMax;
+            }
+        };
+        File fichier = fichier();
+        if (!fichier.exists()) return entrees;
+        try (BufferedReader lecteur = Files.newBufferedReader(fichier.toPath(), StandardCharsets.UTF_8)) {
+            String ligne;
+            while ((ligne = lecteur.readLine()) != null) {
+                if (ligne.isEmpty() || ligne.startsWith("#")) continue;
+                String[] champs = ligne.trim().split(" ");
+                if (champs.length != 7) continue;
+                try {
+                    String empreinte = champs[0] + " " + champs[1] + " " + champs[2] + " " + champs[3];
+                    entrees.put(empreinte, new double[]{
+                            Integer.parseInt(champs[4]), Integer.parseInt(champs[5]), Double.parseDouble(champs[6])});
+                } catch (NumberFormatException e) {
+                    // Ligne abîmée : ignorée
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Lecture du cache des cracks impossible : " + e.getMessage());
+        }
+        return entrees;
+    }
+
+    /**
+     * Réécrit le fichier du cache (fichier temporaire puis remplacement, jamais de fichier à moitié écrit).
+     */
+    private static void sauvegarder() {
+        File fichier = fichier();
+        File dossier = fichier.getAbsoluteFile().getParentFile();
+        try {
+            if (dossier != null) Files.createDirectories(dossier.toPath());
+            File temporaire = new File(dossier, fichier.getName() + ".tmp");
+            try (BufferedWriter ecrivain = Files.newBufferedWriter(temporaire.toPath(), StandardCharsets.UTF_8)) {
+                ecrivain.write(ENTETE);
+                ecrivain.newLine();
+                for (Map.Entry<String, double[]> entree : entrees.entrySet()) {
+                    double[] valeur = entree.getValue();
+                    ecrivain.write(entree.getKey() + " " + (int) valeur[0] + " " + (int) valeur[1] + " "
+                            + String.format(Locale.ROOT, "%.6f", valeur[2]));
+                    ecrivain.newLine();
+                }
+            }
+            Files.move(temporaire.toPath(), fichier.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Écriture du cache des cracks impossible : " + e.getMessage());
+        }
+    }
+
+    private static File fichier() {
+        String chemin = System.getProperty("videoscramble.cache");
+        if (chemin != null) return new File(chemin);
+        return new File(new File(System.getProperty("user.home"), ".videoscramble"), "cracks.txt");
+    }
+}
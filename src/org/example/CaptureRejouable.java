@@ -0,0 +1,185 @@
+/**
+ * Vidéo relisible depuis le début
+ * Auteurs : BONNIN Simon, CARRARA Tim
+ * Groupe  : S5 - A2
+ * Date    : Octobre 2026
+ * Description : Cette classe garde les frames décodées pendant la recherche
+ * de la clé pour les rendre ensuite au déchiffrement, sans rouvrir la vidéo
+ * ni décoder deux fois le début du fichier.
+ */
+
+package org.example;
+
+import org.opencv.core.Mat;
+import org.opencv.videoio.VideoCapture;
+import org.opencv.videoio.Videoio;
+
+import java.util.ArrayDeque;
+
+/**
+ * VideoCapture qui peut revenir au début après une première lecture.
+ * Fonctionnement :
+ * 1. Enregistrement : dès l'ouverture, chaque frame décodée (read ou grab) est gardée
+ * 2. {@link #rejouer()} : les frames gardées sont rendues par les read() suivants,
+ *    puis la lecture continue normalement dans le fichier, là où l'enregistrement s'est arrêté
+ * Si le début n'a pas pu être gardé en entier (déplacement dans la vidéo, plus de
+ * MEMOIRE_MAX_DEFAUT octets de frames), rejouer() revient à la première frame par un
+ * déplacement, et ne rouvre le fichier que si le déplacement échoue.
+ * Pendant l'enregistrement, grab() décode la frame : elle doit pouvoir être rejouée.
+ *
+ * @author BONNIN Simon, CARRARA Tim
+ * @version 1.0
+ */
+public class CaptureRejouable extends VideoCapture {
+
+    /**
+     * Mémoire maximale des frames gardées par défaut (256 Mo),
+     * modifiable par la propriété système "videoscramble.rejeu.mo".
+     */
+    private static final long MEMOIRE_MAX_DEFAUT = Long.getLong("videoscramble.rejeu.mo", 256) * 1024 * 1024;
+
+    private final String chemin;
+    private final long memoireMax;
+    private final ArrayDeque<Mat> tampon = new ArrayDeque<>();
+    private long memoire = 0;
+    // true tant que les frames lues sont gardées
+    private boolean enregistrement = true;
+    // true si le tampon contient toutes les frames depuis le début du fichier
+    private boolean complet = true;
+
+    /**
+     * Ouvre une vidéo et commence l'enregistrement.
+     *
+     * @param chemin    Chemin de la vidéo
+     */
+    public CaptureRejouable(String chemin) {
+        this(chemin, MEMOIRE_MAX_DEFAUT);
+    }
+
+    /**
+     * @param chemin        Chemin de la vidéo
+     * @param memoireMax    Nombre maximal d'octets de frames gardées
+     */
+    public CaptureRejouable(String chemin, long memoireMax) {
+        super(chemin);
+        this.chemin = chemin;
+        this.memoireMax = memoireMax;
+    }
+
+    /**
+     * Revient au début de la vidéo et arrête l'enregistrement.
+     *
+     * @return true si les frames gardées seront rejouées, false si la vidéo a été repositionnée ou rouverte
+     */
+    public boolean rejouer() {
+        enregistrement = false;
+        if (complet) {
+            System.out.println("Reprise de la vidéo sur " + tampon.size() + " frame(s) déjà décodée(s)");
+            return true;
+        }
+        vider();
+        complet = true;
+        if (super.set(Videoio.CAP_PROP_POS_FRAMES, 0) && super.get(Videoio.CAP_PROP_POS_FRAMES) == 0) {
+            return false;
+        }
+        System.out.println("Retour au début impossible, réouverture de la vidéo");
+        super.release();
+        super.open(chemin);
+        return false;
+    }
+
+    /**
+     * Nombre de frames gardées avant que le début ne doive être relu dans le fichier.
+     * Les frames décodées par OpenCV sont en BGR, un octet par canal.
+     *
+     * @param largeur   Largeur des frames de la vidéo
+     * @param hauteur   Hauteur des frames de la vidéo
+     * @return Le nombre de frames rejouables depuis le début (0 si une seule frame dépasse la mémoire)
+     */
+    public int capacite(int largeur, int hauteur) {
+        long taille = (long) Math.max(1, largeur) * Math.max(1, hauteur) * 3;
+        return (int) Math.min(Integer.MAX_VALUE, memoireMax / taille);
+    }
+
+    @Override
+    public boolean read(Mat image) {
+        if (!enregistrement && !tampon.isEmpty()) {
+            // Frame déjà décodée : simple copie dans l'image fournie (souvent recyclée par le pipeline)
+            Mat gardee = tampon.poll();
+            memoire -= taille(gardee);
+            gardee.copyTo(image);
+            gardee.release();
+            return true;
+        }
+        boolean lue = super.read(image);
+        if (lue && enregistrement && complet && !image.empty()) {
+            garder(image);
+        }
+        return lue;
+    }
+
+    @Override
+    public boolean grab() {
+        if (!enregistrement && !tampon.isEmpty()) {
+            Mat gardee = tampon.poll();
+            memoire -= taille(gardee);
+            gardee.release();
+            return true;
+        }
+        if (enregistrement && complet) {
+            Mat frame = new Mat();
+            boolean lue = read(frame);
+            frame.release();
+            return lue;
+        }
+        return super.grab();
+    }
+
+    @Override
+    public boolean set(int propriete, double valeur) {
+        if (propriete == Videoio.CAP_PROP_POS_FRAMES) {
+            // Après un déplacement, le tampon ne suit plus le fichier
+            vider();
+            complet = false;
+        }
+        return super.set(propriete, valeur);
+    }
+
+    @Override
+    public double get(int propriete) {
+        if (propriete == Videoio.CAP_PROP_POS_FRAMES && !enregistrement) {
+            return super.get(propriete) - tampon.size();
+        }
+        return super.get(propriete);
+    }
+
+    @Override
+    public void release() {
+        vider();
+        super.release();
+    }
+
+    private void garder(Mat image) {
+        long taille = taille(image);
+        if (memoire + taille > memoireMax) {
+            // Trop de frames : le début sera relu dans le fichier
+            vider();
+            complet = false;
+            return;
+        }
+        tampon.add(image.clone());
+        memoire += taille;
+    }
+
+    private void vider() {
+        for (Mat frame : tampon) {
+            frame.release();
+        }
+        tampon.clear();
+        memoire = 0;
+    }
+
+    private static long taille(Mat frame) {
+        return frame.total() * frame.elemSize();
+    }
+}
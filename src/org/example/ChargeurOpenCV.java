@@ -0,0 +1,75 @@
+/**
+ * Chargement des bibliothèques natives
+ * Auteurs : BONNIN Simon, CARRARA Tim
+ * Groupe  : S5 - A2
+ * Date    : Octobre 2026
+ * Description : Cette classe charge FFmpeg puis OpenCV une seule fois par
+ * processus, pour l'application JavaFX comme pour le mode ligne de commande.
+ */
+
+package org.example;
+
+import org.opencv.core.Core;
+
+import java.io.File;
+
+/**
+ * Chargement unique des bibliothèques natives FFmpeg et OpenCV.
+ * Le chemin de la DLL FFmpeg peut être remplacé par la propriété système
+ * "videoscramble.ffmpeg" ; il est ignoré s'il n'existe pas sur la machine
+ * (serveurs Linux où FFmpeg est fourni par OpenCV lui-même).
+ *
+ * @author BONNIN Simon, CARRARA Tim
+ * @version 1.0
+ */
+public final class ChargeurOpenCV {
+
+    /**
+     * Chemin par défaut de la DLL FFmpeg livrée avec OpenCV sous Windows.
+     */
+    private static final String FFMPEG_PAR_DEFAUT = "C:\\Users\\PC\\Documents\\opencv\\build\\java\\x64\\opencv_videoio_ffmpeg4120_64.dll";
+
+    private static boolean charge = false;
+
+    private ChargeurOpenCV() {
+    }
+
+    /**
+     * Charge FFmpeg puis OpenCV si ce n'est pas déjà fait.
+     *
+     * @param afficherInfos     true pour afficher les informations de compilation d'OpenCV
+     */
+    public static synchronized void charger(boolean afficherInfos) {
+        if (charge) return;
+        charge = true;
+
+        // Charger explicitement la DLL FFmpeg AVANT OpenCV
+        String ffmpegPath = System.getProperty("videoscramble.ffmpeg", FFMPEG_PAR_DEFAUT);
+        if (new File(ffmpegPath).exists()) {
+            try {
+                System.out.println("Chargement de FFmpeg : " + ffmpegPath);
+                System.load(ffmpegPath);
+                System.out.println("FFmpeg chargé avec succès !");
+            } catch (UnsatisfiedLinkError e) {
+                System.err.println("ERREUR chargement FFmpeg : " + e.getMessage());
+                e.printStackTrace();
+            }
+        }
+
+        // Puis charger OpenCV
+        try {
+            System.loadLibrary("opencv_java4120");
+            System.out.println("OpenCV chargé avec succès !");
+        } catch (UnsatisfiedLinkError e) {
+            System.err.println("ERREUR chargement OpenCV : " + e.getMessage());
+            e.printStackTrace();
+        }
+
+        // Test immédiat
+        System.out.println("OpenCV version: " + Core.VERSION);
+        if (afficherInfos) {
+            System.out.println("Build information:");
+            System.out.println(Core.getBuildInformation());
+        }
+    }
+}
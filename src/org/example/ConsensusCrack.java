@@ -0,0 +1,455 @@
+/**
+ * Crack par consensus sur plusieurs frames
+ * Auteurs : BONNIN Simon, CARRARA Tim
+ * Groupe  : S5 - A2
+ * Date    : Octobre 2026
+ * Description : Cette classe cherche la clé d'une vidéo sur plusieurs frames
+ * en parallèle, additionne les scores de chaque clé sur ces frames et s'arrête
+ * dès qu'une clé gagne nettement sur le score combiné.
+ */
+
+package org.example;
+
+import org.opencv.core.Mat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Recherche de clé par consensus entre plusieurs frames d'une même vidéo.
+ * Une frame peu texturée peut désigner une mauvaise clé ; la somme des scores de chaque clé sur
+ * plusieurs frames sépare la bonne clé bien plus nettement que chaque frame seule.
+ * Principe (la recherche multi-résolution de {@link TrouveCleBruteForce#bruteForceMultiResolution(Mat, int)},
+ * menée une seule fois pour toutes les frames) :
+ * 1. Passe grossière de chaque frame, plusieurs frames en parallèle : le score de chaque clé sur les
+ *    lignes réduites se lit dans les sommes cumulées le long des cycles de la frame
+ * 2. Les scores de chaque frame terminée s'ajoutent à un score combiné unique par clé
+ * 3. Passe fine : les meilleures clés combinées sont réévaluées à pleine résolution,
+ *    sur les seules frames combinées, et la meilleure somme l'emporte
+ * 4. Dès qu'au moins accordRequis frames sont combinées et que la meilleure clé devance la suivante
+ *    de la marge de confiance, en passe grossière puis en passe fine, les frames restantes sont annulées
+ * Les clés sont parcourues sous leur forme canonique ({@link EspaceCles#pourHauteur(int)}) :
+ * deux clés équivalentes pour cette hauteur ne sont jamais comptées deux fois. La clé miroir de la
+ * meilleure (-a, qui retourne chaque bloc) n'entre pas dans les marges : sur une hauteur puissance
+ * de 2, elle donne exactement la même image retournée et la marge serait toujours nulle.
+ *
+ * @author BONNIN Simon, CARRARA Tim
+ * @version 1.0
+ */
+public class ConsensusCrack {
+
+    /**
+     * Nombre minimal de frames combinées avant de pouvoir arrêter la recherche.
+     */
+    public static final int ACCORD_REQUIS_DEFAUT = 2;
+
+    /**
+     * Écart de score minimal (somme des corrélations) entre la meilleure clé et la suivante,
+     * sur le score combiné pour arrêter la recherche, sur le score d'une frame pour qu'elle vote.
+     */
+    public static final double MARGE_CONFIANCE_DEFAUT = 0.25;
+
+    /**
+     * Nombre maximal de frames cherchées en même temps, tous cracks par consensus confondus.
+     */
+    private static final int FRAMES_EN_PARALLELE = 4;
+
+    private static final AtomicInteger NUMERO_THREAD = new AtomicInteger();
+
+    // Pool des frames, créé une fois (threads démons). Ce n'est pas celui de l'OrdonnanceurCles :
+    // chaque passe grossière y soumet ses clés et les attend, elle ne doit pas y occuper un thread
+    private static final ExecutorService EXECUTEUR = Executors.newFixedThreadPool(FRAMES_EN_PARALLELE, tache -> {
+        Thread t = new Thread(tache, "crack-consensus-" + NUMERO_THREAD.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * Verdict d'une frame.
+     */
+    public static final class AccordFrame {
+        private final int indexFrame;
+        private final boolean evaluee;
+        private final int r;
+        private final int s;
+        private final double marge;
+        private final boolean confiante;
+        private boolean enAccord;
+
+        AccordFrame(int indexFrame, boolean evaluee, int r, int s, double marge, boolean confiante) {
+            this.indexFrame = indexFrame;
+            this.evaluee = evaluee;
+            this.r = r;
+            this.s = s;
+            this.marge = marge;
+            this.confiante = confiante;
+        }
+
+        /**
+         * @return La position de la frame dans la liste fournie
+         */
+        public int getIndexFrame() {
+            return indexFrame;
+        }
+
+        /**
+         * @return false si la recherche de cette frame a été annulée par l'arrêt anticipé
+         */
+        public boolean estEvaluee() {
+            return evaluee;
+        }
+
+        public int getR() {
+            return r;
+        }
+
+        public int getS() {
+            return s;
+        }
+
+        /**
+         * @return L'écart de score de la passe grossière avec la clé suivante de la frame (clé miroir exclue)
+         */
+        public double getMarge() {
+            return marge;
+        }
+
+        /**
+         * @return true si la marge dépasse le seuil de confiance (la frame désigne seule sa clé)
+         */
+        public boolean estConfiante() {
+            return confiante;
+        }
+
+        /**
+         * @return true si la meilleure clé de la frame est équivalente à la clé retenue
+         */
+        public boolean estEnAccord() {
+            return enAccord;
+        }
+
+        @Override
+        public String toString() {
+            if (!evaluee) return "frame " + indexFrame + " : non évaluée";
+            return "frame " + indexFrame + " : (r=" + r + ", s=" + s + ") marge=" + String.format("%.3f", marge)
+                    + (confiante ? "" : " (peu fiable)") + (enAccord ? " accord" : " désaccord");
+        }
+    }
+
+    /**
+     * Résultat d'un crack par consensus.
+     */
+    public static final class Resultat {
+        private final int r;
+        private final int s;
+        private final int nbVotes;
+        private final double marge;
+        private final boolean arretAnticipe;
+        private final List<AccordFrame> frames;
+
+        Resultat(int r, int s, int nbVotes, double marge, boolean arretAnticipe, List<AccordFrame> frames) {
+            this.r = r;
+            this.s = s;
+            this.nbVotes = nbVotes;
+            this.marge = marge;
+            this.arretAnticipe = arretAnticipe;
+            this.frames = frames;
+        }
+
+        public int getR() {
+            return r;
+        }
+
+        public int getS() {
+            return s;
+        }
+
+        /**
+         * @return La clé retenue sous la forme [r, s]
+         */
+        public int[] getCle() {
+            return new int[]{r, s};
+        }
+
+        /**
+         * @return Le nombre de frames confiantes ayant désigné seules la clé retenue
+         */
+        public int getNbVotes() {
+            return nbVotes;
+        }
+
+        /**
+         * @return L'écart de score combiné à pleine résolution entre la clé retenue et la suivante
+         *         des finalistes (clé miroir exclue), sur les frames combinées
+         */
+        public double getMarge() {
+            return marge;
+        }
+
+        /**
+         * @return true si la recherche s'est arrêtée avant d'avoir évalué toutes les frames
+         */
+        public boolean estArretAnticipe() {
+            return arretAnticipe;
+        }
+
+        /**
+         * @return Le verdict de chaque frame, dans l'ordre de la liste fournie
+         */
+        public List<AccordFrame> getFrames() {
+            return frames;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder("Consensus (r=" + r + ", s=" + s + ") : marge combinée="
+                    + String.format("%.3f", marge) + ", " + nbVotes + " vote(s)" + (arretAnticipe ? ", arrêt anticipé" : ""));
+            for (AccordFrame frame : frames) {
+                sb.append("\n  ").append(frame);
+            }
+            return sb.toString();
+        }
+    }
+
+    /**
+     * Cherche la clé sur plusieurs frames avec les paramètres par défaut.
+     *
+     * @param frames    Les frames chiffrées, de mêmes dimensions
+     * @return La clé retenue et le verdict de chaque frame
+     */
+    public static Resultat cracker(List<Mat> frames) {
+        return cracker(frames, EspaceCles.STANDARD);
+    }
+
+    /**
+     * Cherche la clé sur plusieurs frames dans un espace de clés donné, avec les paramètres par défaut.
+     *
+     * @param frames    Les frames chiffrées, de mêmes dimensions
+     * @param espace    L'espace des clés cherchées
+     * @return La clé retenue (canonique) et le verdict de chaque frame
+     */
+    public static Resultat cracker(List<Mat> frames, EspaceCles espace) {
+        return cracker(frames, ACCORD_REQUIS_DEFAUT, MARGE_CONFIANCE_DEFAUT, espace);
+    }
+
+    /**
+     * Cherche la clé sur plusieurs frames.
+     * Les frames ne sont lues que pendant l'appel ; elles restent à libérer par l'appelant.
+     *
+     * @param frames            Les frames chiffrées, de mêmes dimensions
+     * @param accordRequis      Nombre minimal de frames combinées avant l'arrêt de la recherche
+     * @param margeConfiance    Marge combinée qui arrête la recherche (et marge d'une frame pour qu'elle vote)
+     * @param espace            L'espace des clés cherchées
+     * @return La clé retenue et le verdict de chaque frame
+     * @throws IllegalArgumentException si aucune frame n'est fournie
+     */
+    public static Resultat cracker(List<Mat> frames, int accordRequis, double margeConfiance, EspaceCles espace) {
+        if (frames.isEmpty()) {
+            throw new IllegalArgumentException("Aucune frame à analyser");
+        }
+        int nbFrames = frames.size();
+        int hauteur = frames.get(0).rows();
+        int canaux = frames.get(0).channels();
+
+        // Lignes extraites sur le thread appelant : les Mat ne sont plus utilisées ensuite
+        List<byte[][]> lignes = new ArrayList<>(nbFrames);
+        for (Mat frame : frames) {
+            lignes.add(TrouveCleBruteForce.extraireLignes(frame));
+        }
+
+        EspaceCles cles = espace.pourHauteur(hauteur);
+        int[] indicesEchantillon = TrouveCleBruteForce.echantillonnerPaires(hauteur - 1, TrouveCleBruteForce.LIGNES_POURCENTAGE_TEST);
+
+        CompletionService<Integer> terminees = new ExecutorCompletionService<>(EXECUTEUR);
+        List<Future<Integer>> futures = new ArrayList<>(nbFrames);
+        double[][] scoresFrames = new double[nbFrames][];
+        for (int i = 0; i < nbFrames; i++) {
+            final int index = i;
+            // Les passes grossières restent rattachées à la tâche annulable de l'appelant
+            futures.add(terminees.submit(TacheCrack.propager(() -> {
+                BornesCorrelation scores = TrouveCleBruteForce.scoresGrossiers(lignes.get(index), canaux, cles, indicesEchantillon);
+                double[] parCle = new double[cles.getNbCles()];
+                for (int cle = 0; cle < parCle.length; cle++) {
+                    // Recherche annulée : la frame ne sera pas combinée
+                    if (Thread.currentThread().isInterrupted()) return index;
+                    parCle[cle] = scores.borneCle(cles.r(cle), cles.s(cle));
+                }
+                scoresFrames[index] = parCle;
+                return index;
+            })));
+        }
+
+        AccordFrame[] verdicts = new AccordFrame[nbFrames];
+        int[] meilleuresFrames = new int[nbFrames];
+        List<Integer> combinees = new ArrayList<>();
+        double[] scoresCombines = new double[cles.getNbCles()];
+        // Corrélations à pleine résolution des frames combinées, gardées d'une passe fine à l'autre
+        MatriceCorrelation[] correlations = new MatriceCorrelation[nbFrames];
+        double[] classement = null;
+        double[] resultatFin = null;
+        boolean arretAnticipe = false;
+        try {
+            for (int n = 0; n < nbFrames; n++) {
+                int index = terminees.take().get();
+                double[] scores = scoresFrames[index];
+                if (scores == null) continue;
+                scoresFrames[index] = null;
+
+                // Verdict de la frame seule
+                double[] classementFrame = classer(scores, cles, hauteur);
+                int meilleure = (int) classementFrame[0];
+                meilleuresFrames[index] = meilleure;
+                verdicts[index] = new AccordFrame(index, true, cles.r(meilleure), cles.s(meilleure),
+                        classementFrame[1], classementFrame[1] >= margeConfiance);
+
+                // Score combiné : chaque clé n'est scorée qu'une fois pour toutes les frames
+                for (int cle = 0; cle < scores.length; cle++) {
+                    scoresCombines[cle] += scores[cle];
+                }
+                combinees.add(index);
+                classement = classer(scoresCombines, cles, hauteur);
+                if (combinees.size() >= accordRequis && classement[1] >= margeConfiance && !annulee()) {
+                    // La passe grossière est bruitée : l'arrêt doit être confirmé à pleine résolution
+                    resultatFin = passeFine(scoresCombines, cles, hauteur, lignes, combinees, correlations, indicesEchantillon);
+                    if (resultatFin[1] >= margeConfiance) {
+                        arretAnticipe = n + 1 < nbFrames;
+                        break;
+                    }
+                    resultatFin = null;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            e.printStackTrace();
+        } finally {
+            // Annule les frames restantes (la recherche des clés s'interrompt d'elle-même)
+            for (Future<Integer> future : futures) {
+                future.cancel(true);
+            }
+        }
+
+        // Recherche annulée (Stop) : pas de passe fine, les cœurs sont rendus tout de suite
+        if (resultatFin == null && classement != null && !annulee()) {
+            resultatFin = passeFine(scoresCombines, cles, hauteur, lignes, combinees, correlations, indicesEchantillon);
+        }
+        int gagnante = resultatFin == null ? -1 : (int) resultatFin[0];
+        List<AccordFrame> rapport = new ArrayList<>(nbFrames);
+        int nbVotes = 0;
+        for (int i = 0; i < nbFrames; i++) {
+            AccordFrame verdict = verdicts[i] != null ? verdicts[i] : new AccordFrame(i, false, 0, 0, 0, false);
+            if (verdict.evaluee && gagnante >= 0) {
+                verdict.enAccord = meilleuresFrames[i] == gagnante;
+                if (verdict.enAccord && verdict.confiante) nbVotes++;
+            }
+            rapport.add(verdict);
+        }
+        if (gagnante < 0) {
+            return new Resultat(0, 0, 0, 0, false, rapport);
+        }
+        return new Resultat(cles.r(gagnante), cles.s(gagnante), nbVotes, resultatFin[1], arretAnticipe, rapport);
+    }
+
+    /**
+     * @return true si le thread appelant a été interrompu ou si sa {@link TacheCrack} a été annulée
+     */
+    private static boolean annulee() {
+        TacheCrack tache = TacheCrack.courante();
+        return Thread.currentThread().isInterrupted() || (tache != null && tache.estAnnulee());
+    }
+
+    /**
+     * Meilleure clé d'un tableau de scores et son avance sur la suivante. La clé miroir de la
+     * meilleure n'est pas comptée comme suivante.
+     *
+     * @param scores    Score de chaque clé codée de l'espace
+     * @param cles      L'espace des clés, déjà réduit à la hauteur de l'image
+     * @param hauteur   Nombre de lignes de l'image
+     * @return [clé codée de la meilleure, marge]
+     */
+    private static double[] classer(double[] scores, EspaceCles cles, int hauteur) {
+        int meilleure = 0;
+        for (int cle = 1; cle < scores.length; cle++) {
+            if (scores[cle] > scores[meilleure]) meilleure = cle;
+        }
+        int miroir = cleMiroir(meilleure, cles, hauteur);
+        double suivante = Double.NEGATIVE_INFINITY;
+        for (int cle = 0; cle < scores.length; cle++) {
+            if (cle != meilleure && cle != miroir) suivante = Math.max(suivante, scores[cle]);
+        }
+        return new double[]{meilleure, scores[meilleure] - suivante};
+    }
+
+    /**
+     * Clé miroir dans le plus grand bloc : multiplicateur -(2s+1), la dernière ligne passe en tête.
+     *
+     * @return La clé codée du miroir, ou -1 si elle est hors de l'espace
+     */
+    private static int cleMiroir(int cle, EspaceCles cles, int hauteur) {
+        int p = Integer.highestOneBit(hauteur);
+        int multiplicateur = (2 * cles.s(cle) + 1) & (p - 1);
+        int[] miroir = EspaceCles.canonique((cles.r(cle) - multiplicateur) & (p - 1), (p - multiplicateur - 1) / 2, hauteur);
+        return cles.contient(miroir[0], miroir[1]) ? cles.coder(miroir[0], miroir[1]) : -1;
+    }
+
+    /**
+     * Réévalue les meilleures clés combinées à pleine résolution, sur les frames combinées.
+     * Les corrélations déjà calculées pour une frame servent aux passes suivantes.
+     *
+     * @return [clé codée dont la somme des scores est la meilleure, marge sur la suivante des finalistes]
+     */
+    private static double[] passeFine(double[] scoresCombines, EspaceCles cles, int hauteur, List<byte[][]> lignes,
+                                      List<Integer> combinees, MatriceCorrelation[] correlations, int[] indicesEchantillon) {
+        int k = Math.min(TrouveCleBruteForce.TOP_K_DEFAUT, scoresCombines.length);
+        // k reste petit : la plus faible finaliste est remplacée, comme dans la recherche
+        int[] finalistes = new int[k];
+        for (int i = 0; i < k; i++) {
+            finalistes[i] = i;
+        }
+        int plusFaible = plusFaible(finalistes, scoresCombines);
+        for (int cle = k; cle < scoresCombines.length; cle++) {
+            if (scoresCombines[cle] > scoresCombines[finalistes[plusFaible]]) {
+                finalistes[plusFaible] = cle;
+                plusFaible = plusFaible(finalistes, scoresCombines);
+            }
+        }
+
+        double[] sommes = new double[k];
+        int[] ordreLignes = new int[hauteur];
+        for (int index : combinees) {
+            if (correlations[index] == null) correlations[index] = new MatriceCorrelation(lignes.get(index));
+            for (int i = 0; i < k; i++) {
+                RowPermutation.remplirForward(ordreLignes, hauteur, cles.r(finalistes[i]), cles.s(finalistes[i]));
+                sommes[i] += EvaluationScoreImage.evaluateKeyScore(correlations[index], ordreLignes, indicesEchantillon, Double.NEGATIVE_INFINITY);
+            }
+        }
+        int gagnante = 0;
+        for (int i = 1; i < k; i++) {
+            if (sommes[i] > sommes[gagnante]) gagnante = i;
+        }
+        int miroir = cleMiroir(finalistes[gagnante], cles, hauteur);
+        double suivante = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < k; i++) {
+            if (i != gagnante && finalistes[i] != miroir) suivante = Math.max(suivante, sommes[i]);
+        }
+        return new double[]{finalistes[gagnante], sommes[gagnante] - suivante};
+    }
+
+    /**
+     * @return La position de la finaliste de plus faible score
+     */
+    private static int plusFaible(int[] finalistes, double[] scores) {
+        int plusFaible = 0;
+        for (int i = 1; i < finalistes.length; i++) {
+            if (scores[finalistes[i]] < scores[finalistes[plusFaible]]) plusFaible = i;
+        }
+        return plusFaible;
+    }
+}
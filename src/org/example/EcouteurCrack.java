@@ -0,0 +1,40 @@
+/**
+ * Abonné à une recherche de clé
+ * Auteurs : BONNIN Simon, CARRARA Tim
+ * Groupe  : S5 - A2
+ * Date    : Octobre 2026
+ * Description : Interface notifiée pendant une recherche de clé, pour afficher
+ * la meilleure clé provisoire et l'avancement sans attendre la fin de la recherche.
+ */
+
+package org.example;
+
+/**
+ * Abonné à une recherche de clé. Toutes les méthodes sont optionnelles.
+ * Les méthodes sont appelées depuis les threads de recherche : elles doivent être rapides
+ * et confier tout travail d'affichage à un autre thread.
+ *
+ * @author BONNIN Simon, CARRARA Tim
+ * @version 1.0
+ */
+public interface EcouteurCrack {
+
+    /**
+     * Appelé chaque fois qu'une clé meilleure que toutes les précédentes est trouvée.
+     *
+     * @param r             Première clé
+     * @param s             Seconde clé
+     * @param score         Score de la clé
+     * @param clesEvaluees  Nombre approximatif de clés évaluées jusqu'ici
+     */
+    default void amelioration(int r, int s, double score, int clesEvaluees) {}
+
+    /**
+     * Appelé régulièrement pendant une recherche exécutée par une {@link TacheCrack}.
+     *
+     * @param clesEvaluees  Nombre de clés évaluées jusqu'ici
+     * @param totalCles     Nombre de clés des passes commencées
+     * @param resteMs       Temps restant estimé en millisecondes, ou -1 s'il n'est pas encore connu
+     */
+    default void progression(int clesEvaluees, int totalCles, long resteMs) {}
+}
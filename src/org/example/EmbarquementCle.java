@@ -4,86 +4,154 @@ import org.opencv.core.Mat;
 
 /**
  * Classe pour embarquer et extraire une clé de chiffrement dans une image.
+ * Deux formats, lus tous les deux à l'extraction :
+ * - format historique : clé standard (r sur 8 bits, s sur 7 bits) dans le pixel (0,0),
+ *   5 bits de poids faible de chaque canal ; utilisé dès que la clé tient dans l'espace standard,
+ *   pour rester lisible par les versions précédentes
+ * - format étendu : clé jusqu'à r sur 16 bits et s sur 15 bits dans les pixels (0,0) à (0,3),
+ *   même répartition de 15 bits par pixel, soit 60 bits : marqueur (12 bits), r (16 bits),
+ *   s (15 bits) et contrôle (17 bits)
+ * Une image dont les 4 premiers pixels ne portent pas un marqueur et un contrôle cohérents
+ * est lue au format historique.
  * @author BONNIN Simon, CARRARA Tim
  * @version 1.0
  */
 public class EmbarquementCle {
 
     /**
-     * Embarque la clé (r, s) dans le pixel (0,0) de l'image.
-     * Les 15 bits sont répartis en 3 groupes de 5 bits,
-     * stockés dans les 5 bits de poids faible des 3 canaux (B, G, R) du pixel (0,0).
+     * Marqueur du format étendu.
+     */
+    private static final long MARQUEUR_ETENDU = 0xA5C;
+
+    /**
+     * Nombre de pixels utilisés par le format étendu.
+     */
+    private static final int PIXELS_ETENDU = 4;
+
+    /**
+     * Tampons du pixel (0,0) et des pixels (0,0) à (0,3) propres à chaque thread, pour ne rien allouer à chaque frame.
+     */
+    private static final ThreadLocal<byte[]> PIXEL = ThreadLocal.withInitial(() -> new byte[3]);
+    private static final ThreadLocal<byte[]> PIXELS = ThreadLocal.withInitial(() -> new byte[3 * PIXELS_ETENDU]);
+
+    /**
+     * Embarque la clé (r, s) dans l'image, au format historique si elle tient dans
+     * l'espace standard, au format étendu sinon.
      * IMPORTANT : Cette méthode doit être appelée APRÈS le chiffrement de l'image.
      *
      * @param image L'image dans laquelle embarquer la clé (doit être chiffrée)
-     * @param r Le décalage (offset) de la clé (0-255)
-     * @param s Le pas (step) de la clé (0-127)
+     * @param r Le décalage (offset) de la clé (0-255, jusqu'à 65535 en format étendu)
+     * @param s Le pas (step) de la clé (0-127, jusqu'à 32767 en format étendu)
+     * @throws IllegalArgumentException si la clé est hors de l'espace étendu, ou si elle demande
+     *                                  le format étendu et que l'image a moins de 4 colonnes
      */
     public static void cleDansPixel(Mat image, int r, int s) {
-        // Combine r et s en un entier 15 bits : s dans les bits hauts (7-14), r dans les bits bas (0-7)
-        int key = (s << 8) | r;
-
-        // Récupération du pixel (0,0)
-        double[] pixel = image.get(0, 0);
-        int blue = (int) pixel[0];
-        int green = (int) pixel[1];
-        int red = (int) pixel[2];
-
-        // Extraction des 5 bits pour chaque canal RGB
-        int bitsRed = key & 0b11111;           // bits 0-4
-        int bitsGreen = (key >> 5) & 0b11111;  // bits 5-9
-        int bitsBlue = (key >> 10) & 0b11111;  // bits 10-14
-
-        // Remplacement des 5 bits de poids faible dans chaque canal
-        // On garde les 3 bits de poids fort intacts
-        red = (red & 0b11100000) | bitsRed;
-        green = (green & 0b11100000) | bitsGreen;
-        blue = (blue & 0b11100000) | bitsBlue;
-
-        // Réécriture du pixel modifié dans l'image
-        image.put(0, 0, blue, green, red);
-
-        System.out.println("Clé embarquée au pixel (0,0) : r=" + r + ", s=" + s);
+        if (EspaceCles.STANDARD.contient(r, s)) {
+            // Combine r et s en un entier 15 bits : s dans les bits hauts (8-14), r dans les bits bas (0-7)
+            ecrireBits(image, (s << 8) | r, 1);
+            return;
+        }
+        if (!EspaceCles.ETENDU.contient(r, s)) {
+            throw new IllegalArgumentException("Clé hors de l'espace étendu : r=" + r + ", s=" + s);
+        }
+        if (image.cols() < PIXELS_ETENDU) {
+            // Le format historique tronquerait la clé : mieux vaut refuser que d'embarquer une clé fausse
+            throw new IllegalArgumentException("Image trop étroite (" + image.cols() + " pixels) pour embarquer la clé étendue r="
+                    + r + ", s=" + s + " : " + PIXELS_ETENDU + " pixels nécessaires");
+        }
+        long bits = MARQUEUR_ETENDU | ((long) r << 12) | ((long) s << 28) | (controle(r, s) << 43);
+        ecrireBits(image, bits, PIXELS_ETENDU);
     }
 
     /**
-     * Extrait la clé (r, s) embarquée dans le pixel (0,0) de l'image.
+     * Extrait la clé (r, s) embarquée dans l'image (format étendu ou historique).
      * @param image L'image chiffrée contenant la clé embarquée
      * @return Un tableau de deux entiers [r, s] représentant la clé
      */
     public static int[] extractionCleFromPixel(Mat image) {
-        // Récupération du pixel (0,0)
-        double[] pixel = image.get(0, 0);
-        int blue = (int) pixel[0];
-        int green = (int) pixel[1];
-        int red = (int) pixel[2];
-
-        // Récupération des 5 bits de poids faible dans chaque canal
-        int bitsRed = red & 0b11111;
-        int bitsGreen = green & 0b11111;
-        int bitsBlue = blue & 0b11111;
-
-        // Reconstruction de la clé complète 15 bits
-        int key = (bitsBlue << 10) | (bitsGreen << 5) | bitsRed;
-
-        // Extraction des deux composantes r et s
+        if (image.cols() >= PIXELS_ETENDU) {
+            long bits = lireBits(image, PIXELS_ETENDU);
+            int r = (int) ((bits >> 12) & 0xFFFF);
+            int s = (int) ((bits >> 28) & 0x7FFF);
+            if ((bits & 0xFFF) == MARQUEUR_ETENDU && (bits >>> 43) == controle(r, s)) {
+                return new int[]{r, s};
+            }
+        }
+        // Format historique : clé 15 bits du pixel (0,0)
+        int key = (int) lireBits(image, 1);
         int r = key & 0xFF;        // 8 bits de poids faible
         int s = (key >> 8) & 0x7F; // 7 bits suivants
-        System.out.println("Clé extraite du pixel (0,0) : r=" + r + ", s=" + s);
         return new int[]{r, s};
     }
 
     /**
-     * Vérifie si une clé extraite est valide.
+     * Vérifie si une clé extraite est valide dans l'espace standard.
      * @param key Tableau [r, s] à vérifier
      * @return true si la clé est valide (r entre 0-255, s entre 0-127)
      */
     public static boolean estUneCleValide(int[] key) {
+        return estUneCleValide(key, EspaceCles.STANDARD);
+    }
+
+    /**
+     * Vérifie si une clé est valide dans un espace de clés.
+     * @param key       Tableau [r, s] à vérifier
+     * @param espace    L'espace des clés autorisées
+     * @return true si la clé appartient à l'espace
+     */
+    public static boolean estUneCleValide(int[] key, EspaceCles espace) {
         if (key == null || key.length != 2) {
             return false;
         }
-        int r = key[0];
-        int s = key[1];
-        return (r >= 0 && r <= 255) && (s >= 0 && s <= 127);
+        return espace.contient(key[0], key[1]);
+    }
+
+    /**
+     * Contrôle du format étendu (17 bits) : mélange de r et s, pour qu'une image
+     * au format historique ne passe presque jamais pour une image au format étendu.
+     */
+    private static long controle(int r, int s) {
+        int h = (r * 0x9E3779B1) ^ (s * 0x85EBCA77) ^ (int) MARQUEUR_ETENDU;
+        h ^= h >>> 15;
+        h *= 0x2C1B3C6D;
+        h ^= h >>> 13;
+        return h & 0x1FFFF;
+    }
+
+    /**
+     * Écrit 15 bits par pixel dans les 5 bits de poids faible des canaux des premiers pixels
+     * de la ligne 0 : bits 0-4 dans R, 5-9 dans G, 10-14 dans B, puis pixel suivant.
+     * Les 3 bits de poids fort de chaque canal sont gardés intacts.
+     */
+    private static void ecrireBits(Mat image, long bits, int nbPixels) {
+        // Tampon de nbPixels pixels exactement : get et put portent sur tout le tableau
+        byte[] pixels = nbPixels == 1 ? PIXEL.get() : PIXELS.get();
+        image.get(0, 0, pixels);
+        for (int k = 0; k < nbPixels; k++) {
+            long cle = bits >>> (15 * k);
+            int bitsRed = (int) (cle & 0b11111);           // bits 0-4
+            int bitsGreen = (int) ((cle >> 5) & 0b11111);  // bits 5-9
+            int bitsBlue = (int) ((cle >> 10) & 0b11111);  // bits 10-14
+            pixels[3 * k] = (byte) ((pixels[3 * k] & 0b11100000) | bitsBlue);
+            pixels[3 * k + 1] = (byte) ((pixels[3 * k + 1] & 0b11100000) | bitsGreen);
+            pixels[3 * k + 2] = (byte) ((pixels[3 * k + 2] & 0b11100000) | bitsRed);
+        }
+        image.put(0, 0, pixels);
+    }
+
+    /**
+     * Relit les bits écrits par {@link #ecrireBits(Mat, long, int)}.
+     */
+    private static long lireBits(Mat image, int nbPixels) {
+        byte[] pixels = nbPixels == 1 ? PIXEL.get() : PIXELS.get();
+        image.get(0, 0, pixels);
+        long bits = 0;
+        for (int k = 0; k < nbPixels; k++) {
+            int bitsBlue = pixels[3 * k] & 0b11111;
+            int bitsGreen = pixels[3 * k + 1] & 0b11111;
+            int bitsRed = pixels[3 * k + 2] & 0b11111;
+            bits |= (long) ((bitsBlue << 10) | (bitsGreen << 5) | bitsRed) << (15 * k);
+        }
+        return bits;
     }
 }
@@ -0,0 +1,157 @@
+/**
+ * Espace des clés
+ * Auteurs : BONNIN Simon, CARRARA Tim
+ * Groupe  : S5 - A2
+ * Date    : Octobre 2026
+ * Description : Cette classe décrit la largeur des clés (r, s) : nombre de bits
+ * de chaque clé, valeurs possibles, et réduction de l'espace à ce qu'une image
+ * de hauteur donnée peut réellement distinguer.
+ */
+
+package org.example;
+
+/**
+ * Largeur des clés de chiffrement.
+ * r est pris dans [0, 2^bitsR[ et s dans [0, 2^bitsS[. L'espace standard (r sur 8 bits,
+ * s sur 7 bits, 32 768 clés) est celui des versions précédentes ; l'espace étendu va
+ * jusqu'à r sur 16 bits et s sur 15 bits.
+ * Clés canoniques : dans un bloc de p lignes, seules comptent r mod p et (2s+1) mod p.
+ * Les blocs étant des puissances de deux découpées depuis la ligne 0, le plus grand bloc P
+ * (plus grande puissance de deux au plus égale à la hauteur) contient tous les autres :
+ * (r, s) et (r mod P, s mod P/2) chiffrent exactement de la même façon. Pour une hauteur donnée,
+ * il suffit donc de chercher la clé dans {@link #pourHauteur(int)} : au plus P × P/2 clés,
+ * quelle que soit la largeur choisie.
+ * Une clé est codée dans un entier par r | s << bitsR (au plus 31 bits).
+ *
+ * @author BONNIN Simon, CARRARA Tim
+ * @version 1.0
+ */
+public final class EspaceCles {
+
+    /**
+     * Nombre maximal de bits de r (blocs jusqu'à 65 536 lignes).
+     */
+    public static final int BITS_R_MAX = 16;
+
+    /**
+     * Nombre maximal de bits de s.
+     */
+    public static final int BITS_S_MAX = 15;
+
+    /**
+     * Espace des clés historique : r dans [0, 255], s dans [0, 127].
+     */
+    public static final EspaceCles STANDARD = new EspaceCles(8, 7);
+
+    /**
+     * Espace des clés le plus large.
+     */
+    public static final EspaceCles ETENDU = new EspaceCles(BITS_R_MAX, BITS_S_MAX);
+
+    private final int bitsR;
+    private final int bitsS;
+
+    /**
+     * @param bitsR     Nombre de bits de r (1 à BITS_R_MAX)
+     * @param bitsS     Nombre de bits de s (0 à BITS_S_MAX)
+     */
+    public EspaceCles(int bitsR, int bitsS) {
+        if (bitsR < 1 || bitsR > BITS_R_MAX || bitsS < 0 || bitsS > BITS_S_MAX) {
+            throw new IllegalArgumentException("Largeur de clé invalide : r sur " + bitsR + " bits, s sur " + bitsS + " bits");
+        }
+        this.bitsR = bitsR;
+        this.bitsS = bitsS;
+    }
+
+    /**
+     * Espace où r a bitsR bits et s un bit de moins, comme l'espace standard.
+     *
+     * @param bitsR     Nombre de bits de r (8 pour l'espace standard, jusqu'à BITS_R_MAX)
+     * @return L'espace des clés correspondant
+     */
+    public static EspaceCles deLargeur(int bitsR) {
+        return bitsR == 8 ? STANDARD : new EspaceCles(bitsR, bitsR - 1);
+    }
+
+    /**
+     * Réduit l'espace aux clés distinctes pour une hauteur d'image (voir clés canoniques).
+     *
+     * @param hauteur   Nombre de lignes de l'image (au moins 2)
+     * @return L'espace des clés canoniques de cette hauteur, inclus dans celui-ci
+     */
+    public EspaceCles pourHauteur(int hauteur) {
+        int bitsBloc = 31 - Integer.numberOfLeadingZeros(Math.max(2, hauteur));
+        int r = Math.min(bitsR, bitsBloc);
+        int s = Math.min(bitsS, bitsBloc - 1);
+        return r == bitsR && s == bitsS ? this : new EspaceCles(r, s);
+    }
+
+    /**
+     * Clé canonique : la plus petite clé qui chiffre une image de cette hauteur comme (r, s).
+     *
+     * @param r         Première clé
+     * @param s         Seconde clé
+     * @param hauteur   Nombre de lignes de l'image
+     * @return La clé [r mod P, s mod P/2], P étant le plus grand bloc de l'image
+     */
+    public static int[] canonique(int r, int s, int hauteur) {
+        int p = Integer.highestOneBit(Math.max(1, hauteur));
+        return new int[]{r & (p - 1), s & (Math.max(1, p / 2) - 1)};
+    }
+
+    /**
+     * @return true si r et s sont dans l'espace
+     */
+    public boolean contient(int r, int s) {
+        return r >= 0 && r < getNbValeursR() && s >= 0 && s < getNbValeursS();
+    }
+
+    /**
+     * @return La clé codée dans un entier (r | s << bitsR)
+     */
+    public int coder(int r, int s) {
+        return r | (s << bitsR);
+    }
+
+    /**
+     * @return La première clé d'une clé codée
+     */
+    public int r(int cle) {
+        return cle & (getNbValeursR() - 1);
+    }
+
+    /**
+     * @return La seconde clé d'une clé codée
+     */
+    public int s(int cle) {
+        return cle >>> bitsR;
+    }
+
+    public int getBitsR() {
+        return bitsR;
+    }
+
+    public int getBitsS() {
+        return bitsS;
+    }
+
+    public int getNbValeursR() {
+        return 1 << bitsR;
+    }
+
+    public int getNbValeursS() {
+        return 1 << bitsS;
+    }
+
+    /**
+     * @return Le nombre de clés de l'espace
+     */
+    public int getNbCles() {
+        return 1 << (bitsR + bitsS);
+    }
+
+    @Override
+    public String toString() {
+        return "r sur " + bitsR + " bits, s sur " + bitsS + " bits (" + getNbCles() + " clés)";
+    }
+}
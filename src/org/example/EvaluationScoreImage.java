@@ -65,4 +65,71 @@ public class EvaluationScoreImage {
         }
         return totalPearson;
     }
+
+    /**
+     * Évalue une clé à partir d'une matrice de corrélation précalculée.
+     * Même calcul que {@link #evaluateKeyScore(byte[][], int[], double)}, mais l'image
+     * n'est pas déchiffrée : chaque paire de lignes adjacentes est lue dans la matrice
+     * à partir de l'ordre des lignes produit par la clé.
+     *
+     * @param correlations          Matrice de corrélation des lignes de l'image chiffrée
+     * @param ordreLignes           Index de la ligne chiffrée placée à chaque position déchiffrée
+     * @param indicesEchantillon    Indices des lignes à échantillonner pour l'évaluation
+     * @param scoreMeilleurCle      Score de la meilleure clé trouvée jusqu'à présent
+     * @return La somme des corrélations de Pearson, ou SCORE_INVALIDE si la clé
+     *         n'est pas prometteuse
+     */
+    public static double evaluateKeyScore(MatriceCorrelation correlations, int[] ordreLignes, int[] indicesEchantillon, double scoreMeilleurCle) {
+        double totalPearson = 0.0;
+        int nbPaireRestante = indicesEchantillon.length;
+        for (int idx : indicesEchantillon) {
+            double p = correlations.correlation(ordreLignes[idx], ordreLignes[idx + 1]);
+            if (p > -1) {
+                totalPearson += p;
+            }
+            nbPaireRestante--;
+            // Même élagage que la version sur les lignes déchiffrées
+            if (totalPearson + nbPaireRestante * 1.0 <= scoreMeilleurCle) {
+                return SCORE_INVALIDE;
+            }
+        }
+        return totalPearson;
+    }
+
+    /**
+     * Évalue une clé à partir d'une matrice de corrélation, avec un élagage par bornes de ligne.
+     * Au lieu de supposer une corrélation parfaite pour chaque paire restante, le score encore
+     * atteignable est la somme des bornes des paires restantes : chaque paire évaluée remplace
+     * sa borne par sa vraie valeur, et la clé est abandonnée dès que ce qui reste atteignable
+     * ne bat plus le meilleur score.
+     * Le résultat est le même que {@link #evaluateKeyScore(MatriceCorrelation, int[], int[], double)}.
+     *
+     * @param correlations          Matrice de corrélation des lignes de l'image chiffrée
+     * @param bornes                Bornes de corrélation des lignes de la même image
+     * @param ordreLignes           Index de la ligne chiffrée placée à chaque position déchiffrée
+     * @param indicesEchantillon    Indices des lignes à échantillonner pour l'évaluation
+     * @param scoreAtteignable      Borne de la clé ({@link BornesCorrelation#borneCle(int, int)})
+     * @param scoreMeilleurCle      Score de la meilleure clé trouvée jusqu'à présent
+     * @return La somme des corrélations de Pearson, ou SCORE_INVALIDE si la clé
+     *         n'est pas prometteuse
+     */
+    public static double evaluateKeyScore(MatriceCorrelation correlations, BornesCorrelation bornes, int[] ordreLignes,
+                                          int[] indicesEchantillon, double scoreAtteignable, double scoreMeilleurCle) {
+        if (scoreAtteignable <= scoreMeilleurCle) {
+            return SCORE_INVALIDE;
+        }
+        double totalPearson = 0.0;
+        for (int idx : indicesEchantillon) {
+            double p = correlations.correlation(ordreLignes[idx], ordreLignes[idx + 1]);
+            if (p > -1) {
+                totalPearson += p;
+            }
+            // La borne de la paire est remplacée par sa vraie valeur
+            scoreAtteignable -= bornes.bornePaire(ordreLignes, idx);
+            if (totalPearson + scoreAtteignable <= scoreMeilleurCle) {
+                return SCORE_INVALIDE;
+            }
+        }
+        return totalPearson;
+    }
 }
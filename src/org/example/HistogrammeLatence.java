@@ -0,0 +1,133 @@
+/**
+ * Histogramme de latences
+ * Auteurs : BONNIN Simon, CARRARA Tim
+ * Groupe  : S5 - A2
+ * Date    : Octobre 2026
+ * Description : Cette classe compte des durées dans des intervalles de taille
+ * croissante, sans allocation ni verrou, pour en tirer la moyenne et les
+ * percentiles d'une étape du traitement.
+ */
+
+package org.example;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogramme de durées en nanosecondes, à intervalles logarithmiques.
+ * Chaque puissance de deux est découpée en 4 intervalles : un percentile est connu
+ * à 25 % près, de la nanoseconde à plusieurs minutes, avec un tableau fixe de 248 compteurs.
+ * Peut être alimenté par plusieurs threads à la fois ; une lecture concurrente
+ * peut manquer les durées en cours d'enregistrement.
+ *
+ * @author BONNIN Simon, CARRARA Tim
+ * @version 1.0
+ */
+final class HistogrammeLatence {
+
+    /**
+     * Nombre d'intervalles : 8 pour les durées de 0 à 7 ns, puis 4 par puissance de deux.
+     */
+    private static final int NB_INTERVALLES = 248;
+
+    private final AtomicLongArray compteurs = new AtomicLongArray(NB_INTERVALLES);
+    private final LongAdder nombre = new LongAdder();
+    private final LongAdder somme = new LongAdder();
+    private final AtomicLong maximum = new AtomicLong();
+
+    /**
+     * Enregistre une durée.
+     *
+     * @param nanos     La durée en nanosecondes (négative : comptée comme nulle)
+     */
+    void enregistrer(long nanos) {
+        long duree = Math.max(0, nanos);
+        compteurs.incrementAndGet(intervalle(duree));
+        nombre.increment();
+        somme.add(duree);
+        maximum.accumulateAndGet(duree, Math::max);
+    }
+
+    /**
+     * @return Le nombre de durées enregistrées
+     */
+    long nombre() {
+        return nombre.sum();
+    }
+
+    /**
+     * @return La durée moyenne en nanosecondes, ou 0 si rien n'a été enregistré
+     */
+    double moyenne() {
+        long n = nombre.sum();
+        return n == 0 ? 0 : (double) somme.sum() / n;
+    }
+
+    /**
+     * @return La plus longue durée enregistrée en nanosecondes
+     */
+    long maximum() {
+        return maximum.get();
+    }
+
+    /**
+     * Percentile des durées enregistrées.
+     *
+     * @param p     Le percentile, entre 0 et 1 (0.5 pour la médiane)
+     * @return La borne haute de l'intervalle qui contient le percentile, en nanosecondes
+     *         (jamais plus que le maximum), ou 0 si rien n'a été enregistré
+     */
+    long percentile(double p) {
+        long total = 0;
+        long[] copie = new long[NB_INTERVALLES];
+        for (int i = 0; i < NB_INTERVALLES; i++) {
+            copie[i] = compteurs.get(i);
+            total += copie[i];
+        }
+        if (total == 0) return 0;
+        long rang = Math.max(1, (long) Math.ceil(p * total));
+        long cumul = 0;
+        for (int i = 0; i < NB_INTERVALLES; i++) {
+            cumul += copie[i];
+            if (cumul >= rang) {
+                return Math.min(borneHaute(i), maximum.get());
+            }
+        }
+        return maximum.get();
+    }
+
+    /**
+     * Remet l'histogramme à zéro. Les durées enregistrées pendant l'appel peuvent être perdues.
+     */
+    void reinitialiser() {
+        for (int i = 0; i < NB_INTERVALLES; i++) {
+            compteurs.set(i, 0);
+        }
+        nombre.reset();
+        somme.reset();
+        maximum.set(0);
+    }
+
+    /**
+     * @param duree     Une durée positive ou nulle
+     * @return L'intervalle de la durée : les 2 bits qui suivent le bit de poids fort
+     *         choisissent l'intervalle dans la puissance de deux
+     */
+    static int intervalle(long duree) {
+        if (duree < 8) return (int) duree;
+        int exposant = 63 - Long.numberOfLeadingZeros(duree);
+        return (exposant - 1) * 4 + (int) ((duree >>> (exposant - 2)) & 3);
+    }
+
+    /**
+     * @param intervalle    Un intervalle de l'histogramme
+     * @return La plus grande durée de l'intervalle
+     */
+    static long borneHaute(int intervalle) {
+        if (intervalle < 8) return intervalle;
+        int exposant = intervalle / 4 + 1;
+        long debut = (long) (4 + intervalle % 4) << (exposant - 2);
+        return debut + (1L << (exposant - 2)) - 1;
+    }
+}
@@ -10,12 +10,7 @@ import javafx.scene.image.ImageView;
 import javafx.scene.layout.*;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
-import org.opencv.core.Core;
 import org.opencv.core.Mat;
-import org.opencv.core.Size;
-import org.opencv.videoio.VideoCapture;
-import org.opencv.videoio.VideoWriter;
-import org.opencv.videoio.Videoio;
 
 import java.io.File;
 
@@ -28,30 +23,7 @@ import java.io.File;
 public class Main extends Application {
 
     static {
-        // Charger explicitement la DLL FFmpeg AVANT OpenCV
-        String ffmpegPath = "C:\\Users\\PC\\Documents\\opencv\\build\\java\\x64\\opencv_videoio_ffmpeg4120_64.dll";
-        try {
-            System.out.println("Chargement de FFmpeg : " + ffmpegPath);
-            System.load(ffmpegPath);
-            System.out.println("FFmpeg chargé avec succès !");
-        } catch (UnsatisfiedLinkError e) {
-            System.err.println("ERREUR chargement FFmpeg : " + e.getMessage());
-            e.printStackTrace();
-        }
-
-        // Puis charger OpenCV
-        try {
-            System.loadLibrary("opencv_java4120");
-            System.out.println("OpenCV chargé avec succès !");
-        } catch (UnsatisfiedLinkError e) {
-            System.err.println("ERREUR chargement OpenCV : " + e.getMessage());
-            e.printStackTrace();
-        }
-
-        // Test immédiat
-        System.out.println("OpenCV version: " + Core.VERSION);
-        System.out.println("Build information:");
-        System.out.println(Core.getBuildInformation());
+        ChargeurOpenCV.charger(true);
     }
 
     // Paramètres de traitement
@@ -71,8 +43,11 @@ public class Main extends Application {
     private Spinner<Integer> sSpinner;
     private ComboBox<String> modeCombo;
     private CheckBox embedKeyCheck;
+    private CheckBox cleEtendueCheck;
     private ImageView leftImageView;
     private ImageView rightImageView;
+    private RenduApercu apercuEntree;
+    private RenduApercu apercuSortie;
     private Label statusLabel;
     private Label keyLabel;
     private ProgressBar progressBar;
@@ -80,9 +55,13 @@ public class Main extends Application {
     private Button startBtn;
     private Button stopBtn;
 
+    // Nombre de frames analysées pour cracker la clé
+    private static final int FRAMES_CONSENSUS = 5;
+
     // Variables de traitement vidéo
     private volatile boolean stopProcessing = false;
     private Thread processingThread;
+    private volatile TraitementVideo traitementEnCours;
 
     @Override
     public void start(Stage primaryStage) {
@@ -215,7 +194,7 @@ public class Main extends Application {
         HBox rBox = new HBox(10);
         Label rLabel = new Label("r (offset):");
         rLabel.setPrefWidth(80);
-        rSpinner = new Spinner<>(0, 255, 42);
+        rSpinner = new Spinner<>(0, EspaceCles.STANDARD.getNbValeursR() - 1, 42);
         rSpinner.setEditable(true);
         rSpinner.setMaxWidth(Double.MAX_VALUE);
         HBox.setHgrow(rSpinner, Priority.ALWAYS);
@@ -224,12 +203,20 @@ public class Main extends Application {
         HBox sBox = new HBox(10);
         Label sLabel = new Label("s (step):");
         sLabel.setPrefWidth(80);
-        sSpinner = new Spinner<>(0, 127, 17);
+        sSpinner = new Spinner<>(0, EspaceCles.STANDARD.getNbValeursS() - 1, 17);
         sSpinner.setEditable(true);
         sSpinner.setMaxWidth(Double.MAX_VALUE);
         HBox.setHgrow(sSpinner, Priority.ALWAYS);
         sBox.getChildren().addAll(sLabel, sSpinner);
 
+        // Clé étendue : bornes des spinners et espace cherché par le crack
+        cleEtendueCheck = new CheckBox("Clé étendue (r sur 16 bits, s sur 15 bits)");
+        cleEtendueCheck.setOnAction(e -> {
+            EspaceCles espace = espaceCles();
+            ((SpinnerValueFactory.IntegerSpinnerValueFactory) rSpinner.getValueFactory()).setMax(espace.getNbValeursR() - 1);
+            ((SpinnerValueFactory.IntegerSpinnerValueFactory) sSpinner.getValueFactory()).setMax(espace.getNbValeursS() - 1);
+        });
+
         embedKeyCheck = new CheckBox("Embarquer la clé dans la vidéo");
 
         Separator sep3 = new Separator();
@@ -247,6 +234,7 @@ public class Main extends Application {
         stopBtn.setDisable(true);
         stopBtn.setOnAction(e -> {
             stopProcessing = true;
+            arreterTraitement();
             statusLabel.setText("Arrêt en cours...");
         });
 
@@ -292,6 +280,7 @@ public class Main extends Application {
                 keyParamsLabel,
                 rBox,
                 sBox,
+                cleEtendueCheck,
                 embedKeyCheck,
                 sep3,
                 startBtn,
@@ -331,6 +320,9 @@ public class Main extends Application {
         rightImageView.setPreserveRatio(true);
         rightImageView.setStyle("-fx-effect: dropshadow(three-pass-box, rgba(0,0,0,0.8), 10, 0, 0, 0);");
 
+        apercuEntree = new RenduApercu(leftImageView, 500, 375);
+        apercuSortie = new RenduApercu(rightImageView, 500, 375);
+
         panel.getChildren().addAll(leftLabel, leftImageView, rightLabel, rightImageView);
         VBox.setVgrow(panel, Priority.ALWAYS);
 
@@ -343,6 +335,12 @@ public class Main extends Application {
         rSpinner.setDisable(!needsKey);
         sSpinner.setDisable(!needsKey);
         embedKeyCheck.setDisable(!selectedMode.equals("Chiffrement"));
+        // La clé embarquée est lue quel que soit son format
+        cleEtendueCheck.setDisable(selectedMode.equals("Déchiffrement avec clé embarquée"));
+    }
+
+    private EspaceCles espaceCles() {
+        return cleEtendueCheck.isSelected() ? EspaceCles.ETENDU : EspaceCles.STANDARD;
     }
 
     private void startProcessing() {
@@ -401,222 +399,75 @@ public class Main extends Application {
     }
 
     private void processVideo() {
-        VideoCapture capture = new VideoCapture(inputPath);
-
-        if (!capture.isOpened()) {
-            throw new RuntimeException("Impossible d'ouvrir la vidéo : " + inputPath);
-        }
-
-        // Récupération des propriétés de la vidéo
-        int frameWidth = (int) capture.get(Videoio.CAP_PROP_FRAME_WIDTH);
-        int frameHeight = (int) capture.get(Videoio.CAP_PROP_FRAME_HEIGHT);
-        double fps = capture.get(Videoio.CAP_PROP_FPS);
-        int totalFrames = (int) capture.get(Videoio.CAP_PROP_FRAME_COUNT);
-
-        System.out.println("=== INFORMATIONS VIDÉO ===");
-        System.out.println("Dimensions : " + frameWidth + "x" + frameHeight);
-        System.out.println("FPS : " + fps);
-        System.out.println("Total frames : " + totalFrames);
-        System.out.println("Mode : " + mode);
-        System.out.println("Clé (r, s) : (" + r + ", " + s + ")");
-        System.out.println("Embed key : " + embedKey);
-        System.out.println("Extract key : " + extractKey);
-        System.out.println("==========================");
-
-        Platform.runLater(() -> fpsLabel.setText("FPS: " + String.format("%.1f", fps) + " | Frames: " + totalFrames));
-
-        // Création du VideoWriter
-        VideoWriter writer = null;
-        if (outputPath != null) {
-            int fourcc;
-
-            // Choisir le codec selon l'extension ET le mode
-            if (outputPath.toLowerCase().endsWith(".avi") || embedKey || extractKey) {
-                // AVI non compressé pour la clé embarquée
-                fourcc = 0;
-                System.out.println("Utilisation du codec AVI non compressé (requis pour clé embarquée)");
-            } else if (outputPath.toLowerCase().endsWith(".mp4")) {
-                // MP4 pour les autres cas
-                fourcc = VideoWriter.fourcc('m', 'p', '4', 'v');
-                System.out.println("Utilisation du codec MP4");
-            } else {
-                // Par défaut : AVI
-                fourcc = 0;
-                System.out.println("Utilisation du codec AVI par défaut");
+        TraitementVideo traitement = new TraitementVideo(inputPath, outputPath, mode, r, s);
+        traitement.setEmbedKey(embedKey);
+        traitement.setExtractKey(extractKey);
+        traitement.setCrackKey(crackKey);
+        traitement.setEspaceCles(espaceCles());
+        // Crack par consensus : une frame peu texturée ne suffit plus à imposer une mauvaise clé
+        traitement.setFramesConsensus(FRAMES_CONSENSUS);
+        traitement.setEcouteur(new TraitementVideo.Ecouteur() {
+            @Override
+            public void videoOuverte(double fps, int totalFrames) {
+                Platform.runLater(() -> fpsLabel.setText("FPS: " + String.format("%.1f", fps) + " | Frames: " + totalFrames));
             }
 
-            Size frameSize = new Size(frameWidth, frameHeight);
-            writer = new VideoWriter(outputPath, fourcc, fps, frameSize, true);
-
-            if (!writer.isOpened()) {
-                capture.release();
-                throw new RuntimeException("Impossible de créer la vidéo de sortie : " + outputPath);
+            @Override
+            public void statut(String message) {
+                Platform.runLater(() -> statusLabel.setText(message));
             }
-        }
-
-
-        // Traitement frame par frame
-        Mat frame = new Mat();
-        int frameCount = 0;
-        int framesWritten = 0;
-        long startTime = System.currentTimeMillis();
-
-        // Pour le crack de clé
-        if (crackKey) {
-            Mat firstValidFrame = findFirstNonBlackFrame(capture);
-            if (firstValidFrame != null) {
-                Platform.runLater(() -> statusLabel.setText("Recherche de la clé par force brute..."));
-
-                try {
-                    int[] crackedKey = TrouveCleBruteForce.bruteForce(firstValidFrame);
-                    r = crackedKey[0];
-                    s = crackedKey[1];
-                    System.out.println("Clé crackée : r=" + r + ", s=" + s);
-                    Platform.runLater(() -> {
-                        keyLabel.setText("Clé trouvée (r, s): (" + r + ", " + s + ")");
-                        statusLabel.setText("Clé crackée ! Déchiffrement en cours...");
-                    });
-                } catch (Exception e) {
-                    System.err.println("Erreur lors du crack de clé : " + e.getMessage());
-                    e.printStackTrace();
-                }
 
-                firstValidFrame.release();
+            @Override
+            public void cleConnue(String libelle, int cleR, int cleS) {
+                // Appelé depuis les threads du traitement : la clé n'est publiée que sur le thread JavaFX
+                Platform.runLater(() -> {
+                    r = cleR;
+                    s = cleS;
+                    keyLabel.setText(libelle + " (r, s): (" + cleR + ", " + cleS + ")");
+                });
             }
-            capture.release();
-            capture = new VideoCapture(inputPath);
-
-            // Passer en mode déchiffrement après le crack
-            mode = "-d";
-        }
 
-        while (!stopProcessing && capture.read(frame) && !frame.empty()) {
-            frameCount++;
-
-            int currentR = r;
-            int currentS = s;
-
-            // Traitement de la frame
-            Mat processed = null;
-            try {
-                if (mode.startsWith("-e")) {
-                    // === CHIFFREMENT ===
-                    // 1. Chiffrer la frame
-                    processed = PermutationLignes.scrambleFrame(frame, currentR, currentS);
-
-                    // 2. Embarquer la clé APRÈS le chiffrement (dans TOUTES les frames si embedKey activé)
-                    if (embedKey) {
-                        EmbarquementCle.cleDansPixel(processed, currentR, currentS);
-                        if (frameCount == 1) {
-                            System.out.println("Mode embarquement activé - Clé (r=" + currentR + ", s=" + currentS + ") embarquée dans toutes les frames");
-                        }
-
-                        // Test immédiat d'extraction sur la première frame
-                        if (frameCount == 1) {
-                            int[] testExtract = EmbarquementCle.extractionCleFromPixel(processed);
-                            System.out.println("TEST embarquement frame 1 - Clé ré-extraite : r=" + testExtract[0] + ", s=" + testExtract[1]);
-                            if (testExtract[0] != currentR || testExtract[1] != currentS) {
-                                System.err.println("ERREUR : La clé embarquée ne correspond pas !");
-                            }
-                        }
-                    }
-                } else {
-                    // === DÉCHIFFREMENT ===
-                    // 1. Extraire la clé AVANT de déchiffrer (si mode avec clé embarquée)
-                    if (extractKey) {
-                        int[] embeddedKey = EmbarquementCle.extractionCleFromPixel(frame);
-                        currentR = embeddedKey[0];
-                        currentS = embeddedKey[1];
-
-                        if (frameCount == 1) {
-                            r = currentR;  // Sauvegarder pour affichage
-                            s = currentS;
-                            System.out.println("Clé extraite de la frame 1 : r=" + currentR + ", s=" + currentS);
-                            int finalR = currentR;
-                            int finalS = currentS;
-                            Platform.runLater(() -> keyLabel.setText("Clé extraite (r, s): (" + finalR + ", " + finalS + ")"));
-                        }
-
-                        // Debug : vérifier la clé extraite régulièrement
-                        if (frameCount <= 5 || frameCount % 100 == 0) {
-                            System.out.println("Frame " + frameCount + " - Clé extraite : r=" + currentR + ", s=" + currentS);
-                        }
-
-                        // Vérifier si la clé est valide
-                        if (!EmbarquementCle.estUneCleValide(embeddedKey)) {
-                            System.err.println("ATTENTION Frame " + frameCount + " : Clé invalide ! r=" + currentR + ", s=" + currentS);
-                        }
-                    }
-
-                    // 2. Déchiffrer avec la clé (extraite ou fournie)
-                    processed = PermutationLignes.unscrambleFrame(frame, currentR, currentS);
-                }
-
-                // Vérifier que le traitement a réussi
-                if (processed == null || processed.empty()) {
-                    System.err.println("ERREUR : Frame traitée est vide à la frame " + frameCount);
-                    continue;
-                }
-
-                // Vérifier les dimensions
-                if (writer != null) {
-                    if (processed.rows() == frameHeight && processed.cols() == frameWidth) {
-                        writer.write(processed);
-                        framesWritten++;
-                    } else {
-                        System.err.println("ATTENTION : Dimensions incorrectes à la frame " + frameCount +
-                                " ! " + processed.cols() + "x" + processed.rows() +
-                                " vs " + frameWidth + "x" + frameHeight);
-                    }
-                }
-
-                // Affichage
-                if (frameCount % 3 == 0) {
-                    Mat frameToShow = frame.clone();
-                    Mat processedToShow = processed.clone();
-                    int currentFrame = frameCount;
-
-                    Platform.runLater(() -> {
-                        leftImageView.setImage(OpenCVUtils.matToImage(frameToShow));
-                        rightImageView.setImage(OpenCVUtils.matToImage(processedToShow));
-                        progressBar.setProgress((double) currentFrame / totalFrames);
-                        frameToShow.release();
-                        processedToShow.release();
-                    });
-                }
-
-            } catch (Exception e) {
-                System.err.println("Erreur au traitement de la frame " + frameCount + " : " + e.getMessage());
-                e.printStackTrace();
-            } finally {
-                if (processed != null) {
-                    processed.release();
+            @Override
+            public void frameEcrite(int index, int totalFrames, Mat entree, Mat sortie) {
+                // Affichage : réduction à la taille des vues, frames périmées abandonnées
+                if (index % 3 == 0 && sortie != null) {
+                    apercuEntree.soumettre(entree);
+                    apercuSortie.soumettre(sortie);
                 }
             }
 
-            if (frameCount % 30 == 0) {
-                long elapsed = System.currentTimeMillis() - startTime;
-                double currentFps = (frameCount * 1000.0) / elapsed;
-                int finalFrameCount1 = frameCount;
+            @Override
+            public void progressionCrack(int clesEvaluees, int totalCles, long resteMs) {
                 Platform.runLater(() -> {
-                    fpsLabel.setText(String.format("FPS: %.1f | Frame: %d/%d", currentFps, finalFrameCount1, totalFrames));
+                    progressBar.setProgress((double) clesEvaluees / Math.max(1, totalCles));
+                    statusLabel.setText("Crack : " + clesEvaluees + " / " + totalCles + " clés"
+                            + (resteMs >= 0 ? String.format(" (reste ~%.1f s)", resteMs / 1000.0) : ""));
                 });
             }
-        }
-
-        System.out.println("=== RÉSULTAT ===");
-        System.out.println("Frames lues : " + frameCount);
-        System.out.println("Frames écrites : " + framesWritten);
-        System.out.println("=================");
 
-        // Libération des ressources dans le bon ordre
-        frame.release();
-        capture.release();
+            @Override
+            public void vitesse(double currentFps, int index, int totalFrames) {
+                Platform.runLater(() -> {
+                    fpsLabel.setText(String.format("FPS: %.1f | Frame: %d/%d", currentFps, index, totalFrames));
+                    progressBar.setProgress((double) index / totalFrames);
+                });
+            }
+        });
 
-        if (writer != null) {
-            writer.release();
+        // Le bouton Arrêter agit directement sur le traitement
+        traitementEnCours = traitement;
+        if (stopProcessing) {
+            traitement.arreter();
+        }
+        try {
+            traitement.executer();
+        } finally {
+            traitementEnCours = null;
         }
 
+        int frameCount = traitement.getFramesLues();
+        int framesWritten = traitement.getFramesEcrites();
+
         int finalFrameCount = frameCount;
         int finalFramesWritten = framesWritten;
         Platform.runLater(() -> {
@@ -642,8 +493,8 @@ public class Main extends Application {
             stopBtn.setDisable(true);
 
             // Réinitialiser les images
-            leftImageView.setImage(null);
-            rightImageView.setImage(null);
+            apercuEntree.effacer();
+            apercuSortie.effacer();
 
             // Réinitialiser les champs
             inputField.clear();
@@ -666,6 +517,9 @@ public class Main extends Application {
             sSpinner.getValueFactory().setValue(17);
             modeCombo.setValue("Chiffrement");
             embedKeyCheck.setSelected(false);
+            cleEtendueCheck.setSelected(false);
+            ((SpinnerValueFactory.IntegerSpinnerValueFactory) rSpinner.getValueFactory()).setMax(EspaceCles.STANDARD.getNbValeursR() - 1);
+            ((SpinnerValueFactory.IntegerSpinnerValueFactory) sSpinner.getValueFactory()).setMax(EspaceCles.STANDARD.getNbValeursS() - 1);
 
             // Réactiver les contrôles
             updateModeSettings();
@@ -674,27 +528,16 @@ public class Main extends Application {
         });
     }
 
-    private Mat findFirstNonBlackFrame(VideoCapture capture) {
-        Mat frame = new Mat();
-        int count = 0;
-        while (count < 100 && capture.read(frame) && !frame.empty()) {
-            double sum = 0;
-            byte[] data = new byte[(int) frame.total() * frame.channels()];
-            frame.get(0, 0, data);
-            for (byte b : data) {
-                sum += (b & 0xFF);
-            }
-            double avg = sum / data.length;
-            if (avg > 10) {
-                return frame.clone();
-            }
-            count++;
+    private void arreterTraitement() {
+        TraitementVideo traitement = traitementEnCours;
+        if (traitement != null) {
+            traitement.arreter();
         }
-        return null;
     }
 
     private void cleanup() {
         stopProcessing = true;
+        arreterTraitement();
         if (processingThread != null && processingThread.isAlive()) {
             try {
                 processingThread.join(2000);
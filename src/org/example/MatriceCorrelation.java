@@ -0,0 +1,194 @@
+/**
+ * Matrice de corrélation entre lignes
+ * Auteurs : BONNIN Simon, CARRARA Tim
+ * Groupe  : S5 - A2
+ * Date    : Octobre 2026
+ * Description : Cette classe précalcule les statistiques de chaque ligne d'une
+ * image chiffrée et mémorise les corrélations de Pearson entre paires de lignes.
+ * Une clé ne fait que permuter les lignes : le score de n'importe quelle clé
+ * est donc une somme de corrélations entre lignes chiffrées d'origine, que l'on
+ * ne calcule qu'une seule fois.
+ */
+
+package org.example;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Moteur de corrélation entre paires de lignes d'une image.
+ * La moyenne et la norme de chaque ligne sont calculées une seule fois à la construction,
+ * puis chaque corrélation est calculée à la demande (produit scalaire uniquement)
+ * et mémorisée.
+ * Deux modes de stockage existent :
+ * - mode complet : une table triangulaire contenant toutes les paires (images de hauteur raisonnable)
+ * - mode borné : un cache à correspondance directe de taille fixe (images très hautes),
+ *   une paire évincée est simplement recalculée
+ * Les remplissages concurrents sont sans danger : deux threads qui calculent la même
+ * paire écrivent la même valeur.
+ *
+ * @author BONNIN Simon, CARRARA Tim
+ * @version 1.0
+ */
+public class MatriceCorrelation {
+
+    /**
+     * Nombre maximal de paires stockées par défaut (32 Mo de float).
+     * Au-delà, la matrice passe en mode borné.
+     */
+    public static final long TAILLE_MAX_TABLE_DEFAUT = 8L * 1024 * 1024;
+
+    /**
+     * Valeur sentinelle indiquant qu'une paire n'a pas encore été calculée.
+     */
+    private static final float NON_CALCULE = Float.NaN;
+
+    // Noyau de calcul (scalaire ou vectoriel) des sommes et produits scalaires
+    private final NoyauCorrelation noyau = NoyauCorrelation.actif();
+    // Lignes de l'image chiffrée
+    private final byte[][] lignes;
+    // Nombre de lignes et nombre d'octets par ligne
+    private final int nbLignes;
+    private final int nbPixels;
+    // Somme des pixels de chaque ligne
+    private final long[] sommes;
+    // Racine de n·Σx² − (Σx)², nulle si la ligne est de variance nulle
+    private final double[] normes;
+
+    // Mode complet : table triangulaire inférieure des corrélations
+    private final float[] table;
+    // Mode borné : cache à correspondance directe (clé de paire sur 32 bits, corrélation sur 32 bits)
+    private final AtomicLongArray cache;
+    private final int masqueCache;
+
+    /**
+     * Construit la matrice de corrélation avec la taille de table par défaut.
+     *
+     * @param lignes    Les lignes de l'image (toutes de même longueur)
+     */
+    public MatriceCorrelation(byte[][] lignes) {
+        this(lignes, TAILLE_MAX_TABLE_DEFAUT);
+    }
+
+    /**
+     * Construit la matrice de corrélation.
+     * Si le nombre de paires dépasse tailleMaxTable, la matrice utilise un cache
+     * borné de tailleMaxTable entrées au lieu d'une table complète.
+     *
+     * @param lignes            Les lignes de l'image (toutes de même longueur)
+     * @param tailleMaxTable    Nombre maximal de corrélations gardées en mémoire
+     */
+    public MatriceCorrelation(byte[][] lignes, long tailleMaxTable) {
+        this.lignes = lignes;
+        this.nbLignes = lignes.length;
+        this.nbPixels = nbLignes == 0 ? 0 : lignes[0].length;
+        this.sommes = new long[nbLignes];
+        this.normes = new double[nbLignes];
+
+        // Précalcul des statistiques de chaque ligne
+        long[] statistiques = new long[2];
+        for (int i = 0; i < nbLignes; i++) {
+            noyau.statistiques(lignes[i], statistiques);
+            long somme = statistiques[0];
+            long sommeCarres = statistiques[1];
+            sommes[i] = somme;
+            double variance = (double) nbPixels * sommeCarres - (double) somme * somme;
+            normes[i] = variance > 0 ? Math.sqrt(variance) : 0;
+        }
+
+        long nbPaires = (long) nbLignes * (nbLignes - 1) / 2;
+        if (nbPaires <= tailleMaxTable) {
+            table = new float[(int) nbPaires];
+            Arrays.fill(table, NON_CALCULE);
+            cache = null;
+            masqueCache = 0;
+        } else {
+            // Puissance de deux pour indexer le cache par masque
+            int tailleCache = (int) Long.highestOneBit(Math.max(1, Math.min(tailleMaxTable, 1L << 30)));
+            table = null;
+            cache = new AtomicLongArray(tailleCache);
+            masqueCache = tailleCache - 1;
+        }
+    }
+
+    /**
+     * @return Le nombre de lignes de l'image
+     */
+    public int nbLignes() {
+        return nbLignes;
+    }
+
+    /**
+     * @param i     Index d'une ligne
+     * @return Les pixels de cette ligne (tableau partagé, ne pas modifier)
+     */
+    byte[] ligne(int i) {
+        return lignes[i];
+    }
+
+    /**
+     * @return true si la matrice utilise le cache borné au lieu de la table complète
+     */
+    public boolean estBornee() {
+        return table == null;
+    }
+
+    /**
+     * Retourne la corrélation de Pearson entre deux lignes de l'image.
+     * Même convention que {@link PearsonCorrelation#pearson(byte[], byte[])} :
+     * -1 si l'une des lignes est de variance nulle.
+     *
+     * @param i     Index de la première ligne
+     * @param j     Index de la seconde ligne
+     * @return Le coefficient de corrélation entre les deux lignes
+     */
+    public double correlation(int i, int j) {
+        if (i == j) return normes[i] == 0 ? -1 : 1;
+        // La matrice est symétrique : on ne stocke que i > j
+        if (i < j) {
+            int t = i;
+            i = j;
+            j = t;
+        }
+        if (normes[i] == 0 || normes[j] == 0) return -1;
+
+        if (table != null) {
+            int index = (int) ((long) i * (i - 1) / 2 + j);
+            float valeur = table[index];
+            if (valeur != valeur) {
+                valeur = (float) calculer(i, j);
+                table[index] = valeur;
+            }
+            return valeur;
+        }
+
+        // Mode borné : clé de paire non nulle sur 32 bits
+        long clePaire = ((long) i * nbLignes + j + 1) & 0xFFFFFFFFL;
+        int emplacement = melanger(clePaire) & masqueCache;
+        long entree = cache.get(emplacement);
+        if ((entree >>> 32) == clePaire) {
+            return Float.intBitsToFloat((int) entree);
+        }
+        float valeur = (float) calculer(i, j);
+        cache.lazySet(emplacement, (clePaire << 32) | (Float.floatToRawIntBits(valeur) & 0xFFFFFFFFL));
+        return valeur;
+    }
+
+    /**
+     * Calcule la corrélation entre deux lignes à partir des statistiques précalculées.
+     * Seul le produit scalaire reste à calculer.
+     */
+    private double calculer(int i, int j) {
+        long produit = noyau.produitScalaire(lignes[i], lignes[j]);
+        double numerateur = (double) nbPixels * produit - (double) sommes[i] * sommes[j];
+        return numerateur / (normes[i] * normes[j]);
+    }
+
+    /**
+     * Mélange les bits d'une clé de paire pour répartir les paires dans le cache.
+     */
+    private static int melanger(long cle) {
+        long h = cle * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32);
+    }
+}
@@ -0,0 +1,84 @@
+/**
+ * Meilleur score partagé entre threads
+ * Auteurs : BONNIN Simon, CARRARA Tim
+ * Groupe  : S5 - A2
+ * Date    : Octobre 2026
+ * Description : Cette classe garde la meilleure clé trouvée et son score dans
+ * un seul entier long, mis à jour sans verrou ni allocation.
+ */
+
+package org.example;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Meilleur (score, clé) partagé par les threads d'une recherche.
+ * Le score et la clé sont rangés dans le même mot de 64 bits :
+ * - les 32 bits de poids fort contiennent le score en float, encodé pour que l'ordre
+ *   des entiers signés soit celui des scores
+ * - les 32 bits de poids faible contiennent la clé
+ * Comparer deux mots revient donc à comparer les scores (puis les clés à score égal),
+ * et un seul compareAndSet met à jour le score et la clé ensemble.
+ * Le score est arrondi vers le bas en float : le seuil d'élagage lu par les threads
+ * n'est jamais supérieur au vrai meilleur score, aucune bonne clé n'est donc élaguée à tort.
+ *
+ * @author BONNIN Simon, CARRARA Tim
+ * @version 1.0
+ */
+final class MeilleurScore {
+
+    // Aucune clé proposée : plus petit que tout mot encodé
+    private static final long VIDE = Long.MIN_VALUE;
+
+    private final AtomicLong mot = new AtomicLong(VIDE);
+
+    /**
+     * @return Le meilleur score (arrondi vers le bas), ou -∞ si aucune clé n'a été proposée
+     */
+    double score() {
+        long actuel = mot.get();
+        return actuel == VIDE ? Double.NEGATIVE_INFINITY : decoderScore(actuel);
+    }
+
+    /**
+     * @return La meilleure clé, ou -1 si aucune clé n'a été proposée
+     */
+    int cle() {
+        long actuel = mot.get();
+        return actuel == VIDE ? -1 : (int) actuel;
+    }
+
+    /**
+     * Propose une clé : elle devient la meilleure si son score est plus élevé.
+     *
+     * @param score     Le score de la clé (-∞ et NaN sont ignorés)
+     * @param cle       La clé, positive ou nulle
+     * @return true si la clé est devenue la meilleure
+     */
+    boolean proposer(double score, int cle) {
+        if (!(score > Double.NEGATIVE_INFINITY)) return false;
+        long propose = encoder(score, cle);
+        long actuel;
+        do {
+            actuel = mot.get();
+            // Un autre thread a déjà trouvé mieux
+            if (propose <= actuel) return false;
+        } while (!mot.compareAndSet(actuel, propose));
+        return true;
+    }
+
+    private static long encoder(double score, int cle) {
+        float f = (float) score;
+        if (f > score) f = Math.nextDown(f);
+        int bits = Float.floatToIntBits(f);
+        // Scores négatifs : on inverse la magnitude pour garder l'ordre
+        int triable = bits ^ ((bits >> 31) & 0x7FFFFFFF);
+        return ((long) triable << 32) | (cle & 0xFFFFFFFFL);
+    }
+
+    private static double decoderScore(long mot) {
+        int triable = (int) (mot >> 32);
+        int bits = triable ^ ((triable >> 31) & 0x7FFFFFFF);
+        return Float.intBitsToFloat(bits);
+    }
+}
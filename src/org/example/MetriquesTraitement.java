@@ -0,0 +1,405 @@
+/**
+ * Métriques du traitement
+ * Auteurs : BONNIN Simon, CARRARA Tim
+ * Groupe  : S5 - A2
+ * Date    : Octobre 2026
+ * Description : Cette classe mesure chaque étape du traitement vidéo (latences,
+ * remplissage des files, frames perdues) et des recherches de clé (clés par
+ * seconde, taux d'élagage), et publie ces mesures par JMX et par des événements
+ * JFR, pour profiler un traitement sans y attacher de débogueur.
+ */
+
+package org.example;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Point unique de mesure du traitement, partagé par toute l'application.
+ * Les étapes mesurées appellent {@link #debut()} puis {@link #fin(Etape, long, int)} :
+ * - la durée est comptée dans l'histogramme de l'étape (JMX, attribut Latences)
+ * - un événement JFR "org.example.Etape" est émis si un enregistrement JFR l'a activé
+ * Chaque passe de recherche de clé émet de même un événement "org.example.PasseCrack".
+ * Exemple pour un traitement en production :
+ * {@code java -XX:StartFlightRecording=filename=traitement.jfr ...} puis JDK Mission Control,
+ * ou JConsole sur le bean "org.example:type=MetriquesTraitement".
+ * Les mesures coûtent deux lectures d'horloge et quelques compteurs atomiques par étape ;
+ * la propriété système "videoscramble.metriques=false" les désactive entièrement.
+ *
+ * @author BONNIN Simon, CARRARA Tim
+ * @version 1.0
+ */
+public final class MetriquesTraitement implements MetriquesTraitementMXBean {
+
+    /**
+     * Nom du bean JMX.
+     */
+    public static final String NOM_JMX = "org.example:type=MetriquesTraitement";
+
+    /**
+     * Mesures activées, sauf avec la propriété système "videoscramble.metriques=false".
+     */
+    static final boolean ACTIVES = !"false".equalsIgnoreCase(System.getProperty("videoscramble.metriques"));
+
+    /**
+     * Étapes mesurées :
+     * - DECODAGE : lecture d'une frame dans la VideoCapture
+     * - TRANSFORMATION : transformation complète d'une frame par un thread du pipeline
+     * - PERMUTATION : permutation des lignes (chiffrement ou déchiffrement), partie de TRANSFORMATION
+     * - EMBARQUEMENT : embarquement ou extraction de la clé dans les pixels, partie de TRANSFORMATION
+     * - ECRITURE : écriture d'une frame dans le VideoWriter
+     * - APERCU : réduction et conversion d'une frame pour l'aperçu
+     */
+    public enum Etape {
+        DECODAGE, TRANSFORMATION, PERMUTATION, EMBARQUEMENT, ECRITURE, APERCU
+    }
+
+    /**
+     * Latences d'une étape, telles que publiées par JMX (en millisecondes).
+     */
+    public static final class StatistiquesLatence {
+        private final String etape;
+        private final long nombre;
+        private final double moyenneMs;
+        private final double p50Ms;
+        private final double p90Ms;
+        private final double p99Ms;
+        private final double maxMs;
+
+        StatistiquesLatence(Etape etape, HistogrammeLatence histogramme) {
+            this.etape = etape.name();
+            this.nombre = histogramme.nombre();
+            this.moyenneMs = histogramme.moyenne() / 1e6;
+            this.p50Ms = histogramme.percentile(0.50) / 1e6;
+            this.p90Ms = histogramme.percentile(0.90) / 1e6;
+            this.p99Ms = histogramme.percentile(0.99) / 1e6;
+            this.maxMs = histogramme.maximum() / 1e6;
+        }
+
+        public String getEtape() {
+            return etape;
+        }
+
+        public long getNombre() {
+            return nombre;
+        }
+
+        public double getMoyenneMs() {
+            return moyenneMs;
+        }
+
+        public double getP50Ms() {
+            return p50Ms;
+        }
+
+        public double getP90Ms() {
+            return p90Ms;
+        }
+
+        public double getP99Ms() {
+            return p99Ms;
+        }
+
+        public double getMaxMs() {
+            return maxMs;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s : %d mesures, moyenne %.3f ms, p50 %.3f ms, p90 %.3f ms, p99 %.3f ms, max %.3f ms",
+                    etape, nombre, moyenneMs, p50Ms, p90Ms, p99Ms, maxMs);
+        }
+    }
+
+    /**
+     * Événement JFR d'une étape sur une frame.
+     */
+    @Name("org.example.Etape")
+    @Label("Étape de traitement")
+    @Category("VideoScramble")
+    @StackTrace(false)
+    static final class EvenementEtape extends Event {
+        @Label("Étape")
+        String etape;
+
+        @Label("Frame")
+        int frame;
+
+        @Label("Durée")
+        @Timespan(Timespan.NANOSECONDS)
+        long duree;
+    }
+
+    /**
+     * Événement JFR d'une passe de recherche de clé.
+     */
+    @Name("org.example.PasseCrack")
+    @Label("Passe de recherche de clé")
+    @Category("VideoScramble")
+    @StackTrace(false)
+    static final class EvenementPasseCrack extends Event {
+        @Label("Clés évaluées")
+        long cles;
+
+        @Label("Clés par seconde")
+        double clesParSeconde;
+
+        @Label("Durée")
+        @Timespan(Timespan.NANOSECONDS)
+        long duree;
+    }
+
+    private static final MetriquesTraitement INSTANCE = new MetriquesTraitement();
+
+    static {
+        if (ACTIVES) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, new ObjectName(NOM_JMX));
+            } catch (JMException e) {
+                System.err.println("Métriques non publiées par JMX : " + e.getMessage());
+            }
+        }
+    }
+
+    private final HistogrammeLatence[] latences = new HistogrammeLatence[Etape.values().length];
+
+    // Remplissage des files du pipeline : dernière valeur observée et maximum
+    private volatile int fileDecodee;
+    private volatile int fileTraitee;
+    private volatile int framesEnAttente;
+    private final AtomicInteger fileDecodeeMax = new AtomicInteger();
+    private final AtomicInteger fileTraiteeMax = new AtomicInteger();
+    private final AtomicInteger framesEnAttenteMax = new AtomicInteger();
+
+    private final LongAdder framesEcrites = new LongAdder();
+    private final LongAdder framesPerdues = new LongAdder();
+    private final LongAdder framesApercuIgnorees = new LongAdder();
+
+    private final LongAdder clesEvaluees = new LongAdder();
+    private final LongAdder clesElaguees = new LongAdder();
+    private final AtomicLong dureePassesNanos = new AtomicLong();
+    private volatile double clesParSeconde;
+
+    private MetriquesTraitement() {
+        for (int i = 0; i < latences.length; i++) {
+            latences[i] = new HistogrammeLatence();
+        }
+    }
+
+    /**
+     * @return Les métriques partagées par toute l'application
+     */
+    public static MetriquesTraitement partagees() {
+        return INSTANCE;
+    }
+
+    /**
+     * Début de la mesure d'une étape.
+     *
+     * @return L'instant de début, à passer à {@link #fin(Etape, long, int)} (0 si les mesures sont désactivées)
+     */
+    static long debut() {
+        return ACTIVES ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Fin de la mesure d'une étape.
+     *
+     * @param etape     L'étape mesurée
+     * @param debut     L'instant rendu par {@link #debut()}
+     * @param frame     Le numéro de la frame, ou 0 s'il n'est pas connu
+     */
+    static void fin(Etape etape, long debut, int frame) {
+        if (!ACTIVES) return;
+        long duree = System.nanoTime() - debut;
+        INSTANCE.latences[etape.ordinal()].enregistrer(duree);
+        EvenementEtape evenement = new EvenementEtape();
+        if (evenement.isEnabled()) {
+            evenement.etape = etape.name();
+            evenement.frame = frame;
+            evenement.duree = duree;
+            evenement.commit();
+        }
+    }
+
+    /**
+     * Relève le remplissage des files du pipeline.
+     *
+     * @param decodee       Frames décodées en attente de transformation
+     * @param traitee       Frames transformées en attente d'encodage
+     * @param enAttente     Frames arrivées en avance, en attente de leur tour d'écriture
+     */
+    static void files(int decodee, int traitee, int enAttente) {
+        if (!ACTIVES) return;
+        INSTANCE.fileDecodee = decodee;
+        INSTANCE.fileTraitee = traitee;
+        INSTANCE.framesEnAttente = enAttente;
+        INSTANCE.fileDecodeeMax.accumulateAndGet(decodee, Math::max);
+        INSTANCE.fileTraiteeMax.accumulateAndGet(traitee, Math::max);
+        INSTANCE.framesEnAttenteMax.accumulateAndGet(enAttente, Math::max);
+    }
+
+    /**
+     * Compte une frame écrite dans une vidéo de sortie.
+     */
+    static void frameEcrite() {
+        if (ACTIVES) INSTANCE.framesEcrites.increment();
+    }
+
+    /**
+     * @param nbFrames  Nombre de frames décodées qui ne seront jamais écrites
+     */
+    static void framesPerdues(int nbFrames) {
+        if (ACTIVES && nbFrames > 0) INSTANCE.framesPerdues.add(nbFrames);
+    }
+
+    /**
+     * Compte une frame que l'aperçu n'affichera pas.
+     */
+    static void frameApercuIgnoree() {
+        if (ACTIVES) INSTANCE.framesApercuIgnorees.increment();
+    }
+
+    /**
+     * Fin d'une passe de recherche de clé.
+     *
+     * @param debut     L'instant rendu par {@link #debut()} au début de la passe
+     * @param nbCles    Nombre de clés évaluées pendant la passe
+     */
+    static void passeCrack(long debut, long nbCles) {
+        if (!ACTIVES) return;
+        long duree = Math.max(1, System.nanoTime() - debut);
+        double debit = nbCles * 1e9 / duree;
+        INSTANCE.clesEvaluees.add(nbCles);
+        INSTANCE.dureePassesNanos.addAndGet(duree);
+        INSTANCE.clesParSeconde = debit;
+        EvenementPasseCrack evenement = new EvenementPasseCrack();
+        if (evenement.isEnabled()) {
+            evenement.cles = nbCles;
+            evenement.clesParSeconde = debit;
+            evenement.duree = duree;
+            evenement.commit();
+        }
+    }
+
+    /**
+     * @param nbCles    Nombre de clés abandonnées avant la fin de leur score
+     */
+    static void clesElaguees(long nbCles) {
+        if (ACTIVES && nbCles > 0) INSTANCE.clesElaguees.add(nbCles);
+    }
+
+    @Override
+    public List<StatistiquesLatence> getLatences() {
+        List<StatistiquesLatence> statistiques = new ArrayList<>(latences.length);
+        for (Etape etape : Etape.values()) {
+            statistiques.add(new StatistiquesLatence(etape, latences[etape.ordinal()]));
+        }
+        return statistiques;
+    }
+
+    @Override
+    public int getFileDecodee() {
+        return fileDecodee;
+    }
+
+    @Override
+    public int getFileDecodeeMax() {
+        return fileDecodeeMax.get();
+    }
+
+    @Override
+    public int getFileTraitee() {
+        return fileTraitee;
+    }
+
+    @Override
+    public int getFileTraiteeMax() {
+        return fileTraiteeMax.get();
+    }
+
+    @Override
+    public int getFramesEnAttente() {
+        return framesEnAttente;
+    }
+
+    @Override
+    public int getFramesEnAttenteMax() {
+        return framesEnAttenteMax.get();
+    }
+
+    @Override
+    public long getFramesEcrites() {
+        return framesEcrites.sum();
+    }
+
+    @Override
+    public long getFramesPerdues() {
+        return framesPerdues.sum();
+    }
+
+    @Override
+    public long getFramesApercuIgnorees() {
+        return framesApercuIgnorees.sum();
+    }
+
+    @Override
+    public long getClesEvaluees() {
+        return clesEvaluees.sum();
+    }
+
+    @Override
+    public long getClesElaguees() {
+        return clesElaguees.sum();
+    }
+
+    @Override
+    public double getTauxElagage() {
+        long evaluees = clesEvaluees.sum();
+        return evaluees == 0 ? 0 : Math.min(1.0, (double) clesElaguees.sum() / evaluees);
+    }
+
+    @Override
+    public double getClesParSeconde() {
+        return clesParSeconde;
+    }
+
+    @Override
+    public double getClesParSecondeMoyen() {
+        long duree = dureePassesNanos.get();
+        return duree == 0 ? 0 : clesEvaluees.sum() * 1e9 / duree;
+    }
+
+    @Override
+    public void reinitialiser() {
+        for (HistogrammeLatence histogramme : latences) {
+            histogramme.reinitialiser();
+        }
+        fileDecodee = 0;
+        fileTraitee = 0;
+        framesEnAttente = 0;
+        fileDecodeeMax.set(0);
+        fileTraiteeMax.set(0);
+        framesEnAttenteMax.set(0);
+        framesEcrites.reset();
+        framesPerdues.reset();
+        framesApercuIgnorees.reset();
+        clesEvaluees.reset();
+        clesElaguees.reset();
+        dureePassesNanos.set(0);
+        clesParSeconde = 0;
+    }
+}
@@ -0,0 +1,105 @@
+/**
+ * Interface JMX des métriques
+ * Auteurs : BONNIN Simon, CARRARA Tim
+ * Groupe  : S5 - A2
+ * Date    : Octobre 2026
+ * Description : Cette interface décrit les métriques du traitement vidéo et du
+ * crack publiées par JMX, consultables avec JConsole ou VisualVM pendant qu'un
+ * traitement tourne.
+ */
+
+package org.example;
+
+import java.util.List;
+
+/**
+ * Métriques publiées sous le nom {@link MetriquesTraitement#NOM_JMX}.
+ * Les compteurs sont cumulés depuis le lancement de l'application (ou le dernier
+ * appel de {@link #reinitialiser()}), toutes vidéos et tous cracks confondus.
+ *
+ * @author BONNIN Simon, CARRARA Tim
+ * @version 1.0
+ */
+public interface MetriquesTraitementMXBean {
+
+    /**
+     * @return Les latences de chaque étape (décodage, transformation, permutation,
+     *         embarquement, écriture, aperçu)
+     */
+    List<MetriquesTraitement.StatistiquesLatence> getLatences();
+
+    /**
+     * @return Le nombre de frames décodées en attente d'un thread de transformation
+     */
+    int getFileDecodee();
+
+    /**
+     * @return Le plus grand nombre de frames décodées en attente observé
+     */
+    int getFileDecodeeMax();
+
+    /**
+     * @return Le nombre de frames transformées en attente de l'encodage
+     */
+    int getFileTraitee();
+
+    /**
+     * @return Le plus grand nombre de frames transformées en attente observé
+     */
+    int getFileTraiteeMax();
+
+    /**
+     * @return Le nombre de frames transformées arrivées en avance, en attente de leur tour d'écriture
+     */
+    int getFramesEnAttente();
+
+    /**
+     * @return Le plus grand nombre de frames en attente de leur tour observé
+     */
+    int getFramesEnAttenteMax();
+
+    /**
+     * @return Le nombre de frames écrites dans une vidéo de sortie
+     */
+    long getFramesEcrites();
+
+    /**
+     * @return Le nombre de frames décodées mais jamais écrites (transformation en échec, arrêt brutal)
+     */
+    long getFramesPerdues();
+
+    /**
+     * @return Le nombre de frames que l'aperçu n'a pas affichées parce que l'affichage prenait du retard
+     */
+    long getFramesApercuIgnorees();
+
+    /**
+     * @return Le nombre de clés évaluées par les recherches de clé
+     */
+    long getClesEvaluees();
+
+    /**
+     * @return Le nombre de clés abandonnées avant la fin de leur score (élagage)
+     */
+    long getClesElaguees();
+
+    /**
+     * @return La part des clés évaluées qui ont été élaguées, entre 0 et 1
+     */
+    double getTauxElagage();
+
+    /**
+     * @return Le débit de la dernière passe de recherche, en clés par seconde
+     */
+    double getClesParSeconde();
+
+    /**
+     * @return Le débit moyen de toutes les passes de recherche, en clés par seconde
+     */
+    double getClesParSecondeMoyen();
+
+    /**
+     * Remet à zéro tous les compteurs et histogrammes, par exemple avant de mesurer un traitement.
+     */
+    void reinitialiser();
+}
@@ -0,0 +1,210 @@
+/**
+ * Noyau de calcul des corrélations
+ * Auteurs : BONNIN Simon, CARRARA Tim
+ * Groupe  : S5 - A2
+ * Date    : Octobre 2026
+ * Description : Cette classe regroupe les boucles de calcul sur les pixels
+ * utilisées par la corrélation de Pearson (sommes, sommes des carrés,
+ * produit scalaire) et choisit à l'exécution entre une version scalaire
+ * et une version vectorielle (SIMD).
+ */
+
+package org.example;
+
+/**
+ * Noyau de calcul des sommes nécessaires à la corrélation de Pearson entre deux lignes.
+ * Toutes les sommes sont calculées en une seule passe avec des accumulateurs entiers :
+ * Σx, Σy, Σxy, Σx² et Σy², puis la corrélation vaut
+ * (nΣxy − ΣxΣy) / √((nΣx² − (Σx)²)(nΣy² − (Σy)²)).
+ * Deux implémentations existent :
+ * - scalaire : boucle simple, disponible partout
+ * - vectorielle : API Vector (jdk.incubator.vector), compilée à part (dossier src-vector)
+ *   et disponible si elle a été compilée et que la JVM est lancée avec --add-modules jdk.incubator.vector
+ * Le noyau vectoriel n'est connu que par son nom : src se compile sans le module incubateur.
+ * La propriété système "videoscramble.pearson" choisit l'implémentation :
+ * "auto" (par défaut, vectorielle si disponible), "scalaire" ou "vectoriel".
+ *
+ * @author BONNIN Simon, CARRARA Tim
+ * @version 1.0
+ */
+public abstract class NoyauCorrelation {
+
+    /**
+     * Nom de la propriété système choisissant l'implémentation.
+     */
+    public static final String PROPRIETE = "videoscramble.pearson";
+
+    private static final NoyauCorrelation SCALAIRE = new Scalaire();
+    private static final NoyauCorrelation VECTORIEL = chargerVectoriel();
+    private static final NoyauCorrelation ACTIF = choisir(System.getProperty(PROPRIETE, "auto"));
+
+    // Tableau des sommes réutilisé par chaque thread dans pearson()
+    private static final ThreadLocal<long[]> SOMMES = ThreadLocal.withInitial(() -> new long[5]);
+
+    /**
+     * @return L'implémentation choisie pour cette exécution
+     */
+    public static NoyauCorrelation actif() {
+        return ACTIF;
+    }
+
+    /**
+     * @return L'implémentation scalaire
+     */
+    public static NoyauCorrelation scalaire() {
+        return SCALAIRE;
+    }
+
+    /**
+     * @return L'implémentation vectorielle, ou null si le module jdk.incubator.vector ou la classe compilée est absent
+     */
+    public static NoyauCorrelation vectoriel() {
+        return VECTORIEL;
+    }
+
+    /**
+     * @return Le nom de l'implémentation, pour les messages et les mesures
+     */
+    public abstract String nom();
+
+    /**
+     * @return true si l'implémentation profite de vraies instructions SIMD
+     */
+    public boolean estAccelere() {
+        return false;
+    }
+
+    /**
+     * Calcule en une passe les sommes de deux lignes de même longueur.
+     *
+     * @param x         Première ligne (valeurs en bytes de 0 à 255)
+     * @param y         Seconde ligne
+     * @param resultat  Tableau d'au moins 5 cases recevant Σx, Σy, Σxy, Σx², Σy²
+     */
+    public abstract void sommes(byte[] x, byte[] y, long[] resultat);
+
+    /**
+     * Calcule les statistiques d'une ligne.
+     *
+     * @param x         La ligne (valeurs en bytes de 0 à 255)
+     * @param resultat  Tableau d'au moins 2 cases recevant Σx et Σx²
+     */
+    public abstract void statistiques(byte[] x, long[] resultat);
+
+    /**
+     * Calcule le produit scalaire Σxy de deux lignes de même longueur.
+     *
+     * @param x     Première ligne (valeurs en bytes de 0 à 255)
+     * @param y     Seconde ligne
+     * @return Le produit scalaire
+     */
+    public abstract long produitScalaire(byte[] x, byte[] y);
+
+    /**
+     * Calcule le coefficient de corrélation de Pearson entre deux lignes.
+     *
+     * @param x     Première ligne (valeurs en bytes de 0 à 255)
+     * @param y     Seconde ligne
+     * @return Le coefficient (entre -1 et +1), ou -1 si une ligne est de variance nulle
+     */
+    public double pearson(byte[] x, byte[] y) {
+        long[] s = SOMMES.get();
+        sommes(x, y, s);
+        double n = x.length;
+        double varianceX = n * s[3] - (double) s[0] * s[0];
+        double varianceY = n * s[4] - (double) s[1] * s[1];
+        // Si variance est nulle, la corrélation n'est pas définissable
+        if (varianceX <= 0 || varianceY <= 0) return -1;
+        return (n * s[2] - (double) s[0] * s[1]) / Math.sqrt(varianceX * varianceY);
+    }
+
+    /**
+     * Choisit l'implémentation demandée par la propriété système.
+     */
+    private static NoyauCorrelation choisir(String choix) {
+        switch (choix) {
+            case "scalaire":
+                return SCALAIRE;
+            case "vectoriel":
+                if (VECTORIEL == null) {
+                    System.err.println("Noyau vectoriel indisponible (src-vector non compilé ou --add-modules jdk.incubator.vector manquant), noyau scalaire utilisé");
+                    return SCALAIRE;
+                }
+                return VECTORIEL;
+            case "auto":
+                return VECTORIEL != null && VECTORIEL.estAccelere() ? VECTORIEL : SCALAIRE;
+            default:
+                System.err.println("Valeur inconnue pour " + PROPRIETE + " : " + choix + ", noyau scalaire utilisé");
+                return SCALAIRE;
+        }
+    }
+
+    /**
+     * Charge le noyau vectoriel seulement si le module incubateur est présent,
+     * pour ne jamais charger ses classes sur une JVM qui ne l'a pas.
+     * La classe peut aussi manquer si src-vector n'a pas été compilé.
+     */
+    private static NoyauCorrelation chargerVectoriel() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return null;
+        }
+        try {
+            return (NoyauCorrelation) Class.forName("org.example.NoyauVectoriel").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            System.err.println("Noyau vectoriel indisponible : " + e);
+            return null;
+        }
+    }
+
+    /**
+     * Implémentation scalaire : une boucle simple sur les pixels.
+     */
+    private static final class Scalaire extends NoyauCorrelation {
+
+        @Override
+        public String nom() {
+            return "scalaire";
+        }
+
+        @Override
+        public void sommes(byte[] x, byte[] y, long[] resultat) {
+            long sx = 0, sy = 0, sxy = 0, sxx = 0, syy = 0;
+            for (int i = 0; i < x.length; i++) {
+                // Conversion de l'octet en entier (en pixel)
+                int a = x[i] & 0xFF;
+                int b = y[i] & 0xFF;
+                sx += a;
+                sy += b;
+                sxy += a * b;
+                sxx += a * a;
+                syy += b * b;
+            }
+            resultat[0] = sx;
+            resultat[1] = sy;
+            resultat[2] = sxy;
+            resultat[3] = sxx;
+            resultat[4] = syy;
+        }
+
+        @Override
+        public void statistiques(byte[] x, long[] resultat) {
+            long sx = 0, sxx = 0;
+            for (byte octet : x) {
+                int a = octet & 0xFF;
+                sx += a;
+                sxx += a * a;
+            }
+            resultat[0] = sx;
+            resultat[1] = sxx;
+        }
+
+        @Override
+        public long produitScalaire(byte[] x, byte[] y) {
+            long produit = 0;
+            for (int i = 0; i < x.length; i++) {
+                produit += (x[i] & 0xFF) * (y[i] & 0xFF);
+            }
+            return produit;
+        }
+    }
+}
@@ -45,16 +45,18 @@ public class OpenCVUtils {
      * @return Une Image JavaFX prête à être affichée dans un ImageView,
      */
     public static Image matToImage(Mat mat) {
+        PoolTampons pool = PoolTampons.partage();
+        Mat rgb = pool.acquerirComme(mat);
+        byte[] pixels = null;
         try {
             // Conversion BGR → RGB (CORRECTION FILTRE BLEU)
-            Mat rgb = new Mat();
             Imgproc.cvtColor(mat, rgb, Imgproc.COLOR_BGR2RGB);
 
             int width = rgb.width();
             int height = rgb.height();
             int channels = rgb.channels();
 
-            byte[] pixels = new byte[width * height * channels];
+            pixels = pool.acquerirOctets(width * height * channels);
             rgb.get(0, 0, pixels);
 
             WritableImage wi = new WritableImage(width, height);
@@ -76,6 +78,10 @@ public class OpenCVUtils {
         } catch (Exception e) {
             e.printStackTrace();
             return null;
+        } finally {
+            // setPixels a recopié les pixels : les tampons retournent au pool
+            pool.restituer(rgb);
+            pool.restituerOctets(pixels);
         }
     }
 }
@@ -0,0 +1,173 @@
+/**
+ * Ordonnanceur de l'espace des clés
+ * Auteurs : BONNIN Simon, CARRARA Tim
+ * Groupe  : S5 - A2
+ * Date    : Octobre 2026
+ * Description : Cette classe distribue les clés à tester entre les threads
+ * d'un pool partagé, par petits lots pris dans un curseur commun, afin
+ * qu'aucun cœur ne reste inactif en fin de recherche.
+ */
+
+package org.example;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Répartition dynamique des clés entre threads.
+ * Au lieu d'un bloc fixe de clés par cœur, chaque thread prend le lot suivant
+ * (TAILLE_LOT clés) dans un curseur atomique partagé jusqu'à épuisement :
+ * un thread dont les clés sont vite élaguées prend simplement plus de lots.
+ * Les threads sont ceux d'un pool unique, créé au premier crack et réutilisé ensuite.
+ * Une recherche exécutée dans une {@link TacheCrack} s'arrête au lot suivant son annulation.
+ * Chaque passe de clés est comptée dans les {@link MetriquesTraitement} (clés évaluées, débit).
+ *
+ * @author BONNIN Simon, CARRARA Tim
+ * @version 1.0
+ */
+final class OrdonnanceurCles {
+
+    /**
+     * Nombre de clés prises à chaque passage dans le curseur partagé.
+     */
+    static final int TAILLE_LOT = 64;
+
+    /**
+     * Nombre de threads du pool partagé : un par cœur.
+     */
+    static final int NB_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors());
+
+    private static final AtomicInteger NUMERO_THREAD = new AtomicInteger();
+
+    // Threads démons : le pool n'empêche pas l'application de s'arrêter
+    private static final ExecutorService EXECUTEUR = Executors.newFixedThreadPool(NB_THREADS, tache -> {
+        Thread t = new Thread(tache, "crack-cles-" + NUMERO_THREAD.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * Traitement des clés par un thread.
+     *
+     * @param <E> État propre à chaque thread (tampons, meilleurs résultats locaux...)
+     */
+    interface Parcours<E> {
+        /**
+         * @return Un nouvel état, appelé une fois par thread
+         */
+        E nouvelEtat();
+
+        /**
+         * Évalue une clé.
+         *
+         * @param etat  L'état du thread appelant
+         * @param cle   La clé à évaluer
+         */
+        void evaluer(E etat, int cle);
+
+        /**
+         * Consulté avant chaque lot : permet d'arrêter la recherche avant la fin (budget épuisé...).
+         *
+         * @param clesDistribuees   Nombre de clés déjà distribuées aux threads
+         * @return true pour ne plus distribuer de lots
+         */
+        default boolean arreter(int clesDistribuees) {
+            return false;
+        }
+    }
+
+    private OrdonnanceurCles() {
+    }
+
+    /**
+     * Évalue toutes les clés en parallèle sur le pool partagé.
+     *
+     * @param nbCles    Nombre de clés à évaluer
+     * @param ordre     Ordre de parcours (ordre[i] est la i-ème clé évaluée), ou null pour 0..nbCles-1
+     * @param parcours  Le traitement appliqué à chaque clé
+     * @param <E>       Type de l'état de chaque thread
+     * @return Les états de tous les threads, une fois toutes les clés évaluées (ou la recherche arrêtée)
+     * @throws InterruptedException si le thread appelant est interrompu (la recherche est annulée)
+     * @throws ExecutionException   si l'évaluation d'une clé a échoué
+     */
+    static <E> List<E> parcourir(int nbCles, int[] ordre, Parcours<E> parcours)
+            throws InterruptedException, ExecutionException {
+        return parcourir(nbCles, ordre, parcours, true);
+    }
+
+    /**
+     * Traite toutes les lignes d'une image en parallèle sur le pool partagé (préparation d'une recherche).
+     * Comme {@link #parcourir(int, int[], Parcours)}, mais les lignes ne comptent pas
+     * dans l'avancement de la {@link TacheCrack} courante, qui ne compte que des clés.
+     *
+     * @param nbLignes  Nombre de lignes à traiter
+     * @param parcours  Le traitement appliqué à chaque ligne
+     * @param <E>       Type de l'état de chaque thread
+     * @return Les états de tous les threads
+     * @throws InterruptedException si le thread appelant est interrompu
+     * @throws ExecutionException   si le traitement d'une ligne a échoué
+     */
+    static <E> List<E> parcourirLignes(int nbLignes, Parcours<E> parcours)
+            throws InterruptedException, ExecutionException {
+        return parcourir(nbLignes, null, parcours, false);
+    }
+
+    private static <E> List<E> parcourir(int nbCles, int[] ordre, Parcours<E> parcours, boolean compterCles)
+            throws InterruptedException, ExecutionException {
+        AtomicInteger curseur = new AtomicInteger();
+        // Tâche annulable du thread appelant : annulation vérifiée à chaque lot
+        TacheCrack tache = TacheCrack.courante();
+        TacheCrack avancement = compterCles ? tache : null;
+        if (avancement != null) {
+            avancement.prevoir(nbCles);
+        }
+        // Clés réellement évaluées, pour les métriques (la passe peut s'arrêter avant la fin)
+        AtomicLong evaluees = new AtomicLong();
+        long debutPasse = MetriquesTraitement.debut();
+        List<Future<E>> futures = new ArrayList<>(NB_THREADS);
+        for (int t = 0; t < NB_THREADS; t++) {
+            futures.add(EXECUTEUR.submit(() -> {
+                E etat = parcours.nouvelEtat();
+                int debut;
+                while (!parcours.arreter(Math.min(nbCles, curseur.get())) && !Thread.currentThread().isInterrupted()
+                        && (tache == null || !tache.estAnnulee())
+                        && (debut = curseur.getAndAdd(TAILLE_LOT)) < nbCles) {
+                    int fin = Math.min(nbCles, debut + TAILLE_LOT);
+                    for (int i = debut; i < fin; i++) {
+                        parcours.evaluer(etat, ordre == null ? i : ordre[i]);
+                    }
+                    if (avancement != null) {
+                        avancement.avancer(fin - debut);
+                    }
+                    if (compterCles) {
+                        evaluees.addAndGet(fin - debut);
+                    }
+                }
+                return etat;
+            }));
+        }
+
+        List<E> etats = new ArrayList<>(NB_THREADS);
+        try {
+            for (Future<E> future : futures) {
+                etats.add(future.get());
+            }
+        } finally {
+            // En cas d'interruption ou d'erreur, les lots restants ne sont plus distribués
+            curseur.set(nbCles);
+            for (Future<E> future : futures) {
+                future.cancel(true);
+            }
+            if (compterCles) {
+                MetriquesTraitement.passeCrack(debutPasse, evaluees.get());
+            }
+        }
+        return etats;
+    }
+}
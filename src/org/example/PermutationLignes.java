@@ -11,6 +11,7 @@
 
 package org.example;
 
+import org.opencv.core.CvType;
 import org.opencv.core.Mat;
 
 /**
@@ -36,15 +37,39 @@ public class PermutationLignes {
      * @return Une nouvelle image avec les lignes permutées (chiffrée)
      */
     public static Mat scrambleFrame(Mat imageOrigine, int r, int s) {
-        // Création d'une copie de l'image d'origine pour le chiffrement
-        Mat imageCrypte = imageOrigine.clone();
-        // Récupération de la hauteur de l'image en pixel
-        int hauteurImage = imageOrigine.rows();
-        // On mélange les différentes lignes de l'image
-        scrambleBlockByPowerOfTwo(imageCrypte, imageOrigine, 0, hauteurImage, r, s);
+        // La table de permutation est construite une fois pour toute la vidéo
+        return scrambleFrame(imageOrigine, RowPermutation.of(imageOrigine.rows(), r, s));
+    }
+
+    /**
+     * Chiffre une image à partir d'une table de permutation déjà construite.
+     *
+     * @param imageOrigine      L'image source à chiffrer (OpenCV Mat)
+     * @param permutation       La permutation des lignes (même hauteur que l'image)
+     * @return Une image avec les lignes permutées (chiffrée), prise dans le {@link PoolTampons}
+     */
+    public static Mat scrambleFrame(Mat imageOrigine, RowPermutation permutation) {
+        // Pas de clone : toutes les lignes de la destination vont être écrites
+        Mat imageCrypte = PoolTampons.partage().acquerirComme(imageOrigine);
+        scrambleFrame(imageOrigine, imageCrypte, permutation);
         return imageCrypte;
     }
 
+    /**
+     * Chiffre une image dans une image destination existante.
+     * La destination est (ré)allouée seulement si sa taille ou son type ne correspondent pas :
+     * en réutilisant la même destination d'une frame à l'autre, aucune allocation n'a lieu.
+     * La destination peut être l'image source elle-même (chiffrement en place).
+     *
+     * @param imageOrigine      L'image source à chiffrer
+     * @param imageCrypte       L'image destination recevant les lignes permutées
+     * @param permutation       La permutation des lignes (même hauteur que l'image)
+     */
+    public static void scrambleFrame(Mat imageOrigine, Mat imageCrypte, RowPermutation permutation) {
+        // La ligne chiffrée j provient de la ligne d'origine inverse[j]
+        permuterLignes(imageOrigine, imageCrypte, permutation.inverse());
+    }
+
     /**
      * Mélange récursivement un bloc de lignes de l'image en utilisant des puissances de deux.
      * L'algorithme divise l'image en blocs de taille puissance de deux et applique
@@ -66,8 +91,8 @@ public class PermutationLignes {
         int p = Integer.highestOneBit(tailleImage);
         // Mélange des lignes du bloc déterminé par p
         for (int i = 0; i < p; i++) {
-            // Formule de la permutation
-            int newIndex = (r + ((2 * s + 1) * i)) % p;
+            // Formule de la permutation (masque au lieu du modulo : exact même si le produit déborde)
+            int newIndex = (r + (2 * s + 1) * i) & (p - 1);
             newIndex += debut;
             // Copie de la ligne i vers sa nouvelle position mélangée
             imageOrigine.row(debut + i).copyTo(imageCrypte.row(newIndex));
@@ -87,13 +112,90 @@ public class PermutationLignes {
      * @return L'image déchiffrée avec les lignes dans leur ordre original
      */
     public static Mat unscrambleFrame(Mat imageCrypte, int r, int s) {
-        // Création d'une copie de l'image chiffrée
-        Mat imageDecrypte = imageCrypte.clone();
-        // Appel de la méthode qui décrypte l'image
-        unscrambleBlockByPowerOfTwo(imageDecrypte, imageCrypte, 0, imageCrypte.rows(), r, s);
+        return unscrambleFrame(imageCrypte, RowPermutation.of(imageCrypte.rows(), r, s));
+    }
+
+    /**
+     * Déchiffre une image à partir d'une table de permutation déjà construite.
+     *
+     * @param imageCrypte       L'image chiffrée à déchiffrer
+     * @param permutation       La permutation des lignes utilisée au chiffrement
+     * @return L'image déchiffrée, prise dans le {@link PoolTampons}
+     */
+    public static Mat unscrambleFrame(Mat imageCrypte, RowPermutation permutation) {
+        Mat imageDecrypte = PoolTampons.partage().acquerirComme(imageCrypte);
+        unscrambleFrame(imageCrypte, imageDecrypte, permutation);
         return imageDecrypte;
     }
 
+    /**
+     * Déchiffre une image dans une image destination existante.
+     * Mêmes règles de réutilisation que {@link #scrambleFrame(Mat, Mat, RowPermutation)}.
+     *
+     * @param imageCrypte       L'image chiffrée à déchiffrer
+     * @param imageDecrypte     L'image destination recevant les lignes remises en ordre
+     * @param permutation       La permutation des lignes utilisée au chiffrement
+     */
+    public static void unscrambleFrame(Mat imageCrypte, Mat imageDecrypte, RowPermutation permutation) {
+        // La ligne d'origine i se trouve à sa position chiffrée forward[i]
+        permuterLignes(imageCrypte, imageDecrypte, permutation.forward());
+    }
+
+    /**
+     * Remet les lignes d'une image dans un ordre quelconque, sans clé
+     * (par exemple l'ordre retrouvé par {@link ReconstructionGloutonne}).
+     *
+     * @param imageCrypte       L'image chiffrée
+     * @param ordre             ordre[i] est la ligne chiffrée placée en position i
+     * @return L'image réordonnée, prise dans le {@link PoolTampons}
+     */
+    public static Mat reordonnerFrame(Mat imageCrypte, int[] ordre) {
+        Mat imageDecrypte = PoolTampons.partage().acquerirComme(imageCrypte);
+        permuterLignes(imageCrypte, imageDecrypte, ordre);
+        return imageDecrypte;
+    }
+
+    /**
+     * Recopie les lignes d'une image dans une autre selon une table d'indices :
+     * la ligne j de la destination reçoit la ligne sourceDeLigne[j] de la source.
+     * Pour les images 8 bits, toute l'image est lue en un seul appel natif, les lignes
+     * sont déplacées par System.arraycopy puis le résultat est réécrit en un seul appel,
+     * au lieu de deux traversées JNI et d'une allocation de Mat par ligne.
+     *
+     * @param source            L'image source
+     * @param destination       L'image destination (peut être la source)
+     * @param sourceDeLigne     Index de la ligne source de chaque ligne destination
+     */
+    private static void permuterLignes(Mat source, Mat destination, int[] sourceDeLigne) {
+        int hauteur = source.rows();
+        if (source.depth() != CvType.CV_8U) {
+            // Autres profondeurs : copie ligne par ligne
+            Mat origine = source == destination ? source.clone() : source;
+            destination.create(hauteur, source.cols(), source.type());
+            for (int j = 0; j < hauteur; j++) {
+                origine.row(sourceDeLigne[j]).copyTo(destination.row(j));
+            }
+            if (origine != source) origine.release();
+            return;
+        }
+
+        int octetsParLigne = source.cols() * source.channels();
+        int taille = hauteur * octetsParLigne;
+        PoolTampons pool = PoolTampons.partage();
+        byte[] pixelsSource = pool.acquerirOctets(taille);
+        byte[] pixelsDestination = pool.acquerirOctets(taille);
+
+        source.get(0, 0, pixelsSource);
+        for (int j = 0; j < hauteur; j++) {
+            System.arraycopy(pixelsSource, sourceDeLigne[j] * octetsParLigne, pixelsDestination, j * octetsParLigne, octetsParLigne);
+        }
+        destination.create(hauteur, source.cols(), source.type());
+        destination.put(0, 0, pixelsDestination);
+
+        pool.restituerOctets(pixelsSource);
+        pool.restituerOctets(pixelsDestination);
+    }
+
     /**
      * Déchiffre récursivement un bloc de lignes en appliquant la permutation inverse.
      * Calcule la permutation inverse de celle utilisée au chiffrement pour replacer
@@ -111,16 +213,10 @@ public class PermutationLignes {
         if (tailleImage <= 1) return;
 
         int p = Integer.highestOneBit(tailleImage);
-        int[] inverse = new int[p];
-        // Calcul de la permutation inverse : on réutilise la formule de chiffrement
-        // pour retrouver où chaque ligne avait été envoyée
-        for (int i = 0; i < p; i++) {
-            int newIndex = (r + ((2 * s + 1) * i)) % p;
-            inverse[newIndex] = i;
-        }
-        // Application de la permutation inverse
-        for (int newIndex = 0; newIndex < p; newIndex++) {
-            int oldIndex = inverse[newIndex];
+        // On réutilise la formule de chiffrement pour retrouver où chaque ligne
+        // avait été envoyée : pas besoin de construire la permutation inverse
+        for (int oldIndex = 0; oldIndex < p; oldIndex++) {
+            int newIndex = (r + (2 * s + 1) * oldIndex) & (p - 1);
             // On recopie chaque ligne de sa position brouillée vers sa position d'origine
             imageCrypte.row(debut + newIndex).copyTo(imageDecrypte.row(debut + oldIndex));
         }
@@ -148,13 +244,8 @@ public class PermutationLignes {
             return;
         }
         int p = Integer.highestOneBit(size);
-        int[] inverse = new int[p];
-        for (int i = 0; i < p; i++) {
-            int newIndex = (r + ((2 * s + 1) * i)) % p;
-            inverse[newIndex] = i;
-        }
-        for (int newIndex = 0; newIndex < p; newIndex++) {
-            int oldIndex = inverse[newIndex];
+        for (int oldIndex = 0; oldIndex < p; oldIndex++) {
+            int newIndex = (r + (2 * s + 1) * oldIndex) & (p - 1);
             lignesDecryptees[debut + oldIndex] = lignesCryptees[debut + newIndex];
         }
         unscrambleBlockRowsFast(lignesDecryptees, lignesCryptees, debut + p, fin, r, s);
@@ -0,0 +1,360 @@
+/**
+ * Pipeline de traitement vidéo
+ * Auteurs : BONNIN Simon, CARRARA Tim
+ * Groupe  : S5 - A2
+ * Date    : Octobre 2026
+ * Description : Cette classe enchaîne le décodage, la transformation
+ * (chiffrement ou déchiffrement) et l'encodage des frames d'une vidéo sur
+ * plusieurs threads reliés par des files bornées, au lieu d'une seule boucle
+ * séquentielle. L'ordre des frames est conservé à l'écriture.
+ */
+
+package org.example;
+
+import org.opencv.core.Mat;
+import org.opencv.videoio.VideoCapture;
+import org.opencv.videoio.VideoWriter;
+import org.opencv.videoio.Videoio;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pipeline multi-étapes : décodage → transformation (pool de threads) → remise en ordre → encodage.
+ * - un thread de décodage lit les frames de la VideoCapture
+ * - plusieurs threads appliquent la transformation en parallèle
+ * - le thread appelant remet les frames dans l'ordre et les écrit dans le VideoWriter
+ * Le nombre de frames en cours de traitement est limité par la profondeur de file :
+ * quand l'encodage ou la transformation prend du retard, le décodage attend (contre-pression).
+ * Toutes les frames doivent avoir les dimensions annoncées par la vidéo (ou, à défaut, celles de la
+ * première frame) : une frame décodée ou transformée d'une autre taille n'est ni transformée ni écrite.
+ * L'interface graphique ne fait que s'abonner aux frames écrites via un {@link Ecouteur}.
+ * Chaque étape est mesurée dans les {@link MetriquesTraitement}, avec le remplissage des files
+ * et les frames perdues.
+ *
+ * @author BONNIN Simon, CARRARA Tim
+ * @version 1.0
+ */
+public class PipelineVideo {
+
+    /**
+     * Transformation appliquée à chaque frame par les threads de travail.
+     */
+    public interface Transformation {
+        /**
+         * @param frame     La frame décodée (ne doit pas être libérée par la transformation)
+         * @param index     Numéro de la frame, à partir de 1
+         * @return Une nouvelle image transformée, ou null si la frame doit être ignorée.
+         *         Le pipeline la rend au {@link PoolTampons} une fois écrite.
+         */
+        Mat appliquer(Mat frame, int index);
+    }
+
+    /**
+     * Abonné notifié pour chaque frame écrite, dans l'ordre de la vidéo.
+     * Les images ne sont valides que pendant l'appel : elles retournent ensuite au
+     * {@link PoolTampons}, il faut les copier pour les garder.
+     */
+    public interface Ecouteur {
+        /**
+         * @param index     Numéro de la frame, à partir de 1
+         * @param entree    La frame décodée
+         * @param sortie    La frame transformée (null si la transformation a échoué)
+         */
+        void frameEcrite(int index, Mat entree, Mat sortie);
+    }
+
+    /**
+     * Frame circulant entre les étapes du pipeline.
+     */
+    private static class Travail {
+        // Marqueur de fin de flux
+        static final Travail FIN = new Travail(-1, null);
+
+        final int index;
+        final Mat entree;
+        Mat sortie;
+
+        Travail(int index, Mat entree) {
+            this.index = index;
+            this.entree = entree;
+        }
+    }
+
+    private final VideoCapture capture;
+    private final VideoWriter writer;
+    private final Transformation transformation;
+    private final int nbTravailleurs;
+    private final int profondeurFile;
+    private final List<Ecouteur> ecouteurs = new ArrayList<>();
+    private final PoolTampons pool = PoolTampons.partage();
+
+    private volatile boolean arret = false;
+    private volatile int framesLues = 0;
+    private volatile int framesEcrites = 0;
+    // Frames passées par l'encodage, écrites ou non (thread appelant uniquement)
+    private int framesSorties = 0;
+
+    /**
+     * Construit un pipeline avec le nombre de threads et la profondeur de file par défaut.
+     *
+     * @param capture           La vidéo source (lue uniquement par le thread de décodage)
+     * @param writer            La vidéo destination, ou null pour ne rien écrire
+     * @param transformation    La transformation appliquée à chaque frame
+     */
+    public PipelineVideo(VideoCapture capture, VideoWriter writer, Transformation transformation) {
+        this(capture, writer, transformation, nbTravailleursParDefaut(), 2 * nbTravailleursParDefaut() + 2);
+    }
+
+    /**
+     * Construit un pipeline.
+     *
+     * @param capture           La vidéo source (lue uniquement par le thread de décodage)
+     * @param writer            La vidéo destination, ou null pour ne rien écrire
+     * @param transformation    La transformation appliquée à chaque frame
+     * @param nbTravailleurs    Nombre de threads de transformation
+     * @param profondeurFile    Nombre maximal de frames en cours de traitement
+     */
+    public PipelineVideo(VideoCapture capture, VideoWriter writer, Transformation transformation,
+                         int nbTravailleurs, int profondeurFile) {
+        if (nbTravailleurs < 1 || profondeurFile < 1) {
+            throw new IllegalArgumentException("Le pipeline demande au moins un thread et une frame en file");
+        }
+        this.capture = capture;
+        this.writer = writer;
+        this.transformation = transformation;
+        this.nbTravailleurs = nbTravailleurs;
+        this.profondeurFile = profondeurFile;
+    }
+
+    /**
+     * @return Le nombre de threads de transformation conseillé : les cœurs restants une fois
+     *         le décodage et l'encodage servis
+     */
+    public static int nbTravailleursParDefaut() {
+        return Math.max(1, Runtime.getRuntime().availableProcessors() - 2);
+    }
+
+    /**
+     * Ajoute un abonné aux frames écrites. Doit être appelé avant {@link #executer()}.
+     *
+     * @param ecouteur  L'abonné à notifier
+     */
+    public void ajouterEcouteur(Ecouteur ecouteur) {
+        ecouteurs.add(ecouteur);
+    }
+
+    /**
+     * Demande l'arrêt du pipeline : le décodage s'arrête et les frames en cours sont vidées.
+     */
+    public void arreter() {
+        arret = true;
+    }
+
+    /**
+     * @return Le nombre de frames lues jusqu'ici
+     */
+    public int getFramesLues() {
+        return framesLues;
+    }
+
+    /**
+     * @return Le nombre de frames écrites jusqu'ici
+     */
+    public int getFramesEcrites() {
+        return framesEcrites;
+    }
+
+    /**
+     * Exécute le pipeline jusqu'à la fin de la vidéo ou jusqu'à l'arrêt.
+     * L'encodage a lieu sur le thread appelant.
+     *
+     * @throws InterruptedException si le thread appelant est interrompu
+     */
+    public void executer() throws InterruptedException {
+        // Limite le nombre total de frames en vol entre le décodage et l'encodage
+        Semaphore places = new Semaphore(profondeurFile);
+        BlockingQueue<Travail> fileDecodee = new ArrayBlockingQueue<>(profondeurFile + nbTravailleurs);
+        BlockingQueue<Travail> fileTraitee = new ArrayBlockingQueue<>(profondeurFile + nbTravailleurs);
+
+        Thread decodeur = new Thread(() -> decoder(places, fileDecodee), "pipeline-decodage");
+        decodeur.setDaemon(true);
+        ExecutorService travailleurs = Executors.newFixedThreadPool(nbTravailleurs, tache -> {
+            Thread t = new Thread(tache, "pipeline-transformation");
+            t.setDaemon(true);
+            return t;
+        });
+
+        decodeur.start();
+        for (int i = 0; i < nbTravailleurs; i++) {
+            travailleurs.execute(() -> transformer(fileDecodee, fileTraitee));
+        }
+
+        try {
+            encoder(places, fileDecodee, fileTraitee);
+        } finally {
+            arret = true;
+            // Le décodage peut attendre une place que l'encodage ne libérera plus (écriture en échec) :
+            // il est interrompu, et attendu jusqu'au bout pour que l'appelant puisse libérer la capture
+            decodeur.interrupt();
+            travailleurs.shutdownNow();
+            travailleurs.awaitTermination(5, TimeUnit.SECONDS);
+            decodeur.join();
+            // Frames restées dans les files après une interruption
+            MetriquesTraitement.framesPerdues(framesLues - framesSorties);
+        }
+    }
+
+    /**
+     * Étape de décodage : lit les frames tant qu'il reste de la place dans le pipeline.
+     */
+    private void decoder(Semaphore places, BlockingQueue<Travail> fileDecodee) {
+        int index = 0;
+        // Forme des frames de la vidéo : dimensions annoncées par la vidéo, sinon celles de la première frame
+        int lignes = (int) capture.get(Videoio.CAP_PROP_FRAME_HEIGHT);
+        int colonnes = (int) capture.get(Videoio.CAP_PROP_FRAME_WIDTH);
+        int type = 0;
+        int lues = 0;
+        try {
+            while (!arret) {
+                places.acquire();
+                // Les frames suivantes sont lues dans des images recyclées de même forme
+                Mat frame = index == 0 ? new Mat() : pool.acquerir(lignes, colonnes, type);
+                long debut = MetriquesTraitement.debut();
+                if (!capture.read(frame) || frame.empty()) {
+                    pool.restituer(frame);
+                    places.release();
+                    break;
+                }
+                lues++;
+                if (index == 0) {
+                    if (lignes <= 0 || colonnes <= 0) {
+                        lignes = frame.rows();
+                        colonnes = frame.cols();
+                    }
+                    type = frame.type();
+                }
+                if (frame.rows() != lignes || frame.cols() != colonnes || frame.type() != type) {
+                    // Frame d'une autre forme : elle n'entre ni dans le pipeline ni dans le pool
+                    System.err.println("ATTENTION : Dimensions incorrectes à la frame " + lues +
+                            " ! " + frame.cols() + "x" + frame.rows() + " vs " + colonnes + "x" + lignes);
+                    frame.release();
+                    places.release();
+                    MetriquesTraitement.framesPerdues(1);
+                    continue;
+                }
+                MetriquesTraitement.fin(MetriquesTraitement.Etape.DECODAGE, debut, index + 1);
+                index++;
+                framesLues = index;
+                fileDecodee.put(new Travail(index, frame));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            // Un marqueur de fin par thread de transformation
+            for (int i = 0; i < nbTravailleurs; i++) {
+                fileDecodee.offer(Travail.FIN);
+            }
+        }
+    }
+
+    /**
+     * Étape de transformation : applique la transformation aux frames décodées.
+     */
+    private void transformer(BlockingQueue<Travail> fileDecodee, BlockingQueue<Travail> fileTraitee) {
+        try {
+            while (true) {
+                Travail travail = fileDecodee.take();
+                if (travail == Travail.FIN) {
+                    fileTraitee.put(Travail.FIN);
+                    return;
+                }
+                long debut = MetriquesTraitement.debut();
+                try {
+                    travail.sortie = transformation.appliquer(travail.entree, travail.index);
+                    MetriquesTraitement.fin(MetriquesTraitement.Etape.TRANSFORMATION, debut, travail.index);
+                } catch (Exception e) {
+                    System.err.println("Erreur au traitement de la frame " + travail.index + " : " + e.getMessage());
+                    e.printStackTrace();
+                }
+                fileTraitee.put(travail);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Étape d'encodage : remet les frames dans l'ordre, les écrit et notifie les abonnés.
+     */
+    private void encoder(Semaphore places, BlockingQueue<Travail> fileDecodee, BlockingQueue<Travail> fileTraitee)
+            throws InterruptedException {
+        Map<Integer, Travail> enAttente = new HashMap<>();
+        int prochaine = 1;
+        int travailleursTermines = 0;
+
+        while (travailleursTermines < nbTravailleurs || !enAttente.isEmpty()) {
+            if (travailleursTermines == nbTravailleurs) {
+                // Plus rien n'arrivera : une frame manquante ne peut venir que d'un arrêt
+                prochaine = enAttente.keySet().stream().min(Integer::compare).orElse(prochaine);
+            } else {
+                Travail travail = fileTraitee.take();
+                if (travail == Travail.FIN) {
+                    travailleursTermines++;
+                    continue;
+                }
+                enAttente.put(travail.index, travail);
+                MetriquesTraitement.files(fileDecodee.size(), fileTraitee.size(), enAttente.size());
+            }
+
+            // Écriture de toutes les frames consécutives disponibles
+            Travail suivant;
+            while ((suivant = enAttente.remove(prochaine)) != null) {
+                ecrire(suivant);
+                places.release();
+                prochaine++;
+            }
+        }
+    }
+
+    /**
+     * Écrit une frame transformée, notifie les abonnés puis libère les images.
+     */
+    private void ecrire(Travail travail) {
+        framesSorties++;
+        try {
+            if (travail.sortie != null && !travail.sortie.empty()
+                    && (travail.sortie.rows() != travail.entree.rows() || travail.sortie.cols() != travail.entree.cols())) {
+                System.err.println("ATTENTION : Dimensions incorrectes à la frame " + travail.index +
+                        " ! " + travail.sortie.cols() + "x" + travail.sortie.rows() +
+                        " vs " + travail.entree.cols() + "x" + travail.entree.rows());
+                MetriquesTraitement.framesPerdues(1);
+            } else if (travail.sortie != null && !travail.sortie.empty()) {
+                if (writer != null) {
+                    long debut = MetriquesTraitement.debut();
+                    writer.write(travail.sortie);
+                    MetriquesTraitement.fin(MetriquesTraitement.Etape.ECRITURE, debut, travail.index);
+                    MetriquesTraitement.frameEcrite();
+                    framesEcrites++;
+                }
+            } else {
+                System.err.println("ERREUR : Frame traitée est vide à la frame " + travail.index);
+                MetriquesTraitement.framesPerdues(1);
+            }
+            for (Ecouteur ecouteur : ecouteurs) {
+                ecouteur.frameEcrite(travail.index, travail.entree, travail.sortie);
+            }
+        } finally {
+            pool.restituer(travail.entree);
+            pool.restituer(travail.sortie);
+        }
+    }
+}
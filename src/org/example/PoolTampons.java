@@ -0,0 +1,176 @@
+/**
+ * Pool de tampons d'images
+ * Auteurs : BONNIN Simon, CARRARA Tim
+ * Groupe  : S5 - A2
+ * Date    : Octobre 2026
+ * Description : Cette classe recycle les Mat OpenCV et les tableaux d'octets
+ * utilisés pour chaque frame, afin qu'un traitement en régime établi n'alloue
+ * plus de mémoire native ni de grands tableaux Java.
+ */
+
+package org.example;
+
+import org.opencv.core.Mat;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool de tampons réutilisables, indexé par forme (lignes, colonnes, type) pour les Mat
+ * et par taille pour les tableaux d'octets.
+ * Principe du prêt :
+ * - acquerir() fournit un tampon de la forme demandée, recyclé si possible
+ * - restituer() rend le tampon au pool ; l'appelant ne doit plus l'utiliser ensuite
+ * Le contenu d'un tampon acquis est quelconque : il doit être entièrement réécrit.
+ * La mémoire gardée en réserve est bornée : au-delà, les tampons rendus sont libérés.
+ *
+ * @author BONNIN Simon, CARRARA Tim
+ * @version 1.0
+ */
+public final class PoolTampons {
+
+    /**
+     * Mémoire maximale gardée en réserve par défaut (512 Mo),
+     * modifiable par la propriété système "videoscramble.pool.mo".
+     */
+    private static final long RESERVE_MAX_DEFAUT = Long.getLong("videoscramble.pool.mo", 512) * 1024 * 1024;
+
+    private static final PoolTampons PARTAGE = new PoolTampons(RESERVE_MAX_DEFAUT);
+
+    private final long reserveMax;
+    private final AtomicLong reserve = new AtomicLong();
+    private final Map<Long, Queue<Mat>> mats = new ConcurrentHashMap<>();
+    private final Map<Integer, Queue<byte[]>> octets = new ConcurrentHashMap<>();
+
+    /**
+     * Construit un pool.
+     *
+     * @param reserveMax    Nombre maximal d'octets gardés en réserve
+     */
+    public PoolTampons(long reserveMax) {
+        this.reserveMax = reserveMax;
+    }
+
+    /**
+     * @return Le pool partagé par le pipeline, l'affichage et l'embarquement de clé
+     */
+    public static PoolTampons partage() {
+        return PARTAGE;
+    }
+
+    /**
+     * Fournit une image de la forme demandée.
+     *
+     * @param lignes    Nombre de lignes
+     * @param colonnes  Nombre de colonnes
+     * @param type      Type OpenCV (par exemple CvType.CV_8UC3)
+     * @return Une image allouée de cette forme, au contenu quelconque
+     */
+    public Mat acquerir(int lignes, int colonnes, int type) {
+        Queue<Mat> file = mats.get(forme(lignes, colonnes, type));
+        Mat mat = file == null ? null : file.poll();
+        if (mat != null) {
+            reserve.addAndGet(-taille(mat));
+            return mat;
+        }
+        return new Mat(lignes, colonnes, type);
+    }
+
+    /**
+     * Fournit une image de même forme qu'une image modèle.
+     *
+     * @param modele    L'image dont on reprend la forme
+     * @return Une image allouée de cette forme, au contenu quelconque
+     */
+    public Mat acquerirComme(Mat modele) {
+        return acquerir(modele.rows(), modele.cols(), modele.type());
+    }
+
+    /**
+     * Rend une image au pool. Une image vide ou en trop est simplement libérée.
+     *
+     * @param mat   L'image rendue (peut être null)
+     */
+    public void restituer(Mat mat) {
+        if (mat == null) return;
+        if (mat.empty() || !reserver(taille(mat))) {
+            mat.release();
+            return;
+        }
+        mats.computeIfAbsent(forme(mat.rows(), mat.cols(), mat.type()), k -> new ConcurrentLinkedQueue<>()).offer(mat);
+    }
+
+    /**
+     * Fournit un tableau d'octets de la taille exacte demandée.
+     *
+     * @param taille    Nombre d'octets
+     * @return Un tableau de cette taille, au contenu quelconque
+     */
+    public byte[] acquerirOctets(int taille) {
+        Queue<byte[]> file = octets.get(taille);
+        byte[] tableau = file == null ? null : file.poll();
+        if (tableau != null) {
+            reserve.addAndGet(-taille);
+            return tableau;
+        }
+        return new byte[taille];
+    }
+
+    /**
+     * Rend un tableau d'octets au pool.
+     *
+     * @param tableau   Le tableau rendu (peut être null)
+     */
+    public void restituerOctets(byte[] tableau) {
+        if (tableau == null || !reserver(tableau.length)) return;
+        octets.computeIfAbsent(tableau.length, k -> new ConcurrentLinkedQueue<>()).offer(tableau);
+    }
+
+    /**
+     * @return Le nombre d'octets actuellement gardés en réserve
+     */
+    public long getReserve() {
+        return reserve.get();
+    }
+
+    /**
+     * Vide le pool et libère toutes les images en réserve.
+     */
+    public void vider() {
+        for (Queue<Mat> file : mats.values()) {
+            Mat mat;
+            while ((mat = file.poll()) != null) {
+                reserve.addAndGet(-taille(mat));
+                mat.release();
+            }
+        }
+        for (Queue<byte[]> file : octets.values()) {
+            byte[] tableau;
+            while ((tableau = file.poll()) != null) {
+                reserve.addAndGet(-tableau.length);
+            }
+        }
+    }
+
+    /**
+     * Réserve de la place dans le pool si la limite le permet.
+     */
+    private boolean reserver(long taille) {
+        while (true) {
+            long actuelle = reserve.get();
+            if (actuelle + taille > reserveMax) return false;
+            if (reserve.compareAndSet(actuelle, actuelle + taille)) return true;
+        }
+    }
+
+    private static long forme(int lignes, int colonnes, int type) {
+        return ((long) lignes << 40) | ((long) colonnes << 16) | (type & 0xFFFF);
+    }
+
+    private static long taille(Mat mat) {
+        return mat.total() * mat.elemSize();
+    }
+}
@@ -0,0 +1,422 @@
+/**
+ * Reconstruction de l'ordre des lignes sans clé
+ * Auteurs : BONNIN Simon, CARRARA Tim
+ * Groupe  : S5 - A2
+ * Date    : Octobre 2026
+ * Description : Cette classe retrouve l'ordre d'origine des lignes d'une image
+ * mélangée uniquement à partir de la ressemblance entre lignes, sans rien
+ * supposer sur la forme de la clé ni sur la taille de l'espace des clés.
+ */
+
+package org.example;
+
+import org.opencv.core.Mat;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Reconstruction gloutonne de l'ordre des lignes.
+ * L'image d'origine est vue comme un chemin passant une fois par chaque ligne, où deux
+ * lignes voisines sont très corrélées. Principe :
+ * 1. Pour chaque ligne, on garde ses VOISINS lignes les plus ressemblantes, mesurées sur
+ *    des lignes réduites en niveaux de gris (peu coûteux)
+ * 2. Chaînage glouton : les liaisons candidates sont prises de la plus forte à la plus faible
+ *    (corrélation complète), tant qu'aucune ligne n'a plus de deux voisines et qu'aucun cycle
+ *    ne se forme ; les morceaux de chemin restants sont ensuite reliés bout à bout
+ * 3. Amélioration 2-opt : on retourne des segments du chemin tant que cela augmente la somme
+ *    des corrélations entre lignes voisines, en ne testant que les voisines candidates
+ * Le coût dépend de la hauteur de l'image, pas de la taille de l'espace des clés.
+ * Le sens de lecture n'est pas identifiable : l'image peut être retrouvée à l'envers.
+ * Sur une image bruitée, beaucoup de liaisons gloutonnes relient des lignes qui ne se suivaient
+ * pas, et une image aux lignes presque identiques (dégradé, motif symétrique) n'a pas d'ordre unique :
+ * un ordre ne doit servir qu'après {@link #verifier(Mat, int[])} et, si la vidéo le permet,
+ * {@link #accord(int[], int[])} avec l'ordre retrouvé sur une autre frame.
+ *
+ * @author BONNIN Simon, CARRARA Tim
+ * @version 1.0
+ */
+public final class ReconstructionGloutonne {
+
+    /**
+     * Nombre de lignes candidates gardées comme voisines possibles de chaque ligne.
+     */
+    private static final int VOISINS = 8;
+
+    /**
+     * Largeur (pixels gris) des lignes réduites servant à choisir les voisines candidates.
+     */
+    private static final int LARGEUR_REDUITE = 256;
+
+    /**
+     * Nombre maximal de passes d'amélioration 2-opt.
+     */
+    private static final int PASSES_2OPT_MAX = 20;
+
+    /**
+     * Part de l'écart entre le fond et 1 que la corrélation moyenne des lignes voisines
+     * reconstruites doit combler, comme pour la vérification d'une clé.
+     */
+    private static final double SEUIL_VERIFICATION = 0.5;
+
+    /**
+     * Part maximale des lignes ambiguës d'un ordre vérifié (voir {@link #ambiguite(Mat, int[])}).
+     */
+    private static final double AMBIGUITE_MAX = 0.1;
+
+    /**
+     * Part minimale des liaisons retrouvées à l'identique sur deux frames de la même vidéo.
+     */
+    public static final double ACCORD_MIN = 0.9;
+
+    private ReconstructionGloutonne() {
+    }
+
+    /**
+     * Retrouve l'ordre des lignes d'une image mélangée.
+     *
+     * @param imageCryptee  L'image dont les lignes ont été permutées
+     * @return ordre[i] est la ligne de l'image chiffrée à placer en position i
+     *         (voir {@link PermutationLignes#reordonnerFrame(Mat, int[])})
+     */
+    public static int[] reconstruire(Mat imageCryptee) {
+        return reconstruire(TrouveCleBruteForce.extraireLignes(imageCryptee), imageCryptee.channels());
+    }
+
+    /**
+     * Retrouve l'ordre de lignes déjà extraites.
+     *
+     * @param lignes    Les lignes de l'image chiffrée
+     * @param canaux    Nombre de canaux par pixel
+     * @return ordre[i] est la ligne chiffrée à placer en position i
+     */
+    static int[] reconstruire(byte[][] lignes, int canaux) {
+        int n = lignes.length;
+        int[] ordre = new int[n];
+        if (n < 3) {
+            for (int i = 0; i < n; i++) ordre[i] = i;
+            return ordre;
+        }
+
+        MatriceCorrelation reduite = new MatriceCorrelation(TrouveCleBruteForce.reduireLignes(lignes, canaux, LARGEUR_REDUITE));
+        MatriceCorrelation complete = new MatriceCorrelation(lignes);
+
+        int[][] voisins = plusProchesVoisins(reduite, Math.min(VOISINS, n - 1));
+        chainer(complete, voisins, ordre);
+        ameliorer2Opt(complete, voisins, ordre);
+        return ordre;
+    }
+
+    /**
+     * Vérifie qu'un ordre reconstruit relie des lignes bien plus corrélées que des lignes
+     * quelconques (le fond : corrélation moyenne des lignes voisines de l'image chiffrée),
+     * et que presque aucune ligne n'avait d'autre voisine aussi ressemblante.
+     *
+     * @param imageCryptee  L'image dont les lignes ont été permutées
+     * @param ordre         L'ordre retrouvé par {@link #reconstruire(Mat)}
+     * @return false si l'ordre n'est pas meilleur que le mélange, s'il est ambigu,
+     *         ou si l'image est trop lisse pour conclure
+     */
+    public static boolean verifier(Mat imageCryptee, int[] ordre) {
+        byte[][] lignes = TrouveCleBruteForce.extraireLignes(imageCryptee);
+        double sommeOrdre = 0, sommeFond = 0;
+        int nbOrdre = 0, nbFond = 0;
+        for (int i = 1; i < lignes.length; i++) {
+            double c = PearsonCorrelation.pearson(lignes[ordre[i - 1]], lignes[ordre[i]]);
+            if (c > -1) {
+                sommeOrdre += c;
+                nbOrdre++;
+            }
+            double f = PearsonCorrelation.pearson(lignes[i - 1], lignes[i]);
+            if (f > -1) {
+                sommeFond += f;
+                nbFond++;
+            }
+        }
+        if (nbOrdre == 0 || nbFond == 0) return false;
+        double fond = sommeFond / nbFond;
+        // Image très lisse : lignes quelconques presque aussi corrélées que des voisines
+        if (fond > 1 - 1e-3) return false;
+        if (sommeOrdre / nbOrdre < fond + (1 - fond) * SEUIL_VERIFICATION) return false;
+        return ambiguite(imageCryptee, ordre) <= AMBIGUITE_MAX;
+    }
+
+    /**
+     * Part des lignes d'un ordre reconstruit dont une ligne hors du chemin ressemble au moins
+     * autant que la moins ressemblante de leurs voisines dans le chemin (lignes réduites).
+     * Une image où plusieurs lignes se ressemblent presque exactement (dégradé, motif symétrique)
+     * n'a pas d'ordre unique : deux frames peuvent alors s'accorder sur le même ordre faux.
+     *
+     * @param imageCryptee  L'image dont les lignes ont été permutées
+     * @param ordre         L'ordre retrouvé par {@link #reconstruire(Mat)}
+     * @return La part des lignes ambiguës, entre 0 et 1
+     */
+    static double ambiguite(Mat imageCryptee, int[] ordre) {
+        int n = ordre.length;
+        if (n < 3) return 0;
+        byte[][] reduites = TrouveCleBruteForce.reduireLignes(TrouveCleBruteForce.extraireLignes(imageCryptee),
+                imageCryptee.channels(), LARGEUR_REDUITE);
+        MatriceCorrelation correlations = new MatriceCorrelation(reduites);
+        int ambigues = 0;
+        for (int i = 0; i < n; i++) {
+            int a = ordre[i];
+            int precedente = i > 0 ? ordre[i - 1] : -1;
+            int suivante = i + 1 < n ? ordre[i + 1] : -1;
+            double lien = Math.min(precedente < 0 ? 1 : correlations.correlation(a, precedente),
+                    suivante < 0 ? 1 : correlations.correlation(a, suivante));
+            for (int c = 0; c < n; c++) {
+                if (c == a || c == precedente || c == suivante) continue;
+                if (correlations.correlation(a, c) >= lien) {
+                    ambigues++;
+                    break;
+                }
+            }
+        }
+        return (double) ambigues / n;
+    }
+
+    /**
+     * Part des liaisons entre lignes voisines d'un ordre que l'on retrouve dans un autre, dans un
+     * sens ou dans l'autre. Les frames d'une vidéo sont mélangées par la même permutation : deux
+     * reconstructions justes donnent le même chemin, au sens de lecture près, alors que les liaisons
+     * dues au bruit changent d'une frame à l'autre.
+     *
+     * @param ordreA    Un ordre retrouvé
+     * @param ordreB    L'ordre retrouvé sur une autre frame de mêmes dimensions
+     * @return La part des n-1 liaisons de ordreA présentes dans ordreB, entre 0 et 1
+     */
+    public static double accord(int[] ordreA, int[] ordreB) {
+        int n = ordreA.length;
+        if (n < 2 || ordreB.length != n) return 0;
+        int[] position = new int[n];
+        for (int i = 0; i < n; i++) position[ordreB[i]] = i;
+        int communes = 0;
+        for (int i = 1; i < n; i++) {
+            if (Math.abs(position[ordreA[i - 1]] - position[ordreA[i]]) == 1) communes++;
+        }
+        return (double) communes / (n - 1);
+    }
+
+    /**
+     * Somme des corrélations entre lignes voisines d'un ordre donné.
+     *
+     * @param correlations  La matrice de corrélation des lignes chiffrées
+     * @param ordre         L'ordre des lignes
+     * @return La somme des corrélations des n-1 paires de lignes voisines
+     */
+    static double score(MatriceCorrelation correlations, int[] ordre) {
+        double total = 0;
+        for (int i = 1; i < ordre.length; i++) {
+            total += correlations.correlation(ordre[i - 1], ordre[i]);
+        }
+        return total;
+    }
+
+    /**
+     * Calcule pour chaque ligne ses k lignes les plus corrélées, en parallèle.
+     */
+    private static int[][] plusProchesVoisins(MatriceCorrelation correlations, int k) {
+        int n = correlations.nbLignes();
+        int[][] voisins = new int[n][];
+        try {
+            // Chaque « clé » de l'ordonnanceur est ici une ligne de l'image
+            OrdonnanceurCles.parcourirLignes(n, new OrdonnanceurCles.Parcours<double[]>() {
+                @Override
+                public double[] nouvelEtat() {
+                    return new double[k];
+                }
+
+                @Override
+                public void evaluer(double[] valeurs, int i) {
+                    int[] meilleurs = new int[k];
+                    Arrays.fill(valeurs, Double.NEGATIVE_INFINITY);
+                    for (int j = 0; j < n; j++) {
+                        if (j == i) continue;
+                        double c = correlations.correlation(i, j);
+                        // Insertion dans la liste triée des k meilleures
+                        int pos = k - 1;
+                        if (c <= valeurs[pos]) continue;
+                        while (pos > 0 && valeurs[pos - 1] < c) {
+                            valeurs[pos] = valeurs[pos - 1];
+                            meilleurs[pos] = meilleurs[pos - 1];
+                            pos--;
+                        }
+                        valeurs[pos] = c;
+                        meilleurs[pos] = j;
+                    }
+                    voisins[i] = meilleurs;
+                }
+            });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            e.printStackTrace();
+        }
+        // Lignes non traitées (interruption) : aucune voisine candidate
+        for (int i = 0; i < n; i++) {
+            if (voisins[i] == null) voisins[i] = new int[0];
+        }
+        return voisins;
+    }
+
+    /**
+     * Chaînage glouton : construit un chemin passant par toutes les lignes.
+     */
+    private static void chainer(MatriceCorrelation correlations, int[][] voisins, int[] ordre) {
+        int n = voisins.length;
+        // Deux voisines au plus par ligne (-1 : aucune)
+        int[][] liens = new int[n][2];
+        for (int[] lien : liens) Arrays.fill(lien, -1);
+        int[] parent = new int[n];
+        for (int i = 0; i < n; i++) parent[i] = i;
+
+        // 1. Liaisons candidates, de la plus forte à la plus faible
+        int nbCandidates = 0;
+        for (int[] v : voisins) nbCandidates += v.length;
+        long[] aretes = new long[nbCandidates];
+        double[] poids = new double[nbCandidates];
+        int m = 0;
+        for (int i = 0; i < n; i++) {
+            for (int j : voisins[i]) {
+                aretes[m] = ((long) i << 32) | j;
+                poids[m] = correlations.correlation(i, j);
+                m++;
+            }
+        }
+        Integer[] tri = new Integer[m];
+        for (int e = 0; e < m; e++) tri[e] = e;
+        Arrays.sort(tri, (e1, e2) -> Double.compare(poids[e2], poids[e1]));
+        for (int e : tri) {
+            relier(liens, parent, (int) (aretes[e] >>> 32), (int) aretes[e]);
+        }
+
+        // 2. Les morceaux restants sont reliés par leurs extrémités les plus ressemblantes
+        int[] extremites = new int[n];
+        int nbExtremites = 0;
+        for (int i = 0; i < n; i++) {
+            if (liens[i][1] < 0) extremites[nbExtremites++] = i;
+        }
+        while (true) {
+            int meilleurA = -1, meilleurB = -1;
+            double meilleur = Double.NEGATIVE_INFINITY;
+            for (int x = 0; x < nbExtremites; x++) {
+                int a = extremites[x];
+                if (liens[a][1] >= 0) continue;
+                for (int y = x + 1; y < nbExtremites; y++) {
+                    int b = extremites[y];
+                    if (liens[b][1] >= 0 || racine(parent, a) == racine(parent, b)) continue;
+                    double c = correlations.correlation(a, b);
+                    if (c > meilleur) {
+                        meilleur = c;
+                        meilleurA = a;
+                        meilleurB = b;
+                    }
+                }
+            }
+            if (meilleurA < 0) break;
+            relier(liens, parent, meilleurA, meilleurB);
+        }
+
+        // 3. Parcours du chemin depuis une extrémité
+        int debut = 0;
+        for (int i = 0; i < n; i++) {
+            if (liens[i][1] < 0) {
+                debut = i;
+                break;
+            }
+        }
+        int precedent = -1, courant = debut;
+        for (int i = 0; i < n; i++) {
+            ordre[i] = courant;
+            int suivant = liens[courant][0] != precedent ? liens[courant][0] : liens[courant][1];
+            precedent = courant;
+            courant = suivant;
+        }
+    }
+
+    /**
+     * Ajoute la liaison a-b si les deux lignes ont encore une place et sont dans deux morceaux différents.
+     */
+    private static void relier(int[][] liens, int[] parent, int a, int b) {
+        if (liens[a][1] >= 0 || liens[b][1] >= 0) return;
+        int ra = racine(parent, a), rb = racine(parent, b);
+        if (ra == rb) return;
+        parent[ra] = rb;
+        liens[a][liens[a][0] < 0 ? 0 : 1] = b;
+        liens[b][liens[b][0] < 0 ? 0 : 1] = a;
+    }
+
+    private static int racine(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    /**
+     * Amélioration 2-opt : retourne un segment du chemin quand cela remplace deux liaisons
+     * par deux liaisons plus fortes. Seules les voisines candidates sont essayées.
+     */
+    private static void ameliorer2Opt(MatriceCorrelation correlations, int[][] voisins, int[] ordre) {
+        int n = ordre.length;
+        int[] position = new int[n];
+        for (int i = 0; i < n; i++) position[ordre[i]] = i;
+
+        for (int passe = 0; passe < PASSES_2OPT_MAX; passe++) {
+            boolean ameliore = false;
+            for (int i = 1; i < n; i++) {
+                int a = ordre[i - 1];
+                int b = ordre[i];
+                double ab = correlations.correlation(a, b);
+
+                // Retourner [i, j] : liaisons (a, c) et (b, d) au lieu de (a, b) et (c, d)
+                for (int c : voisins[a]) {
+                    int j = position[c];
+                    if (j <= i) continue;
+                    double gain = correlations.correlation(a, c) - ab;
+                    if (j + 1 < n) {
+                        int d = ordre[j + 1];
+                        gain += correlations.correlation(b, d) - correlations.correlation(c, d);
+                    }
+                    if (gain > 1e-9) {
+                        retourner(ordre, position, i, j);
+                        ameliore = true;
+                        break;
+                    }
+                }
+                b = ordre[i];
+                ab = correlations.correlation(a, b);
+
+                // Retourner [j, i-1] : liaisons (e, a) et (c, b) au lieu de (e, c) et (a, b)
+                for (int c : voisins[b]) {
+                    int j = position[c];
+                    if (j >= i - 1) continue;
+                    double gain = correlations.correlation(c, b) - ab;
+                    if (j > 0) {
+                        int e = ordre[j - 1];
+                        gain += correlations.correlation(e, a) - correlations.correlation(e, c);
+                    }
+                    if (gain > 1e-9) {
+                        retourner(ordre, position, j, i - 1);
+                        ameliore = true;
+                        break;
+                    }
+                }
+            }
+            if (!ameliore) break;
+        }
+    }
+
+    private static void retourner(int[] ordre, int[] position, int debut, int fin) {
+        while (debut < fin) {
+            int t = ordre[debut];
+            ordre[debut] = ordre[fin];
+            ordre[fin] = t;
+            position[ordre[debut]] = debut;
+            position[ordre[fin]] = fin;
+            debut++;
+            fin--;
+        }
+    }
+}
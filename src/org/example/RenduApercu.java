@@ -0,0 +1,158 @@
+/**
+ * Rendu des aperçus vidéo
+ * Auteurs : BONNIN Simon, CARRARA Tim
+ * Groupe  : S5 - A2
+ * Date    : Octobre 2026
+ * Description : Cette classe affiche des frames OpenCV dans une ImageView JavaFX
+ * à la taille de la vue, en réutilisant toujours la même WritableImage et les
+ * mêmes tampons, et en abandonnant les frames périmées quand le thread JavaFX
+ * prend du retard.
+ */
+
+package org.example;
+
+import javafx.application.Platform;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import org.opencv.core.Mat;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Rendu sans allocation d'un aperçu dans une ImageView.
+ * Côté traitement, {@link #soumettre(Mat)} réduit la frame à la taille de la vue et la convertit
+ * en BGRA dans un tampon libre ; s'il n'y en a aucun, la frame est ignorée.
+ * Côté JavaFX, une seule mise à jour est planifiée à la fois et elle n'affiche que
+ * la frame la plus récente : les frames intermédiaires sont abandonnées.
+ * La conversion et les frames abandonnées sont comptées dans les {@link MetriquesTraitement}.
+ *
+ * @author BONNIN Simon, CARRARA Tim
+ * @version 1.0
+ */
+public class RenduApercu {
+
+    /**
+     * Pixels d'une frame réduite, prêts à être copiés dans l'image JavaFX.
+     */
+    private static class Tampon {
+        byte[] pixels = new byte[0];
+        int largeur;
+        int hauteur;
+    }
+
+    private final ImageView vue;
+    private final double largeurMax;
+    private final double hauteurMax;
+
+    // Tampons libres et tampon en attente d'affichage (un seul, le plus récent)
+    private final BlockingQueue<Tampon> libres = new ArrayBlockingQueue<>(2);
+    private final AtomicReference<Tampon> enAttente = new AtomicReference<>();
+    private final AtomicBoolean affichagePlanifie = new AtomicBoolean(false);
+
+    // Images intermédiaires réutilisées (utilisées uniquement dans soumettre)
+    private final Mat reduite = new Mat();
+    private final Mat bgra = new Mat();
+
+    // Image affichée, recréée seulement si la taille change (thread JavaFX uniquement)
+    private WritableImage image;
+
+    /**
+     * Construit un rendu pour une vue.
+     *
+     * @param vue           L'ImageView à alimenter
+     * @param largeurMax    Largeur maximale de l'aperçu en pixels
+     * @param hauteurMax    Hauteur maximale de l'aperçu en pixels
+     */
+    public RenduApercu(ImageView vue, double largeurMax, double hauteurMax) {
+        this.vue = vue;
+        this.largeurMax = largeurMax;
+        this.hauteurMax = hauteurMax;
+        libres.add(new Tampon());
+        libres.add(new Tampon());
+    }
+
+    /**
+     * Soumet une frame à afficher. Peut être appelée depuis n'importe quel thread ;
+     * la frame n'est utilisée que pendant l'appel.
+     *
+     * @param frame     La frame OpenCV (BGR) à afficher
+     */
+    public synchronized void soumettre(Mat frame) {
+        if (frame == null || frame.empty()) return;
+        Tampon tampon = libres.poll();
+        if (tampon == null) {
+            // Le thread JavaFX n'a pas encore rendu les tampons : frame ignorée
+            MetriquesTraitement.frameApercuIgnoree();
+            return;
+        }
+        long debut = MetriquesTraitement.debut();
+
+        // Réduction à la taille de la vue en conservant les proportions
+        double echelle = Math.min(1.0, Math.min(largeurMax / frame.cols(), hauteurMax / frame.rows()));
+        int largeur = Math.max(1, (int) Math.round(frame.cols() * echelle));
+        int hauteur = Math.max(1, (int) Math.round(frame.rows() * echelle));
+        Mat source = frame;
+        if (largeur != frame.cols() || hauteur != frame.rows()) {
+            Imgproc.resize(frame, reduite, new Size(largeur, hauteur), 0, 0, Imgproc.INTER_AREA);
+            source = reduite;
+        }
+        // BGR → BGRA : même ordre que le format JavaFX, seul l'alpha est ajouté
+        Imgproc.cvtColor(source, bgra, frame.channels() == 1 ? Imgproc.COLOR_GRAY2BGRA : Imgproc.COLOR_BGR2BGRA);
+
+        int taille = largeur * hauteur * 4;
+        if (tampon.pixels.length != taille) {
+            tampon.pixels = new byte[taille];
+        }
+        bgra.get(0, 0, tampon.pixels);
+        tampon.largeur = largeur;
+        tampon.hauteur = hauteur;
+        MetriquesTraitement.fin(MetriquesTraitement.Etape.APERCU, debut, 0);
+
+        // La frame précédente non affichée est périmée : son tampon redevient libre
+        Tampon perime = enAttente.getAndSet(tampon);
+        if (perime != null) {
+            libres.offer(perime);
+            MetriquesTraitement.frameApercuIgnoree();
+        }
+        if (affichagePlanifie.compareAndSet(false, true)) {
+            Platform.runLater(this::afficher);
+        }
+    }
+
+    /**
+     * Efface l'aperçu. À appeler depuis le thread JavaFX.
+     */
+    public void effacer() {
+        Tampon perime = enAttente.getAndSet(null);
+        if (perime != null) {
+            libres.offer(perime);
+        }
+        vue.setImage(null);
+    }
+
+    /**
+     * Copie la frame la plus récente dans l'image affichée (thread JavaFX).
+     */
+    private void afficher() {
+        affichagePlanifie.set(false);
+        Tampon tampon = enAttente.getAndSet(null);
+        if (tampon == null) return;
+
+        if (image == null || (int) image.getWidth() != tampon.largeur || (int) image.getHeight() != tampon.hauteur) {
+            image = new WritableImage(tampon.largeur, tampon.hauteur);
+        }
+        // Alpha toujours opaque : BGRA et BGRA prémultiplié sont identiques
+        image.getPixelWriter().setPixels(0, 0, tampon.largeur, tampon.hauteur,
+                PixelFormat.getByteBgraPreInstance(), tampon.pixels, 0, tampon.largeur * 4);
+        if (vue.getImage() != image) {
+            vue.setImage(image);
+        }
+        libres.offer(tampon);
+    }
+}
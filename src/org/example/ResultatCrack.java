@@ -0,0 +1,153 @@
+/**
+ * Résultat d'une recherche de clé
+ * Auteurs : BONNIN Simon, CARRARA Tim
+ * Groupe  : S5 - A2
+ * Date    : Octobre 2026
+ * Description : Cette classe regroupe les meilleures clés trouvées par une
+ * recherche, avec leur score, pour juger de la confiance dans le résultat.
+ */
+
+package org.example;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Résultat d'une recherche de clé : les clés candidates classées par score décroissant.
+ * L'écart entre la meilleure clé et la suivante (la marge) indique la confiance
+ * que l'on peut accorder au résultat : une marge faible signale une image peu texturée
+ * ou une recherche incomplète.
+ *
+ * @author BONNIN Simon, CARRARA Tim
+ * @version 1.0
+ */
+public final class ResultatCrack {
+
+    /**
+     * Une clé candidate et son score.
+     */
+    public static final class Candidat {
+        private final int r;
+        private final int s;
+        private final double score;
+
+        /**
+         * @param r         Première clé
+         * @param s         Seconde clé
+         * @param score     Score de la clé (somme des corrélations des paires testées)
+         */
+        public Candidat(int r, int s, double score) {
+            this.r = r;
+            this.s = s;
+            this.score = score;
+        }
+
+        public int getR() {
+            return r;
+        }
+
+        public int getS() {
+            return s;
+        }
+
+        public double getScore() {
+            return score;
+        }
+
+        @Override
+        public String toString() {
+            return "(r=" + r + ", s=" + s + ", score=" + String.format("%.3f", score) + ")";
+        }
+    }
+
+    private final List<Candidat> candidats;
+    private final int nbPaires;
+    private final int clesEvaluees;
+    private final boolean complet;
+
+    /**
+     * Construit un résultat.
+     *
+     * @param candidats     Les clés candidates, dans n'importe quel ordre
+     * @param nbPaires      Nombre de paires de lignes sommées dans chaque score
+     * @param clesEvaluees  Nombre de clés évaluées par la recherche
+     * @param complet       true si tout l'espace des clés a été parcouru
+     */
+    public ResultatCrack(List<Candidat> candidats, int nbPaires, int clesEvaluees, boolean complet) {
+        List<Candidat> tries = new ArrayList<>(candidats);
+        tries.sort((a, b) -> Double.compare(b.score, a.score));
+        this.candidats = Collections.unmodifiableList(tries);
+        this.nbPaires = nbPaires;
+        this.clesEvaluees = clesEvaluees;
+        this.complet = complet;
+    }
+
+    /**
+     * @return Les clés candidates par score décroissant
+     */
+    public List<Candidat> getCandidats() {
+        return candidats;
+    }
+
+    /**
+     * @return La meilleure clé, ou null si aucune clé n'a été évaluée
+     */
+    public Candidat getMeilleur() {
+        return candidats.isEmpty() ? null : candidats.get(0);
+    }
+
+    /**
+     * @return La meilleure clé sous la forme [r, s], ou [0, 0] si aucune clé n'a été évaluée
+     */
+    public int[] getCle() {
+        Candidat meilleur = getMeilleur();
+        return meilleur == null ? new int[]{0, 0} : new int[]{meilleur.r, meilleur.s};
+    }
+
+    /**
+     * @return Le nombre de paires de lignes sommées dans chaque score
+     */
+    public int getNbPaires() {
+        return nbPaires;
+    }
+
+    /**
+     * @return Le nombre de clés évaluées par la recherche
+     */
+    public int getClesEvaluees() {
+        return clesEvaluees;
+    }
+
+    /**
+     * @return true si tout l'espace des clés a été parcouru, false si le budget a arrêté la recherche
+     */
+    public boolean estComplet() {
+        return complet;
+    }
+
+    /**
+     * @return L'écart de score entre la meilleure clé et la deuxième,
+     *         ou +∞ s'il n'y a qu'une seule clé candidate
+     */
+    public double getMarge() {
+        if (candidats.isEmpty()) return 0;
+        if (candidats.size() == 1) return Double.POSITIVE_INFINITY;
+        return candidats.get(0).score - candidats.get(1).score;
+    }
+
+    /**
+     * @return La marge ramenée à une paire de lignes (écart moyen de corrélation)
+     */
+    public double getMargeParPaire() {
+        return nbPaires == 0 ? 0 : getMarge() / nbPaires;
+    }
+
+    @Override
+    public String toString() {
+        Candidat meilleur = getMeilleur();
+        return meilleur == null ? "aucune clé"
+                : meilleur + " marge=" + String.format("%.3f", getMarge()) + " sur " + nbPaires + " paires"
+                + (complet ? "" : " (recherche partielle : " + clesEvaluees + " clés)");
+    }
+}
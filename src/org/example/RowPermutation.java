@@ -0,0 +1,144 @@
+/**
+ * Table de permutation des lignes
+ * Auteurs : BONNIN Simon, CARRARA Tim
+ * Groupe  : S5 - A2
+ * Date    : Octobre 2026
+ * Description : Cette classe représente la permutation des lignes produite par
+ * une clé (r, s) pour une hauteur d'image donnée, sous forme de deux tableaux
+ * d'indices à plat. Les tables sont construites une seule fois et gardées
+ * dans un petit cache : sur une vidéo, la clé et la hauteur ne changent pas.
+ */
+
+package org.example;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Permutation des lignes d'une image pour une hauteur et une clé (r, s) données.
+ * La permutation est celle de {@link PermutationLignes#scrambleBlockByPowerOfTwo} :
+ * découpage en blocs de taille puissance de deux et formule
+ * newIndex = (r + (2s+1) * i) mod p dans chaque bloc.
+ * - forward[i] : position dans l'image chiffrée de la ligne d'origine i
+ * - inverse[j] : ligne d'origine placée à la position j de l'image chiffrée
+ * Les tableaux retournés sont partagés : ils ne doivent pas être modifiés.
+ *
+ * @author BONNIN Simon, CARRARA Tim
+ * @version 1.0
+ */
+public final class RowPermutation {
+
+    /**
+     * Nombre maximal de permutations gardées en cache.
+     */
+    private static final int TAILLE_CACHE = 16;
+
+    /**
+     * Cache LRU des permutations, indexé par (hauteur, r, s).
+     */
+    private static final Map<Long, RowPermutation> CACHE = new LinkedHashMap<>(TAILLE_CACHE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, RowPermutation> plusAncienne) {
+            return size() > TAILLE_CACHE;
+        }
+    };
+
+    private final int hauteur;
+    private final int r;
+    private final int s;
+    private final int[] forward;
+    private final int[] inverse;
+
+    private RowPermutation(int hauteur, int r, int s) {
+        this.hauteur = hauteur;
+        this.r = r;
+        this.s = s;
+        this.forward = new int[hauteur];
+        remplirForward(forward, hauteur, r, s);
+        this.inverse = new int[hauteur];
+        for (int i = 0; i < hauteur; i++) {
+            inverse[forward[i]] = i;
+        }
+    }
+
+    /**
+     * Retourne la permutation associée à une hauteur et une clé.
+     * La permutation est construite au premier appel puis servie depuis le cache.
+     *
+     * @param hauteur   Nombre de lignes de l'image
+     * @param r         Première clé (paramètre de décalage)
+     * @param s         Seconde clé (paramètre de multiplication)
+     * @return La permutation des lignes correspondante
+     */
+    public static RowPermutation of(int hauteur, int r, int s) {
+        Long cle = ((long) hauteur << 40) | ((long) r << 20) | s;
+        synchronized (CACHE) {
+            RowPermutation permutation = CACHE.get(cle);
+            if (permutation == null) {
+                permutation = new RowPermutation(hauteur, r, s);
+                CACHE.put(cle, permutation);
+            }
+            return permutation;
+        }
+    }
+
+    /**
+     * Remplit un tableau avec la permutation forward, sans allocation ni cache.
+     * Utilisé par la recherche de clé, qui parcourt des milliers de clés différentes
+     * et réutilise le même tableau pour chacune.
+     *
+     * @param forward   Tableau destination (au moins hauteur éléments)
+     * @param hauteur   Nombre de lignes de l'image
+     * @param r         Première clé
+     * @param s         Seconde clé
+     */
+    public static void remplirForward(int[] forward, int hauteur, int r, int s) {
+        int debut = 0;
+        while (hauteur - debut > 1) {
+            int p = Integer.highestOneBit(hauteur - debut);
+            for (int i = 0; i < p; i++) {
+                // La ligne d'origine i est envoyée en (r + (2s+1) * i) mod p ; p étant une puissance de 2,
+                // le masque reste exact même si le produit dépasse un int (clés étendues)
+                forward[debut + i] = debut + ((r + (2 * s + 1) * i) & (p - 1));
+            }
+            debut += p;
+        }
+        // Une dernière ligne isolée reste à sa place
+        if (hauteur - debut == 1) forward[debut] = debut;
+    }
+
+    /**
+     * @return Le nombre de lignes couvertes par la permutation
+     */
+    public int hauteur() {
+        return hauteur;
+    }
+
+    /**
+     * @return La première clé (r)
+     */
+    public int r() {
+        return r;
+    }
+
+    /**
+     * @return La seconde clé (s)
+     */
+    public int s() {
+        return s;
+    }
+
+    /**
+     * @return Position chiffrée de chaque ligne d'origine (tableau partagé, ne pas modifier)
+     */
+    public int[] forward() {
+        return forward;
+    }
+
+    /**
+     * @return Ligne d'origine de chaque position chiffrée (tableau partagé, ne pas modifier)
+     */
+    public int[] inverse() {
+        return inverse;
+    }
+}
@@ -0,0 +1,182 @@
+/**
+ * Sélection des frames à cracker
+ * Auteurs : BONNIN Simon, CARRARA Tim
+ * Groupe  : S5 - A2
+ * Date    : Octobre 2026
+ * Description : Cette classe choisit, parmi les premières frames d'une vidéo
+ * (ou autour d'une position), celle qui se prête le mieux au crack de la clé :
+ * assez de texture dans chaque ligne et des lignes assez différentes entre elles.
+ */
+
+package org.example;
+
+import org.opencv.core.Mat;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+import org.opencv.videoio.VideoCapture;
+
+/**
+ * Choix de la frame analysée par le crack.
+ * Une frame noire, un carton de titre ou un fondu se crackent mal : la corrélation entre lignes
+ * voisines y est à peine plus forte qu'entre lignes quelconques. Chaque frame candidate est notée
+ * sur une vignette calculée par OpenCV (niveaux de gris, LARGEUR_VIGNETTE colonnes, toutes les
+ * lignes gardées : réduire la hauteur mélangerait des lignes chiffrées sans rapport) :
+ * - part des lignes analysées dont l'écart-type dépasse ECART_TYPE_MIN (lignes texturées)
+ * - fond : corrélation moyenne entre lignes éloignées de l'image chiffrée, c'est-à-dire quelconques
+ * - score = part de lignes texturées × (1 - fond) ; une frame trop sombre ou dont moins de la
+ *   moitié des lignes sont texturées est écartée
+ * Le parcours s'arrête dès qu'une frame atteint SCORE_SUFFISANT : pour une vidéo ordinaire,
+ * seule la première frame est notée.
+ *
+ * @author BONNIN Simon, CARRARA Tim
+ * @version 1.0
+ */
+public final class SelectionFrames {
+
+    /**
+     * Score d'une frame écartée (noire, unie, illisible).
+     */
+    public static final double SCORE_INVALIDE = -1;
+
+    /**
+     * Score au-delà duquel le parcours s'arrête sans noter d'autres frames.
+     */
+    private static final double SCORE_SUFFISANT = 0.35;
+
+    /**
+     * Largeur de la vignette notée.
+     */
+    private static final int LARGEUR_VIGNETTE = 160;
+
+    /**
+     * Nombre maximal de lignes analysées par frame.
+     */
+    private static final int LIGNES_ANALYSEES = 128;
+
+    /**
+     * Écart-type minimal (niveaux de gris) d'une ligne texturée.
+     */
+    private static final double ECART_TYPE_MIN = 4.0;
+
+    /**
+     * Luminosité moyenne minimale d'une frame (même seuil que l'ancienne recherche de frame non noire).
+     */
+    private static final double LUMINOSITE_MIN = 10.0;
+
+    private SelectionFrames() {
+    }
+
+    /**
+     * Lit des frames à partir de la position courante et rend la mieux notée.
+     * Une frame sur pas est notée, les autres sont seulement passées.
+     *
+     * @param capture       La vidéo, positionnée sur la première frame à considérer
+     * @param nbCandidates  Nombre maximal de frames notées
+     * @param pas           Écart entre deux frames notées (1 pour toutes les noter)
+     * @param maxFrames     Nombre maximal de frames parcourues
+     * @return Une copie de la meilleure frame, ou null si aucune frame n'est exploitable
+     */
+    public static Mat meilleureFrame(VideoCapture capture, int nbCandidates, int pas, int maxFrames) {
+        Mat frame = new Mat();
+        Mat meilleure = null;
+        double meilleurScore = SCORE_INVALIDE;
+        int meilleurIndex = -1;
+        int notees = 0;
+        for (int index = 0; index < maxFrames && notees < nbCandidates; index++) {
+            if (index % pas != 0) {
+                // Frame passée sans être convertie
+                if (!capture.grab()) break;
+                continue;
+            }
+            if (!capture.read(frame) || frame.empty()) break;
+            notees++;
+            double score = score(frame);
+            if (score > meilleurScore) {
+                if (meilleure != null) meilleure.release();
+                meilleure = frame.clone();
+                meilleurScore = score;
+                meilleurIndex = index;
+                if (score >= SCORE_SUFFISANT) break;
+            }
+        }
+        frame.release();
+        if (meilleure != null) {
+            System.out.println("Frame retenue pour le crack : +" + meilleurIndex + " (score " + String.format("%.3f", meilleurScore)
+                    + ", " + notees + " frame(s) notée(s))");
+        }
+        return meilleure;
+    }
+
+    /**
+     * Note une frame pour le crack.
+     *
+     * @param frame     La frame chiffrée
+     * @return Le score entre 0 et 1, ou SCORE_INVALIDE si la frame n'est pas exploitable
+     */
+    public static double score(Mat frame) {
+        if (frame.rows() < 2) return SCORE_INVALIDE;
+        // Vignette : réduction horizontale et conversion en niveaux de gris faites par OpenCV
+        Mat vignette = new Mat();
+        Mat gris = new Mat();
+        try {
+            Imgproc.resize(frame, vignette, new Size(Math.min(LARGEUR_VIGNETTE, frame.cols()), frame.rows()), 0, 0, Imgproc.INTER_AREA);
+            if (vignette.channels() > 1) {
+                Imgproc.cvtColor(vignette, gris, Imgproc.COLOR_BGR2GRAY);
+            } else {
+                vignette.copyTo(gris);
+            }
+            if (gris.empty()) return SCORE_INVALIDE;
+
+            // Seules les lignes analysées sont lues
+            int nbLignes = Math.min(LIGNES_ANALYSEES, gris.rows());
+            byte[][] lignes = new byte[nbLignes][gris.cols()];
+            for (int k = 0; k < nbLignes; k++) {
+                gris.get((int) ((long) k * gris.rows() / nbLignes), 0, lignes[k]);
+            }
+            return score(lignes);
+        } finally {
+            vignette.release();
+            gris.release();
+        }
+    }
+
+    /**
+     * Note des lignes en niveaux de gris prises dans une frame chiffrée.
+     *
+     * @param lignes    Lignes analysées, dans l'ordre de la frame
+     * @return Le score entre 0 et 1, ou SCORE_INVALIDE si la frame n'est pas exploitable
+     */
+    static double score(byte[][] lignes) {
+        int nbLignes = lignes.length;
+        if (nbLignes < 2 || lignes[0].length < 2) return SCORE_INVALIDE;
+
+        double sommeLuminosite = 0;
+        int texturees = 0;
+        for (byte[] ligne : lignes) {
+            long somme = 0, sommeCarres = 0;
+            for (byte octet : ligne) {
+                int v = octet & 0xFF;
+                somme += v;
+                sommeCarres += v * v;
+            }
+            double moyenne = (double) somme / ligne.length;
+            double variance = (double) sommeCarres / ligne.length - moyenne * moyenne;
+            sommeLuminosite += moyenne;
+            if (variance >= ECART_TYPE_MIN * ECART_TYPE_MIN) texturees++;
+        }
+        if (sommeLuminosite / nbLignes <= LUMINOSITE_MIN) return SCORE_INVALIDE;
+        double partTexturee = (double) texturees / nbLignes;
+        if (partTexturee < 0.5) return SCORE_INVALIDE;
+
+        // Fond : chaque ligne avec la ligne analysée à mi-distance (lignes chiffrées sans rapport)
+        double sommeFond = 0;
+        int moitie = nbLignes / 2;
+        for (int k = 0; k < moitie; k++) {
+            double p = PearsonCorrelation.pearson(lignes[k], lignes[k + moitie]);
+            // Ligne sans variance : la paire ne distingue rien, comptée comme parfaitement corrélée
+            sommeFond += p <= -1 ? 1.0 : Math.max(0, p);
+        }
+        double fond = sommeFond / moitie;
+        return partTexturee * (1 - fond);
+    }
+}
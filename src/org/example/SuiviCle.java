@@ -0,0 +1,308 @@
+/**
+ * Suivi de la clé d'une frame à l'autre
+ * Auteurs : BONNIN Simon, CARRARA Tim
+ * Groupe  : S5 - A2
+ * Date    : Octobre 2026
+ * Description : Cette classe vérifie à chaque frame, pour un coût très faible,
+ * que la clé crackée déchiffre toujours la vidéo, et ne relance un crack que
+ * lorsque la vérification échoue (vidéos mises bout à bout, changement de clé).
+ */
+
+package org.example;
+
+import org.opencv.core.Mat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Suivi de la clé au fil des frames.
+ * Vérification d'une clé sur une frame :
+ * - score de la clé : corrélation moyenne de PAIRES_VERIFICATION paires de lignes voisines
+ *   de l'image déchiffrée, réparties sur la hauteur (seules ces lignes sont lues)
+ * - fond : corrélation moyenne des mêmes lignes avec leur voisine dans l'image chiffrée,
+ *   c'est-à-dire des lignes sans rapport entre elles
+ * - une paire dont une ligne est peu texturée (bande noire, bord sombre : écart-type sous
+ *   ECART_TYPE_MIN) ne dit rien et n'est pas comptée
+ * - la clé est acceptée si son score comble au moins SEUIL_VERIFICATION de l'écart entre le fond et 1,
+ *   comme la vérification de la résolution algébrique
+ * - coupure : avec le bon s mais un mauvais r, presque toutes les paires lues relient encore de
+ *   vraies voisines. La clé est donc aussi comparée aux deux rotations voisines (la même suite
+ *   de lignes décalée d'une position) : dans le plus grand bloc, elles ne diffèrent de la clé que
+ *   par le passage de la dernière ligne à la première, qui doit être moins corrélé que les deux
+ *   paires qu'il remplacerait. Cette comparaison ne porte que sur trois paires : elle ne compte
+ *   que si les quatre lignes en jeu sont texturées, si la coupure ou les deux paires remplacées
+ *   dépassent nettement le fond, et si elles s'écartent nettement l'une de l'autre. Sinon (bandes
+ *   noires, bords sombres, haut et bas de l'image semblables), la clé est gardée sans être confirmée
+ * Quand la clé courante échoue, les clés déjà rencontrées sont essayées d'abord, puis la frame
+ * est crackée. Une frame sans texture (noire, unie) ne permet pas de conclure : la clé est gardée.
+ * Les frames peuvent être vérifiées en parallèle et dans le désordre : seul le changement de clé
+ * est synchronisé, et une frame de l'ancienne séquence retrouve l'ancienne clé sans nouveau crack.
+ *
+ * @author BONNIN Simon, CARRARA Tim
+ * @version 1.0
+ */
+public class SuiviCle {
+
+    /**
+     * Nombre de paires de lignes lues pour vérifier une clé.
+     */
+    private static final int PAIRES_VERIFICATION = 24;
+
+    /**
+     * Part de l'écart entre le fond et 1 que le score de la clé doit combler.
+     */
+    private static final double SEUIL_VERIFICATION = 0.5;
+
+    /**
+     * Écart-type minimal (niveaux de gris) d'une ligne texturée, comme pour {@link SelectionFrames}.
+     */
+    private static final double ECART_TYPE_MIN = 4.0;
+
+    /**
+     * Écart minimal entre la coupure et les paires qu'elle remplace, en part de la distance
+     * à 1 de la plus corrélée des deux, pour que la coupure départage la clé de ses rotations.
+     */
+    private static final double MARGE_COUPURE = 0.5;
+
+    /**
+     * Nombre de clés déjà rencontrées gardées pour être réessayées.
+     */
+    private static final int CLES_CONNUES_MAX = 8;
+
+    /**
+     * Nombre minimal de frames entre deux cracks qui n'ont pas abouti à une clé vérifiée.
+     */
+    private static final int FRAMES_ENTRE_CRACKS = 25;
+
+    /**
+     * Crack d'une frame dont la clé a changé.
+     */
+    public interface Crack {
+        /**
+         * @param frame     La frame chiffrée
+         * @return La clé [r, s] trouvée
+         * @throws Exception si le crack échoue ou est annulé
+         */
+        int[] cracker(Mat frame) throws Exception;
+    }
+
+    /**
+     * Abonné aux changements de clé.
+     */
+    public interface Ecouteur {
+        /**
+         * Appelé quand la clé change, depuis le thread qui traite la frame.
+         *
+         * @param index     Numéro de la frame où le changement a été détecté
+         */
+        void nouvelleCle(int index, int r, int s);
+    }
+
+    /**
+     * Résultat de la vérification d'une clé sur une frame.
+     */
+    enum Verdict {
+        VALIDE, INVALIDE, INDETERMINE
+    }
+
+    private final Crack crack;
+    private final Ecouteur ecouteur;
+    // Clé courante sous la forme r | s << 16 (lue sans verrou par les threads de transformation)
+    private volatile int cleCourante;
+    // Clés déjà rencontrées, la plus récente en premier
+    private final List<Integer> clesConnues = new ArrayList<>();
+    private int indexDernierEchec = Integer.MIN_VALUE / 2;
+    private int nbCracks = 0;
+
+    /**
+     * @param r         Première clé de départ
+     * @param s         Seconde clé de départ
+     * @param crack     Crack lancé quand aucune clé connue ne convient
+     * @param ecouteur  Abonné aux changements de clé, ou null
+     */
+    public SuiviCle(int r, int s, Crack crack, Ecouteur ecouteur) {
+        this.cleCourante = r | (s << 16);
+        this.clesConnues.add(cleCourante);
+        this.crack = crack;
+        this.ecouteur = ecouteur;
+    }
+
+    /**
+     * Donne la clé à utiliser pour une frame, en la vérifiant au passage.
+     * Peut être appelée depuis plusieurs threads.
+     *
+     * @param frame     La frame chiffrée
+     * @param index     Numéro de la frame
+     * @return La clé [r, s] qui déchiffre la frame
+     */
+    public int[] cle(Mat frame, int index) {
+        int cle = cleCourante;
+        if (verifier(frame, cle & 0xFFFF, cle >> 16) != Verdict.INVALIDE) {
+            return new int[]{cle & 0xFFFF, cle >> 16};
+        }
+        synchronized (this) {
+            cle = changerDeCle(frame, index);
+        }
+        return new int[]{cle & 0xFFFF, cle >> 16};
+    }
+
+    /**
+     * @return Le nombre de cracks relancés depuis le début du suivi
+     */
+    public synchronized int getNbCracks() {
+        return nbCracks;
+    }
+
+    /**
+     * La clé courante a échoué sur cette frame : essaie les clés connues, puis un crack.
+     * Appelée sous verrou.
+     */
+    private int changerDeCle(Mat frame, int index) {
+        // Clés connues (dont la clé courante, peut-être changée entre temps par un autre thread)
+        for (int connue : clesConnues) {
+            if (verifier(frame, connue & 0xFFFF, connue >> 16) == Verdict.VALIDE) {
+                return adopter(connue, index);
+            }
+        }
+        // Crack récemment infructueux : on garde la clé courante plutôt que cracker chaque frame
+        if (index - indexDernierEchec < FRAMES_ENTRE_CRACKS) {
+            return cleCourante;
+        }
+
+        nbCracks++;
+        System.out.println("Frame " + index + " : la clé (r=" + (cleCourante & 0xFFFF) + ", s=" + (cleCourante >> 16)
+                + ") ne déchiffre plus la vidéo, nouveau crack");
+        try {
+            int[] trouvee = crack.cracker(frame);
+            int cle = trouvee[0] | (trouvee[1] << 16);
+            if (verifier(frame, trouvee[0], trouvee[1]) != Verdict.INVALIDE) {
+                return adopter(cle, index);
+            }
+            System.out.println("Frame " + index + " : clé (r=" + trouvee[0] + ", s=" + trouvee[1] + ") non vérifiée, clé précédente gardée");
+        } catch (Exception e) {
+            System.err.println("Frame " + index + " : nouveau crack impossible : " + e.getMessage());
+        }
+        indexDernierEchec = index;
+        return cleCourante;
+    }
+
+    /**
+     * Fait d'une clé vérifiée la clé courante. Appelée sous verrou.
+     */
+    private int adopter(int cle, int index) {
+        clesConnues.remove((Integer) cle);
+        clesConnues.add(0, cle);
+        if (clesConnues.size() > CLES_CONNUES_MAX) {
+            clesConnues.remove(clesConnues.size() - 1);
+        }
+        if (cle != cleCourante) {
+            cleCourante = cle;
+            System.out.println("Frame " + index + " : nouvelle clé r=" + (cle & 0xFFFF) + ", s=" + (cle >> 16));
+            if (ecouteur != null) {
+                ecouteur.nouvelleCle(index, cle & 0xFFFF, cle >> 16);
+            }
+        }
+        return cle;
+    }
+
+    /**
+     * Vérifie une clé sur une frame en ne lisant que quelques lignes.
+     *
+     * @param frame     La frame chiffrée
+     * @param r         Première clé
+     * @param s         Seconde clé
+     * @return VALIDE, INVALIDE, ou INDETERMINE si la frame n'a pas assez de texture pour conclure
+     *         (y compris autour de la coupure, quand le score de la clé est bon)
+     */
+    static Verdict verifier(Mat frame, int r, int s) {
+        int hauteur = frame.rows();
+        if (hauteur < 3) return Verdict.INDETERMINE;
+        int[] forward = RowPermutation.of(hauteur, r, s).forward();
+        int octetsParLigne = frame.cols() * frame.channels();
+        byte[] a = new byte[octetsParLigne];
+        byte[] b = new byte[octetsParLigne];
+        byte[] c = new byte[octetsParLigne];
+
+        int nbPaires = Math.min(PAIRES_VERIFICATION, hauteur - 1);
+        double sommeCle = 0, sommeFond = 0;
+        int valides = 0;
+        for (int k = 0; k < nbPaires; k++) {
+            int i = (int) ((long) k * (hauteur - 1) / nbPaires);
+            int ligne = forward[i];
+            // Voisine dans l'image chiffrée : sans rapport avec la ligne, sauf clé identité
+            int voisineChiffree = ligne + 1 < hauteur ? ligne + 1 : ligne - 1;
+            frame.get(ligne, 0, a);
+            frame.get(forward[i + 1], 0, b);
+            frame.get(voisineChiffree, 0, c);
+            // Lignes peu texturées (variance nulle, bandes noires) : la paire ne dit rien
+            if (!texturee(a) || !texturee(b) || !texturee(c)) continue;
+            double pCle = PearsonCorrelation.pearson(a, b);
+            double pFond = PearsonCorrelation.pearson(a, c);
+            sommeCle += pCle;
+            sommeFond += pFond;
+            valides++;
+        }
+        if (valides < nbPaires / 2) return Verdict.INDETERMINE;
+
+        double scoreCle = sommeCle / valides;
+        double fond = sommeFond / valides;
+        // Image très lisse : lignes quelconques presque aussi corrélées que des voisines
+        if (fond > 1 - 1e-3) return Verdict.INDETERMINE;
+        if (scoreCle < fond + (1 - fond) * SEUIL_VERIFICATION) return Verdict.INVALIDE;
+        return coupure(frame, forward, fond, a, b);
+    }
+
+    /**
+     * Compare la clé à ses deux rotations voisines. Dans le plus grand bloc (p lignes), la clé
+     * place les lignes L0 … Lp-1 du cycle x → x + 2s+1 ; la rotation suivante place L1 … Lp-1, L0
+     * et la précédente Lp-1, L0 … Lp-2. Sur les paires (L0, L1), (Lp-2, Lp-1) et (Lp-1, L0),
+     * la clé ne l'emporte sur les deux que si (Lp-1, L0), la coupure, est la moins corrélée.
+     *
+     * @param forward   Ordre des lignes de la clé
+     * @param fond      Corrélation moyenne de lignes sans rapport, mesurée par la vérification
+     * @param a         Tampon d'une ligne
+     * @param b         Tampon d'une ligne
+     * @return INVALIDE si une rotation voisine obtient un meilleur score, VALIDE si la clé
+     *         l'emporte, INDETERMINE si la comparaison n'est pas parlante : une des quatre lignes
+     *         est peu texturée, ni la coupure ni les deux paires remplacées ne dépassent nettement
+     *         le fond, ou elles sont trop proches l'une de l'autre pour être départagées
+     */
+    private static Verdict coupure(Mat frame, int[] forward, double fond, byte[] a, byte[] b) {
+        int p = Integer.highestOneBit(frame.rows());
+        if (p < 4) return Verdict.VALIDE;
+        frame.get(forward[p - 1], 0, a);
+        frame.get(forward[0], 0, b);
+        if (!texturee(a) || !texturee(b)) return Verdict.INDETERMINE;
+        double coupure = PearsonCorrelation.pearson(a, b);
+        frame.get(forward[1], 0, a);
+        if (!texturee(a)) return Verdict.INDETERMINE;
+        double debut = PearsonCorrelation.pearson(b, a);
+        frame.get(forward[p - 2], 0, a);
+        frame.get(forward[p - 1], 0, b);
+        if (!texturee(a)) return Verdict.INDETERMINE;
+        double fin = PearsonCorrelation.pearson(a, b);
+        double remplacees = Math.min(debut, fin);
+        double haute = Math.max(coupure, remplacees);
+        if (haute < fond + (1 - fond) * SEUIL_VERIFICATION) return Verdict.INDETERMINE;
+        // Première et dernière lignes de l'image presque aussi semblables que des voisines
+        if (Math.abs(coupure - remplacees) < MARGE_COUPURE * (1 - haute)) return Verdict.INDETERMINE;
+        return coupure < remplacees ? Verdict.VALIDE : Verdict.INVALIDE;
+    }
+
+    /**
+     * @param ligne     Une ligne de pixels (tous canaux)
+     * @return true si l'écart-type des octets de la ligne atteint ECART_TYPE_MIN
+     */
+    private static boolean texturee(byte[] ligne) {
+        long somme = 0, sommeCarres = 0;
+        for (byte octet : ligne) {
+            int v = octet & 0xFF;
+            somme += v;
+            sommeCarres += v * v;
+        }
+        double moyenne = (double) somme / ligne.length;
+        double variance = (double) sommeCarres / ligne.length - moyenne * moyenne;
+        return variance >= ECART_TYPE_MIN * ECART_TYPE_MIN;
+    }
+}
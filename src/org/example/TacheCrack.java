@@ -0,0 +1,178 @@
+/**
+ * Crack de clé annulable
+ * Auteurs : BONNIN Simon, CARRARA Tim
+ * Groupe  : S5 - A2
+ * Date    : Octobre 2026
+ * Description : Cette classe exécute une recherche de clé que l'on peut
+ * annuler à tout moment (bouton Arrêter) et qui signale régulièrement le
+ * nombre de clés évaluées et le temps restant estimé.
+ */
+
+package org.example;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Recherche de clé annulable, avec suivi de l'avancement.
+ * Toute recherche lancée par {@link #executer(Callable)} (force brute, multi-résolution,
+ * consensus...) est rattachée à la tâche : les threads de recherche
+ * ({@link OrdonnanceurCles}) vérifient l'annulation avant chaque lot de clés
+ * et comptent les clés évaluées.
+ * {@link #annuler()} peut être appelée depuis n'importe quel thread : les threads de recherche
+ * s'arrêtent au lot suivant et le thread qui attend la recherche est interrompu,
+ * les cœurs sont libérés aussitôt.
+ * L'avancement est envoyé à l'{@link EcouteurCrack} au plus toutes les PERIODE_PROGRESSION_MS,
+ * depuis les threads de recherche. Le total est la somme des clés de toutes les passes
+ * commencées : il peut grandir quand une nouvelle passe démarre.
+ *
+ * @author BONNIN Simon, CARRARA Tim
+ * @version 1.0
+ */
+public final class TacheCrack {
+
+    /**
+     * Intervalle minimal entre deux événements d'avancement.
+     */
+    private static final long PERIODE_PROGRESSION_MS = 250;
+
+    /**
+     * Tâche à laquelle les recherches du thread courant sont rattachées.
+     */
+    private static final ThreadLocal<TacheCrack> COURANTE = new ThreadLocal<>();
+
+    private final EcouteurCrack ecouteur;
+    private volatile boolean annulee = false;
+    // Thread qui exécute la recherche (interrompu par l'annulation)
+    private Thread executant;
+
+    private final AtomicLong clesPrevues = new AtomicLong();
+    private final AtomicLong clesEvaluees = new AtomicLong();
+    private final AtomicLong dernierEnvoi = new AtomicLong();
+    // Début de la première passe de clés : le temps restant ne tient pas compte de la préparation
+    private final AtomicLong debutNanos = new AtomicLong();
+
+    /**
+     * @param ecouteur  Abonné à l'avancement, ou null
+     */
+    public TacheCrack(EcouteurCrack ecouteur) {
+        this.ecouteur = ecouteur != null ? ecouteur : new EcouteurCrack() {};
+    }
+
+    /**
+     * Exécute une recherche sur le thread appelant, rattachée à cette tâche.
+     *
+     * @param crack     La recherche, par exemple {@code () -> TrouveCleBruteForce.crackAnalytique(frame)}
+     * @param <T>       Type du résultat
+     * @return Le résultat de la recherche
+     * @throws CancellationException si la tâche a été annulée (avant ou pendant la recherche)
+     * @throws Exception             si la recherche a échoué
+     */
+    public <T> T executer(Callable<T> crack) throws Exception {
+        synchronized (this) {
+            if (annulee) throw new CancellationException("Crack annulé");
+            executant = Thread.currentThread();
+        }
+        TacheCrack precedente = COURANTE.get();
+        COURANTE.set(this);
+        dernierEnvoi.set(System.nanoTime());
+        try {
+            T resultat = crack.call();
+            if (annulee) throw new CancellationException("Crack annulé");
+            return resultat;
+        } finally {
+            COURANTE.set(precedente);
+            synchronized (this) {
+                executant = null;
+            }
+            if (annulee) {
+                // L'interruption venait de l'annulation : elle ne doit pas gêner la suite du thread
+                Thread.interrupted();
+            }
+        }
+    }
+
+    /**
+     * Annule la recherche : les threads de recherche s'arrêtent au lot suivant.
+     * Sans effet si la recherche est terminée.
+     */
+    public void annuler() {
+        synchronized (this) {
+            annulee = true;
+            if (executant != null) {
+                executant.interrupt();
+            }
+        }
+    }
+
+    /**
+     * @return true si la tâche a été annulée
+     */
+    public boolean estAnnulee() {
+        return annulee;
+    }
+
+    /**
+     * @return Le nombre de clés évaluées jusqu'ici, toutes passes confondues
+     */
+    public long getClesEvaluees() {
+        return clesEvaluees.get();
+    }
+
+    /**
+     * @return La tâche rattachée au thread courant, ou null
+     */
+    static TacheCrack courante() {
+        return COURANTE.get();
+    }
+
+    /**
+     * Rattache une recherche lancée sur un autre thread à la tâche du thread appelant.
+     *
+     * @param crack     La recherche à exécuter sur un autre thread
+     * @param <T>       Type du résultat
+     * @return La recherche, rattachée à la tâche courante (inchangée s'il n'y en a pas)
+     */
+    static <T> Callable<T> propager(Callable<T> crack) {
+        TacheCrack tache = COURANTE.get();
+        if (tache == null) return crack;
+        return () -> {
+            TacheCrack precedente = COURANTE.get();
+            COURANTE.set(tache);
+            try {
+                return crack.call();
+            } finally {
+                COURANTE.set(precedente);
+            }
+        };
+    }
+
+    /**
+     * Signale le début d'une passe de recherche.
+     *
+     * @param nbCles    Nombre de clés de la passe
+     */
+    void prevoir(int nbCles) {
+        debutNanos.compareAndSet(0, System.nanoTime());
+        clesPrevues.addAndGet(nbCles);
+    }
+
+    /**
+     * Compte des clés évaluées et envoie l'avancement si la période est écoulée.
+     *
+     * @param nbCles    Nombre de clés évaluées depuis le dernier appel
+     */
+    void avancer(int nbCles) {
+        long faites = clesEvaluees.addAndGet(nbCles);
+        long maintenant = System.nanoTime();
+        long dernier = dernierEnvoi.get();
+        if (maintenant - dernier < PERIODE_PROGRESSION_MS * 1_000_000L || !dernierEnvoi.compareAndSet(dernier, maintenant)) {
+            return;
+        }
+        long prevues = Math.max(faites, clesPrevues.get());
+        long ecouleMs = (maintenant - debutNanos.get()) / 1_000_000L;
+        long resteMs = faites == 0 ? -1 : ecouleMs * (prevues - faites) / faites;
+        ecouteur.progression((int) Math.min(Integer.MAX_VALUE, faites), (int) Math.min(Integer.MAX_VALUE, prevues), resteMs);
+    }
+}
@@ -0,0 +1,704 @@
+/**
+ * Traitement complet d'une vidéo
+ * Auteurs : BONNIN Simon, CARRARA Tim
+ * Groupe  : S5 - A2
+ * Date    : Octobre 2026
+ * Description : Cette classe regroupe le traitement d'une vidéo (chiffrement,
+ * déchiffrement, clé embarquée, crack de clé) indépendamment de l'interface
+ * graphique. Elle est utilisée aussi bien par l'application JavaFX que par
+ * le mode ligne de commande.
+ */
+
+package org.example;
+
+import org.opencv.core.Mat;
+import org.opencv.core.Size;
+import org.opencv.videoio.VideoCapture;
+import org.opencv.videoio.VideoWriter;
+import org.opencv.videoio.Videoio;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Traitement d'un fichier vidéo, sans dépendance à JavaFX.
+ * Les paramètres reprennent ceux de l'application :
+ * - mode "-e" (chiffrement) ou "-d" (déchiffrement)
+ * - clé (r, s), embarquement ou extraction de la clé, crack de la clé
+ * - ou reconstruction de l'ordre des lignes sans clé ({@link ReconstructionGloutonne})
+ * L'avancement est remonté à un {@link Ecouteur}, appelé depuis les threads de traitement :
+ * c'est à l'abonné de repasser sur son propre thread (par exemple le thread JavaFX).
+ *
+ * @author BONNIN Simon, CARRARA Tim
+ * @version 1.0
+ */
+public class TraitementVideo {
+
+    /**
+     * Abonné à l'avancement d'un traitement. Toutes les méthodes sont optionnelles.
+     */
+    public interface Ecouteur {
+        /**
+         * Appelé une fois la vidéo ouverte.
+         */
+        default void videoOuverte(double fps, int totalFrames) {}
+
+        /**
+         * Appelé quand l'étape en cours change (crack, déchiffrement...).
+         */
+        default void statut(String message) {}
+
+        /**
+         * Appelé quand la clé utilisée est connue (crackée ou extraite).
+         *
+         * @param libelle   Origine de la clé, par exemple "Clé trouvée"
+         */
+        default void cleConnue(String libelle, int r, int s) {}
+
+        /**
+         * Appelé pour chaque frame écrite, dans l'ordre. Les images ne sont valides que pendant l'appel.
+         */
+        default void frameEcrite(int index, int totalFrames, Mat entree, Mat sortie) {}
+
+        /**
+         * Appelé toutes les 30 frames avec la vitesse de traitement mesurée.
+         */
+        default void vitesse(double fps, int index, int totalFrames) {}
+
+        /**
+         * Appelé régulièrement pendant le crack de la clé.
+         *
+         * @param resteMs   Temps restant estimé en millisecondes, ou -1 s'il n'est pas encore connu
+         */
+        default void progressionCrack(int clesEvaluees, int totalCles, long resteMs) {}
+    }
+
+    /**
+     * Nombre maximal de frames notées pour choisir la frame du crack ({@link SelectionFrames}).
+     */
+    private static final int CANDIDATES_CRACK = 12;
+
+    /**
+     * Écart entre deux frames notées au début de la vidéo.
+     */
+    private static final int PAS_CANDIDATES = 8;
+
+    /**
+     * Nombre maximal de frames notées autour de chaque position du crack par consensus.
+     */
+    private static final int CANDIDATES_CONSENSUS = 4;
+
+    /**
+     * Nombre de frames reconstruites pour vérifier l'ordre des lignes retrouvé sans clé.
+     */
+    private static final int FRAMES_RECONSTRUCTION = 2;
+
+    private final String inputPath;
+    private final String outputPath;
+    private String mode;
+    // Clé courante [r, s] : remplacée d'un bloc (jamais modifiée), car les threads de
+    // transformation la changent après une extraction ou un nouveau crack
+    private volatile int[] cle;
+    private boolean embedKey = false;
+    private boolean extractKey = false;
+    private boolean crackKey = false;
+    private boolean reconstruction = false;
+    // Ordre des lignes retrouvé sans clé (mode reconstruction), appliqué à toutes les frames
+    private int[] ordreReconstruit = null;
+    private boolean crackRapide = false;
+    private int framesConsensus = 1;
+    private long budgetCrackMs = 0;
+    private boolean cacheCracks = true;
+    private EspaceCles espaceCles = EspaceCles.STANDARD;
+    private int nbTravailleurs = PipelineVideo.nbTravailleursParDefaut();
+    private int profondeurFile = 2 * PipelineVideo.nbTravailleursParDefaut() + 2;
+    private Ecouteur ecouteur = new Ecouteur() {};
+
+    private volatile boolean stopProcessing = false;
+    private volatile PipelineVideo pipelineEnCours;
+    private volatile TacheCrack crackEnCours;
+    // Dernière clé extraite d'une frame, affichée seulement quand elle change
+    private int[] derniereCleExtraite = {-1, -1};
+    private int framesLues = 0;
+    private int framesEcrites = 0;
+
+    /**
+     * Construit un traitement.
+     *
+     * @param inputPath     Chemin de la vidéo d'entrée
+     * @param outputPath    Chemin de la vidéo de sortie, ou null pour ne rien écrire
+     * @param mode          "-e" pour chiffrer, "-d" pour déchiffrer
+     * @param r             Première clé
+     * @param s             Seconde clé
+     */
+    public TraitementVideo(String inputPath, String outputPath, String mode, int r, int s) {
+        this.inputPath = inputPath;
+        this.outputPath = outputPath;
+        this.mode = mode;
+        this.cle = new int[]{r, s};
+    }
+
+    public void setEmbedKey(boolean embedKey) {
+        this.embedKey = embedKey;
+    }
+
+    public void setExtractKey(boolean extractKey) {
+        this.extractKey = extractKey;
+    }
+
+    public void setCrackKey(boolean crackKey) {
+        this.crackKey = crackKey;
+    }
+
+    /**
+     * @param reconstruction    true pour déchiffrer sans clé : l'ordre des lignes est retrouvé par
+     *                          ressemblance ({@link ReconstructionGloutonne}), sans supposer la forme de la clé
+     */
+    public void setReconstruction(boolean reconstruction) {
+        this.reconstruction = reconstruction;
+    }
+
+    /**
+     * @param crackRapide   true pour la recherche multi-résolution au lieu de la force brute complète
+     */
+    public void setCrackRapide(boolean crackRapide) {
+        this.crackRapide = crackRapide;
+    }
+
+    /**
+     * @param framesConsensus   Nombre de frames analysées pour le crack ; au-delà de 1,
+     *                          la clé est choisie par consensus entre les frames ({@link ConsensusCrack})
+     */
+    public void setFramesConsensus(int framesConsensus) {
+        this.framesConsensus = framesConsensus;
+    }
+
+    /**
+     * @param budgetCrackMs     Durée maximale du crack sur une frame en millisecondes (0 : sans limite).
+     *                          Avec un budget, la meilleure clé trouvée dans le temps imparti est utilisée.
+     */
+    public void setBudgetCrack(long budgetCrackMs) {
+        this.budgetCrackMs = budgetCrackMs;
+    }
+
+    /**
+     * @param espaceCles    Largeur des clés : espace cherché par le crack (par défaut l'espace standard)
+     */
+    public void setEspaceCles(EspaceCles espaceCles) {
+        this.espaceCles = espaceCles;
+    }
+
+    /**
+     * @param cacheCracks   true pour retrouver et garder les clés crackées dans le {@link CacheCracks}
+     */
+    public void setCacheCracks(boolean cacheCracks) {
+        this.cacheCracks = cacheCracks;
+    }
+
+    /**
+     * @param nbTravailleurs    Nombre de threads de transformation du pipeline
+     */
+    public void setNbTravailleurs(int nbTravailleurs) {
+        this.nbTravailleurs = nbTravailleurs;
+        this.profondeurFile = 2 * nbTravailleurs + 2;
+    }
+
+    public void setEcouteur(Ecouteur ecouteur) {
+        this.ecouteur = ecouteur;
+    }
+
+    /**
+     * @return La première clé utilisée (mise à jour après un crack ou une extraction)
+     */
+    public int getR() {
+        return cle[0];
+    }
+
+    /**
+     * @return La seconde clé utilisée (mise à jour après un crack ou une extraction)
+     */
+    public int getS() {
+        return cle[1];
+    }
+
+    /**
+     * @return La clé utilisée [r, s], lue d'un bloc (les deux valeurs vont ensemble)
+     */
+    public int[] getCle() {
+        return cle.clone();
+    }
+
+    public int getFramesLues() {
+        return framesLues;
+    }
+
+    public int getFramesEcrites() {
+        return framesEcrites;
+    }
+
+    /**
+     * Demande l'arrêt du traitement en cours.
+     */
+    public void arreter() {
+        stopProcessing = true;
+        TacheCrack crack = crackEnCours;
+        if (crack != null) {
+            crack.annuler();
+        }
+        PipelineVideo pipeline = pipelineEnCours;
+        if (pipeline != null) {
+            pipeline.arreter();
+        }
+    }
+
+    /**
+     * Exécute le traitement sur le thread appelant.
+     *
+     * @throws RuntimeException si la vidéo d'entrée ou de sortie ne peut pas être ouverte
+     * @throws IllegalStateException si l'ordre des lignes reconstruit sans clé n'est pas vérifié
+     */
+    public void executer() {
+        // En mode crack, les frames lues pour trouver la clé sont gardées pour le déchiffrement
+        VideoCapture capture = crackKey || reconstruction ? new CaptureRejouable(inputPath) : new VideoCapture(inputPath);
+
+        if (!capture.isOpened()) {
+            throw new RuntimeException("Impossible d'ouvrir la vidéo : " + inputPath);
+        }
+
+        // Récupération des propriétés de la vidéo
+        int frameWidth = (int) capture.get(Videoio.CAP_PROP_FRAME_WIDTH);
+        int frameHeight = (int) capture.get(Videoio.CAP_PROP_FRAME_HEIGHT);
+        double fps = capture.get(Videoio.CAP_PROP_FPS);
+        int totalFrames = (int) capture.get(Videoio.CAP_PROP_FRAME_COUNT);
+
+        System.out.println("=== INFORMATIONS VIDÉO ===");
+        System.out.println("Fichier : " + inputPath);
+        System.out.println("Dimensions : " + frameWidth + "x" + frameHeight);
+        System.out.println("FPS : " + fps);
+        System.out.println("Total frames : " + totalFrames);
+        System.out.println("Mode : " + mode);
+        System.out.println("Clé (r, s) : (" + cle[0] + ", " + cle[1] + ")");
+        System.out.println("Embed key : " + embedKey);
+        System.out.println("Extract key : " + extractKey);
+        System.out.println("==========================");
+
+        ecouteur.videoOuverte(fps, totalFrames);
+
+        // Clé étendue dans une vidéo trop étroite : refusée avant d'écrire quoi que ce soit
+        if (mode.startsWith("-e") && embedKey && !EspaceCles.STANDARD.contient(cle[0], cle[1]) && frameWidth < 4) {
+            capture.release();
+            throw new IllegalArgumentException("Vidéo trop étroite (" + frameWidth
+                    + " pixels) pour embarquer une clé hors de l'espace standard");
+        }
+
+        // Création du VideoWriter
+        VideoWriter writer = null;
+        if (outputPath != null) {
+            int fourcc;
+
+            // Choisir le codec selon l'extension ET le mode
+            if (outputPath.toLowerCase().endsWith(".avi") || embedKey || extractKey) {
+                // AVI non compressé pour la clé embarquée
+                fourcc = 0;
+                System.out.println("Utilisation du codec AVI non compressé (requis pour clé embarquée)");
+            } else if (outputPath.toLowerCase().endsWith(".mp4")) {
+                // MP4 pour les autres cas
+                fourcc = VideoWriter.fourcc('m', 'p', '4', 'v');
+                System.out.println("Utilisation du codec MP4");
+            } else {
+                // Par défaut : AVI
+                fourcc = 0;
+                System.out.println("Utilisation du codec AVI par défaut");
+            }
+
+            Size frameSize = new Size(frameWidth, frameHeight);
+            writer = new VideoWriter(outputPath, fourcc, fps, frameSize, true);
+
+            if (!writer.isOpened()) {
+                capture.release();
+                throw new RuntimeException("Impossible de créer la vidéo de sortie : " + outputPath);
+            }
+        }
+
+        // Frames lues avant le déchiffrement : toutes doivent tenir dans le tampon de rejeu
+        int fenetreRejeu = capture instanceof CaptureRejouable
+                ? ((CaptureRejouable) capture).capacite(frameWidth, frameHeight) : 0;
+        if (totalFrames > 0) fenetreRejeu = Math.min(fenetreRejeu, totalFrames);
+
+        // Pour le crack de clé
+        if (crackKey) {
+            if (framesConsensus > 1) {
+                crackerParConsensus(capture, fenetreRejeu);
+            } else {
+                crackerPremiereFrame(capture, fenetreRejeu);
+            }
+            // Retour au début sans rouvrir la vidéo ni décoder deux fois les premières frames
+            ((CaptureRejouable) capture).rejouer();
+
+            // Passer en mode déchiffrement après le crack
+            mode = "-d";
+        }
+
+        // Ordre des lignes sans clé : un ordre non vérifié donnerait une vidéo encore mélangée
+        if (reconstruction) {
+            ordreReconstruit = reconstruireOrdre(capture, fenetreRejeu);
+            if (ordreReconstruit == null && !stopProcessing) {
+                capture.release();
+                if (writer != null) writer.release();
+                throw new IllegalStateException("Ordre des lignes reconstruit non vérifié : " + inputPath);
+            }
+            ((CaptureRejouable) capture).rejouer();
+            mode = "-d";
+        }
+
+        // Traitement des frames en pipeline : décodage, transformation en parallèle, encodage
+        final boolean chiffrement = mode.startsWith("-e");
+        final int[] cleTraitement = cle;
+        final int cleR = cleTraitement[0];
+        final int cleS = cleTraitement[1];
+        final int[] ordre = ordreReconstruit;
+        // Clé crackée : vérifiée à chaque frame, nouveau crack seulement si elle ne déchiffre plus la vidéo
+        final SuiviCle suivi = crackKey && !stopProcessing ? creerSuiviCle() : null;
+        PipelineVideo pipeline = new PipelineVideo(capture, writer,
+                (frame, index) -> {
+                    if (chiffrement) return chiffrerFrame(frame, index, cleR, cleS);
+                    if (ordre != null) return reordonnerFrame(frame, index, ordre);
+                    if (suivi != null) {
+                        int[] cle = suivi.cle(frame, index);
+                        return dechiffrerFrame(frame, index, cle[0], cle[1]);
+                    }
+                    return dechiffrerFrame(frame, index, cleR, cleS);
+                },
+                nbTravailleurs, profondeurFile);
+        long startTime = System.currentTimeMillis();
+
+        pipeline.ajouterEcouteur((index, entree, sortie) -> {
+            ecouteur.frameEcrite(index, totalFrames, entree, sortie);
+
+            if (index % 30 == 0) {
+                long elapsed = Math.max(1, System.currentTimeMillis() - startTime);
+                ecouteur.vitesse((index * 1000.0) / elapsed, index, totalFrames);
+            }
+        });
+
+        pipelineEnCours = pipeline;
+        if (stopProcessing) {
+            pipeline.arreter();
+        }
+
+        try {
+            pipeline.executer();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            pipelineEnCours = null;
+        }
+
+        framesLues = pipeline.getFramesLues();
+        framesEcrites = pipeline.getFramesEcrites();
+        if (suivi != null && suivi.getNbCracks() > 0) {
+            System.out.println("Nouveaux cracks pendant le déchiffrement : " + suivi.getNbCracks());
+        }
+
+        System.out.println("=== RÉSULTAT ===");
+        System.out.println("Frames lues : " + framesLues);
+        System.out.println("Frames écrites : " + framesEcrites);
+        System.out.println("=================");
+
+        // Libération des ressources dans le bon ordre
+        capture.release();
+
+        if (writer != null) {
+            writer.release();
+        }
+    }
+
+    /**
+     * Cherche la clé sur la frame la mieux texturée du début de la vidéo.
+     *
+     * @param fenetreRejeu  Nombre de frames que le tampon de rejeu peut garder
+     */
+    private void crackerPremiereFrame(VideoCapture capture, int fenetreRejeu) {
+        Mat firstValidFrame = SelectionFrames.meilleureFrame(capture, CANDIDATES_CRACK, PAS_CANDIDATES,
+                Math.max(1, Math.min(100, fenetreRejeu)));
+        if (firstValidFrame == null) return;
+        // Frame déjà crackée lors d'un traitement précédent : la clé est seulement vérifiée
+        int[] cleEnCache = cacheCracks ? CacheCracks.chercher(firstValidFrame) : null;
+        if (cleEnCache != null) {
+            System.out.println("Clé retrouvée dans le cache des cracks");
+            cleCrackee(cleEnCache[0], cleEnCache[1]);
+            firstValidFrame.release();
+            return;
+        }
+        ecouteur.statut("Recherche de la clé par force brute...");
+
+        try {
+            int[] crackedKey = executerCrack(() -> crackerFrame(firstValidFrame));
+            cleCrackee(crackedKey[0], crackedKey[1]);
+            // Une recherche limitée en durée peut rendre une clé provisoire : elle n'est pas gardée
+            if (cacheCracks && budgetCrackMs <= 0) {
+                CacheCracks.enregistrer(firstValidFrame, crackedKey);
+            }
+        } catch (CancellationException e) {
+            System.out.println("Crack de clé annulé");
+        } catch (Exception e) {
+            System.err.println("Erreur lors du crack de clé : " + e.getMessage());
+            e.printStackTrace();
+        }
+
+        firstValidFrame.release();
+    }
+
+    /**
+     * Cherche la clé d'une frame avec la méthode choisie.
+     */
+    private int[] crackerFrame(Mat frame) {
+        int[] crackedKey;
+        if (budgetCrackMs > 0) {
+            ResultatCrack resultat = TrouveCleBruteForce.rechercher(frame, BudgetCrack.duree(budgetCrackMs), 5,
+                    new EcouteurCrack() {
+                        @Override
+                        public void amelioration(int r, int s, double score, int clesEvaluees) {
+                            ecouteur.statut("Meilleure clé provisoire : r=" + r + ", s=" + s + " (" + clesEvaluees + " clés)");
+                        }
+                    }, espaceCles);
+            System.out.println("Recherche limitée à " + budgetCrackMs + " ms : " + resultat);
+            crackedKey = resultat.getCle();
+        } else if (crackRapide) {
+            ResultatCrack resultat = TrouveCleBruteForce.bruteForceMultiResolution(frame, TrouveCleBruteForce.TOP_K_DEFAUT, espaceCles);
+            System.out.println("Recherche multi-résolution : " + resultat);
+            crackedKey = resultat.getCle();
+        } else {
+            // Résolution algébrique, force brute seulement si elle n'est pas vérifiée
+            crackedKey = TrouveCleBruteForce.crackAnalytique(frame, espaceCles);
+        }
+        return crackedKey;
+    }
+
+    /**
+     * Cherche la clé par consensus sur plusieurs frames réparties dans le début de la vidéo.
+     *
+     * @param fenetreRejeu  Nombre de frames que le tampon de rejeu peut garder
+     */
+    private void crackerParConsensus(VideoCapture capture, int fenetreRejeu) {
+        List<Mat> frames = echantillonnerFrames(capture, fenetreRejeu, framesConsensus);
+        if (frames.isEmpty()) return;
+        ecouteur.statut("Recherche de la clé sur " + frames.size() + " frames...");
+
+        try {
+            ConsensusCrack.Resultat resultat = executerCrack(() -> ConsensusCrack.cracker(frames, espaceCles));
+            System.out.println(resultat);
+            cleCrackee(resultat.getR(), resultat.getS());
+        } catch (CancellationException e) {
+            System.out.println("Crack de clé annulé");
+        } catch (Exception e) {
+            System.err.println("Erreur lors du crack de clé : " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            for (Mat frame : frames) {
+                frame.release();
+            }
+        }
+    }
+
+    /**
+     * Retrouve l'ordre des lignes sans clé sur deux frames éloignées du début de la vidéo : l'ordre
+     * de la première n'est gardé que s'il relie des lignes bien corrélées et si la seconde donne le même.
+     *
+     * @param fenetreRejeu  Nombre de frames que le tampon de rejeu peut garder
+     * @return L'ordre vérifié, ou null si la reconstruction n'est pas fiable ou a été annulée
+     */
+    private int[] reconstruireOrdre(VideoCapture capture, int fenetreRejeu) {
+        List<Mat> frames = echantillonnerFrames(capture, fenetreRejeu, FRAMES_RECONSTRUCTION);
+        if (frames.isEmpty()) return null;
+        ecouteur.statut("Reconstruction de l'ordre des lignes...");
+
+        try {
+            int[] ordre = executerCrack(() -> ReconstructionGloutonne.reconstruire(frames.get(0)));
+            if (!ReconstructionGloutonne.verifier(frames.get(0), ordre)) {
+                System.out.println("Reconstruction non vérifiée : ordre ambigu ou à peine meilleur que le mélange");
+                return null;
+            }
+            // Une seule frame lisible (vidéo très courte) : seule la vérification de corrélation compte
+            if (frames.size() > 1) {
+                int[] autre = executerCrack(() -> ReconstructionGloutonne.reconstruire(frames.get(1)));
+                double accord = ReconstructionGloutonne.accord(ordre, autre);
+                System.out.println("Reconstruction : " + Math.round(accord * 100) + " % des liaisons identiques sur deux frames");
+                if (accord < ReconstructionGloutonne.ACCORD_MIN) return null;
+            }
+            ecouteur.statut("Ordre des lignes reconstruit ! Déchiffrement en cours...");
+            return ordre;
+        } catch (CancellationException e) {
+            System.out.println("Reconstruction annulée");
+        } catch (Exception e) {
+            System.err.println("Erreur lors de la reconstruction : " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            for (Mat frame : frames) {
+                frame.release();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Exécute une recherche de clé annulable par {@link #arreter()}, avec suivi de l'avancement.
+     */
+    private <T> T executerCrack(Callable<T> crack) throws Exception {
+        TacheCrack tache = new TacheCrack(new EcouteurCrack() {
+            @Override
+            public void progression(int clesEvaluees, int totalCles, long resteMs) {
+                ecouteur.progressionCrack(clesEvaluees, totalCles, resteMs);
+            }
+        });
+        crackEnCours = tache;
+        try {
+            if (stopProcessing) {
+                tache.annuler();
+            }
+            return tache.executer(crack);
+        } finally {
+            crackEnCours = null;
+        }
+    }
+
+    /**
+     * Suivi de la clé crackée pendant le déchiffrement (vidéos mises bout à bout, changement de clé).
+     * Un nouveau crack est annulable par {@link #arreter()} comme le premier.
+     */
+    private SuiviCle creerSuiviCle() {
+        int[] depart = cle;
+        return new SuiviCle(depart[0], depart[1],
+                frame -> executerCrack(() -> TrouveCleBruteForce.crackAnalytique(frame, espaceCles)),
+                (index, nouveauR, nouveauS) -> {
+                    cle = new int[]{nouveauR, nouveauS};
+                    ecouteur.cleConnue("Nouvelle clé (frame " + index + ")", nouveauR, nouveauS);
+                });
+    }
+
+    private void cleCrackee(int crackedR, int crackedS) {
+        cle = new int[]{crackedR, crackedS};
+        System.out.println("Clé crackée : r=" + crackedR + ", s=" + crackedS);
+        ecouteur.cleConnue("Clé trouvée", crackedR, crackedS);
+        ecouteur.statut("Clé crackée ! Déchiffrement en cours...");
+    }
+
+    /**
+     * Chiffre une frame et embarque la clé si demandé.
+     * Appelée en parallèle par les threads de transformation du pipeline.
+     */
+    private Mat chiffrerFrame(Mat frame, int index, int currentR, int currentS) {
+        // 1. Chiffrer la frame
+        long debut = MetriquesTraitement.debut();
+        Mat processed = PermutationLignes.scrambleFrame(frame, currentR, currentS);
+        MetriquesTraitement.fin(MetriquesTraitement.Etape.PERMUTATION, debut, index);
+
+        // 2. Embarquer la clé APRÈS le chiffrement (dans TOUTES les frames si embedKey activé)
+        if (embedKey) {
+            debut = MetriquesTraitement.debut();
+            EmbarquementCle.cleDansPixel(processed, currentR, currentS);
+            MetriquesTraitement.fin(MetriquesTraitement.Etape.EMBARQUEMENT, debut, index);
+
+            // Test immédiat d'extraction sur la première frame
+            if (index == 1) {
+                System.out.println("Mode embarquement activé - Clé (r=" + currentR + ", s=" + currentS + ") embarquée dans toutes les frames");
+                int[] testExtract = EmbarquementCle.extractionCleFromPixel(processed);
+                System.out.println("TEST embarquement frame 1 - Clé ré-extraite : r=" + testExtract[0] + ", s=" + testExtract[1]);
+                if (testExtract[0] != currentR || testExtract[1] != currentS) {
+                    System.err.println("ERREUR : La clé embarquée ne correspond pas !");
+                }
+            }
+        }
+        return processed;
+    }
+
+    /**
+     * Déchiffre une frame avec la clé fournie, ou avec la clé embarquée dans la frame.
+     * Appelée en parallèle par les threads de transformation du pipeline.
+     */
+    private Mat dechiffrerFrame(Mat frame, int index, int currentR, int currentS) {
+        // 1. Extraire la clé AVANT de déchiffrer (si mode avec clé embarquée)
+        if (extractKey) {
+            long debut = MetriquesTraitement.debut();
+            int[] embeddedKey = EmbarquementCle.extractionCleFromPixel(frame);
+            MetriquesTraitement.fin(MetriquesTraitement.Etape.EMBARQUEMENT, debut, index);
+            currentR = embeddedKey[0];
+            currentS = embeddedKey[1];
+
+            signalerCleExtraite(index, embeddedKey);
+        }
+
+        // 2. Déchiffrer avec la clé (extraite ou fournie)
+        long debut = MetriquesTraitement.debut();
+        Mat processed = PermutationLignes.unscrambleFrame(frame, currentR, currentS);
+        MetriquesTraitement.fin(MetriquesTraitement.Etape.PERMUTATION, debut, index);
+        return processed;
+    }
+
+    /**
+     * Remet les lignes d'une frame dans l'ordre reconstruit sans clé.
+     * Appelée en parallèle par les threads de transformation du pipeline.
+     */
+    private Mat reordonnerFrame(Mat frame, int index, int[] ordre) {
+        long debut = MetriquesTraitement.debut();
+        Mat processed = PermutationLignes.reordonnerFrame(frame, ordre);
+        MetriquesTraitement.fin(MetriquesTraitement.Etape.PERMUTATION, debut, index);
+        return processed;
+    }
+
+    /**
+     * Affiche la clé extraite seulement quand elle change (première frame, changement de clé,
+     * clé illisible), au lieu de l'afficher pour chaque frame.
+     * Les frames sont transformées en parallèle : autour d'un changement de clé, l'ordre
+     * des messages peut ne pas suivre exactement l'ordre des frames.
+     */
+    private synchronized void signalerCleExtraite(int index, int[] cle) {
+        if (cle[0] == derniereCleExtraite[0] && cle[1] == derniereCleExtraite[1]) return;
+        boolean premiere = derniereCleExtraite[0] < 0;
+        derniereCleExtraite = cle.clone();
+
+        if (!EmbarquementCle.estUneCleValide(cle, EspaceCles.ETENDU)) {
+            System.err.println("ATTENTION Frame " + index + " : Clé invalide ! r=" + cle[0] + ", s=" + cle[1]);
+            return;
+        }
+        this.cle = cle.clone();  // Sauvegarder pour affichage
+        System.out.println((premiere ? "Clé extraite" : "Changement de clé") + " à la frame " + index + " : r=" + cle[0] + ", s=" + cle[1]);
+        ecouteur.cleConnue(premiere ? "Clé extraite" : "Nouvelle clé extraite", cle[0], cle[1]);
+    }
+
+    /**
+     * Lit nbFrames frames réparties régulièrement dans les fenetreRejeu premières frames de la vidéo.
+     * La lecture avance depuis le début sans déplacement : toutes les frames lues restent dans le
+     * tampon de rejeu et le déchiffrement ne décode pas le début deux fois. Chaque tranche de la
+     * fenêtre donne la frame la mieux texturée parmi ses premières ({@link SelectionFrames}).
+     *
+     * @param fenetreRejeu  Nombre de frames que le tampon de rejeu peut garder
+     */
+    private List<Mat> echantillonnerFrames(VideoCapture capture, int fenetreRejeu, int nbFrames) {
+        List<Mat> frames = new ArrayList<>();
+        // Une frame au moins, même si elle ne tient pas dans le tampon (le début sera alors relu)
+        int fenetre = Math.max(1, fenetreRejeu);
+        int tranches = Math.min(nbFrames, fenetre);
+        int position = 0;
+        for (int k = 0; k < tranches; k++) {
+            int debut = (int) ((long) k * fenetre / tranches);
+            int fin = (int) ((long) (k + 1) * fenetre / tranches);
+            // Frames passées jusqu'au début de la tranche (gardées pour le rejeu)
+            while (position < debut && capture.grab()) {
+                position++;
+            }
+            if (position < debut) break;
+            // Meilleure frame parmi les premières de la tranche (une frame noire ou unie est passée)
+            Mat frame = SelectionFrames.meilleureFrame(capture, CANDIDATES_CONSENSUS, 3, Math.min(30, fin - debut));
+            // Position rendue par la vidéo ; à défaut, la tranche est supposée lue en entier
+            double lue = capture.get(Videoio.CAP_PROP_POS_FRAMES);
+            position = lue > debut && lue <= fin ? (int) lue : fin;
+            if (frame != null) {
+                frames.add(frame);
+            }
+        }
+        return frames;
+    }
+}
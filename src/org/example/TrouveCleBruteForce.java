@@ -14,25 +14,63 @@ package org.example;
 import org.opencv.core.Mat;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.concurrent.*;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.ExecutionException;
 
 import static org.example.EvaluationScoreImage.evaluateKeyScore;
-import static org.example.PermutationLignes.unscrambleBlockRowsFast;
 
 /**
  * Classe fournissant des méthodes pour retrouver les clés de chiffrement
  * d'une image par une attaque de force brute parallélisée.
  * L'algorithme teste systématiquement toutes les combinaisons possibles de clés
- * (256 valeurs pour r × 128 valeurs pour s = 32 768 clés) en utilisant tous
- * les cœurs du processeur disponibles pour accélérer le calcul.
+ * (256 valeurs pour r × 128 valeurs pour s = 32 768 clés dans l'espace standard) en utilisant
+ * tous les cœurs du processeur disponibles pour accélérer le calcul.
+ * Chaque recherche accepte un {@link EspaceCles} : seules les clés canoniques de la hauteur
+ * de l'image sont parcourues ({@link EspaceCles#pourHauteur(int)}) et la clé rendue est canonique.
  *
  * @author BONNIN Simon, CARRARA Tim
  * @version 1.0
  */
 public class TrouveCleBruteForce {
 
+    /**
+     * Pourcentage de lignes à tester pour évaluer une clé.
+     */
+    static final double LIGNES_POURCENTAGE_TEST = 0.55;
+
+    /**
+     * Résolution algébrique : taille minimale du plus grand bloc pour que la résolution ait un sens.
+     */
+    private static final int BLOC_MIN_RESOLUTION = 16;
+
+    /**
+     * Résolution algébrique : nombre de lignes échantillons comparées à toutes les autres.
+     */
+    private static final int LIGNES_ECHANTILLON_RESOLUTION = 24;
+
+    /**
+     * Résolution algébrique : avance minimale de la clé trouvée sur la suivante (hors clé miroir),
+     * en part de l'écart entre la corrélation moyenne de ses paires et le fond.
+     */
+    private static final double SEUIL_MARGE = 0.25;
+
+    /**
+     * Résolution algébrique : part de l'écart entre la corrélation moyenne de deux lignes
+     * quelconques et 1 que la clé trouvée doit combler pour être acceptée.
+     */
+    private static final double SEUIL_VERIFICATION = 0.5;
+
+    /**
+     * Recherche multi-résolution : largeur des lignes réduites de la passe grossière (pixels gris).
+     */
+    private static final int LARGEUR_PASSE_GROSSIERE = 96;
+
+    /**
+     * Recherche multi-résolution : nombre de clés gardées pour la passe complète.
+     */
+    public static final int TOP_K_DEFAUT = 64;
+
     /**
      * Classe interne pour construire dynamiquement un tableau d'entiers.
      * Permet d'ajouter des éléments sans connaître la taille finale à l'avance,
@@ -71,157 +109,670 @@ public class TrouveCleBruteForce {
         }
     }
 
-    /**
-     * Classe interne représentant le résultat d'une recherche de clé.
-     * Contient les valeurs des clés et le score associé.
-     */
-    private static class Resultat {
-        final int r;
-        final int s;
-        final double score;
-
-        /**
-         * Construit un résultat avec les clés et le score.
-         * @param r     Première clé
-         * @param s     Seconde clé
-         * @param score Score de qualité du déchiffrement
-         */
-        Resultat(int r, int s, double score) {
-            this.r = r;
-            this.s = s;
-            this.score = score;
-        }
-    }
-
     /**
      * Trouve les clés de déchiffrement par force brute parallélisée.
      * Cette méthode teste toutes les combinaisons possibles de clés (r, s)
-     * soit 32 768 combinaisons au total.
-     * Le travail est réparti entre tous les cœurs du processeur disponibles pour accélérer le calcul.
+     * soit 32 768 combinaisons au total dans l'espace standard.
+     * Les clés sont distribuées par petits lots aux threads d'un pool partagé
+     * (voir {@link OrdonnanceurCles}), les plus prometteuses en premier.
      * Principe de l'attaque :
-     * 1. Pour chaque paire de clés (r, s), déchiffrer l'image
-     * 2. Calculer la corrélation de Pearson entre lignes adjacentes
+     * 1. Pour chaque paire de clés (r, s), calculer l'ordre des lignes déchiffrées
+     * 2. Sommer la corrélation de Pearson entre lignes adjacentes, lue dans une
+     *    matrice de corrélation commune à toutes les clés
      * 3. La bonne clé produit l'image avec la plus forte corrélation
      *
      * @param imageCryptee L'image chiffrée à déchiffrer
      * @return Un tableau [r, s] contenant les clés trouvées, ou [0, 0] en cas d'erreur
      */
     public static int[] bruteForce(Mat imageCryptee) {
-        final int TOTAL_CLES = 256 * 128;
-        // Pourcentage de lignes à tester pour évaluer une clé
-        final double LIGNES_POURCENTAGE_TEST = 0.55;
-        // Nombre de cœurs CPU disponibles pour le multithreading
-        final int nbCoeurs = Math.max(1, Runtime.getRuntime().availableProcessors());
-        // Ensemble de threads pré-crée pour lancer les calculs en parallèle
-        ExecutorService pool = Executors.newFixedThreadPool(nbCoeurs);
-
+        return bruteForce(imageCryptee, EspaceCles.STANDARD);
+    }
 
+    /**
+     * Force brute dans un espace de clés donné.
+     *
+     * @param imageCryptee  L'image chiffrée à déchiffrer
+     * @param espace        L'espace des clés cherchées
+     * @return La clé canonique [r, s] trouvée, ou [0, 0] en cas d'erreur
+     */
+    public static int[] bruteForce(Mat imageCryptee, EspaceCles espace) {
         int lignesImage = imageCryptee.rows();
         // Cas où l'image est trop petite
         if (lignesImage < 2) {
             return new int[]{0, 0};
         }
 
-        final int octetsParLigne = imageCryptee.cols() * imageCryptee.channels();
-
         // Préchargement de toutes les lignes dans des tableaux de bytes
         // Évite les accès répétés à la structure Mat d'OpenCV (plus lent)
-        final byte[][] lignesSource = new byte[lignesImage][];
-        for (int i = 0; i < lignesImage; i++) {
-            byte[] ligne = new byte[octetsParLigne];
-            imageCryptee.row(i).get(0, 0, ligne);
-            lignesSource[i] = ligne;
-        }
+        final byte[][] lignesSource = extraireLignes(imageCryptee);
+        // Statistiques des lignes calculées une fois, corrélations mémorisées entre les clés
+        return bruteForce(new MatriceCorrelation(lignesSource), espace);
+    }
 
-        // Nombre total de paires de lignes adjacentes possibles
-        int totalPaires = lignesImage - 1;
-        // Nombre de paires possibles à tester
-        int nbPaireTest = Math.max(1, (int) Math.round(totalPaires * LIGNES_POURCENTAGE_TEST));
-        int pas = Math.max(1, totalPaires / nbPaireTest);
+    /**
+     * Force brute sur une matrice de corrélation déjà construite.
+     *
+     * @param correlations  La matrice de corrélation des lignes de l'image chiffrée (au moins 2 lignes)
+     * @param espace        L'espace des clés cherchées
+     * @return Un tableau [r, s] contenant les clés trouvées, ou [0, 0] en cas d'erreur
+     */
+    static int[] bruteForce(MatriceCorrelation correlations, EspaceCles espace) {
+        final int lignesImage = correlations.nbLignes();
+        final EspaceCles cles = espace.pourHauteur(lignesImage);
 
         // Construction du tableau des indices de lignes à échantillonner
-        final int[] indicesEchantillon;
-        {
-            IntArrayListBuilder liste = new IntArrayListBuilder();
-            for (int i = 0; i < totalPaires; i += pas) {
-                liste.add(i);
-            }
-            indicesEchantillon = liste.toArray();
-        }
-        // Tous les threads peuvent lire/mettre à jour le meilleur score actuel
-        AtomicReference<Double> scoreMeilleurCle = new AtomicReference<>(Double.NEGATIVE_INFINITY);
-
-        // Taille de bloc de clés assigné à chaque thread
-        // Exemple : 32768 clés / 8 coeurs = 4096 clés par thread
-        int tailleBloc = (TOTAL_CLES + nbCoeurs - 1) / nbCoeurs;
-
-        // Liste des tâches à exécuter en parallèle
-        List<Callable<Resultat>> taches = new ArrayList<>();
-
-        // Création d'une tâche par thread
-        for (int t = 0; t < nbCoeurs; t++) {
-            // Plage de clés que ce thread doit traiter
-            final int cleDebut = t * tailleBloc;
-            final int cleFin = Math.min(TOTAL_CLES, cleDebut + tailleBloc);
-
-            // Définition de la tâche pour ce thread
-            taches.add(() -> {
-                byte[][] lignesDecryptees = new byte[lignesImage][];
-                // Meilleur score trouvé par ce thread
-                double meilleurScoreLocal = Double.NEGATIVE_INFINITY;
-                int meilleurR = 0, meilleurS = 0;
-                // Test de chaque clé dans la plage assignée
-                for (int key = cleDebut; key < cleFin; key++) {
-                    // Extraction des clés
-                    int r = key & 0xFF;
-                    int s = (key >> 8) & 0x7F;
-
-                    // Déchiffrement rapide de l'image avec cette paire de clés
-                    unscrambleBlockRowsFast(lignesDecryptees, lignesSource, 0, lignesImage, r, s);
-                    // Calcul du score de Pearson
-                    double score = evaluateKeyScore(lignesDecryptees, indicesEchantillon, scoreMeilleurCle.get());
-                    // Mise à jour du meilleur score global et des clés
-                    if (score > meilleurScoreLocal) {
-                        meilleurScoreLocal = score;
-                        meilleurR = r;
-                        meilleurS = s;
-
-                        Double scoreActuel;
-                        do {
-                            // Si un autre thread a trouvé mieux entre temps, on abandonne
-                            scoreActuel = scoreMeilleurCle.get();
-                            if (meilleurScoreLocal <= scoreActuel) break;
-                        } while (!scoreMeilleurCle.compareAndSet(scoreActuel, meilleurScoreLocal));
-                    }
+        final int[] indicesEchantillon = echantillonnerPaires(lignesImage - 1, LIGNES_POURCENTAGE_TEST);
+        // Tous les threads peuvent lire/mettre à jour le meilleur score actuel et sa clé
+        final MeilleurScore meilleurScore = new MeilleurScore();
+
+        // Les clés les plus prometteuses d'abord : le seuil d'élagage monte dès les premiers lots
+        int[] ordreCles = ordrePrometteur(correlations, lignesImage, cles);
+        // Bornes par ligne : une fois la bonne clé vue, les autres sont abandonnées après quelques paires
+        final BornesCorrelation bornes = new BornesCorrelation(correlations, cles.getNbValeursS(), indicesEchantillon);
+
+        try {
+            List<EtatForceBrute> parThread = OrdonnanceurCles.parcourir(cles.getNbCles(), ordreCles, new OrdonnanceurCles.Parcours<EtatForceBrute>() {
+                @Override
+                public EtatForceBrute nouvelEtat() {
+                    return new EtatForceBrute(lignesImage);
                 }
 
-                return new Resultat(meilleurR, meilleurS, meilleurScoreLocal);
+                @Override
+                public void evaluer(EtatForceBrute etat, int key) {
+                    int r = cles.r(key);
+                    int s = cles.s(key);
+                    // Clé rejetée sans aucun calcul si sa borne ne bat pas la meilleure clé
+                    double borne = bornes.borneCle(r, s);
+                    double seuil = meilleurScore.score();
+                    if (borne <= seuil) {
+                        etat.elaguees++;
+                        return;
+                    }
+                    // Ordre des lignes obtenu avec cette paire de clés (aucune copie de pixels)
+                    RowPermutation.remplirForward(etat.ordreLignes, lignesImage, r, s);
+                    // Calcul du score de Pearson par consultation de la matrice
+                    double score = evaluateKeyScore(correlations, bornes, etat.ordreLignes, indicesEchantillon, borne, seuil);
+                    if (score == Double.NEGATIVE_INFINITY) etat.elaguees++;
+                    // Mise à jour du meilleur score global et de la clé en une seule opération atomique
+                    meilleurScore.proposer(score, key);
+                }
             });
+            long elaguees = 0;
+            for (EtatForceBrute etat : parThread) {
+                elaguees += etat.elaguees;
+            }
+            MetriquesTraitement.clesElaguees(elaguees);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new int[]{0, 0};
+        } catch (ExecutionException e) {
+            e.printStackTrace();
+            return new int[]{0, 0};
+        }
+
+        // Retour de la meilleure clé trouvée
+        int key = meilleurScore.cle();
+        return key < 0 ? new int[]{0, 0} : new int[]{cles.r(key), cles.s(key)};
+    }
+
+    /**
+     * Recherche de clé interruptible (« anytime ») : la recherche parcourt les clés les plus
+     * prometteuses d'abord et s'arrête quand le budget est épuisé, en rendant les meilleures
+     * clés trouvées jusque-là.
+     * Chaque nouvelle meilleure clé est signalée à l'écouteur dès qu'elle est trouvée.
+     * L'élagage se fait par rapport à la topN-ième clé de chaque thread : les topN clés
+     * rendues et leurs scores sont exacts parmi les clés évaluées.
+     *
+     * @param imageCryptee  L'image chiffrée à déchiffrer
+     * @param budget        Limite de durée et/ou de nombre de clés ({@link BudgetCrack#illimite()} pour tout parcourir)
+     * @param topN          Nombre de clés candidates rendues (au moins 2, pour la marge)
+     * @param ecouteur      Abonné aux améliorations, ou null
+     * @return Les topN meilleures clés, la marge, le nombre de clés évaluées et si la recherche est complète
+     */
+    public static ResultatCrack rechercher(Mat imageCryptee, BudgetCrack budget, int topN, EcouteurCrack ecouteur) {
+        return rechercher(imageCryptee, budget, topN, ecouteur, EspaceCles.STANDARD);
+    }
+
+    /**
+     * Recherche interruptible dans un espace de clés donné.
+     *
+     * @param espace        L'espace des clés cherchées
+     * @see #rechercher(Mat, BudgetCrack, int, EcouteurCrack)
+     */
+    public static ResultatCrack rechercher(Mat imageCryptee, BudgetCrack budget, int topN, EcouteurCrack ecouteur, EspaceCles espace) {
+        if (imageCryptee.rows() < 2) {
+            return new ResultatCrack(new ArrayList<>(), 0, 0, false);
         }
+        return rechercher(new MatriceCorrelation(extraireLignes(imageCryptee)), budget, topN, ecouteur, espace);
+    }
+
+    /**
+     * Recherche interruptible sur une matrice de corrélation déjà construite.
+     */
+    static ResultatCrack rechercher(MatriceCorrelation correlations, BudgetCrack budget, int topN, EcouteurCrack ecouteur, EspaceCles espace) {
+        final long echeance = budget.echeance(System.nanoTime());
+        final int lignesImage = correlations.nbLignes();
+        final EspaceCles cles = espace.pourHauteur(lignesImage);
+        final int n = Math.max(2, Math.min(topN, cles.getNbCles()));
+        final int[] indicesEchantillon = echantillonnerPaires(lignesImage - 1, LIGNES_POURCENTAGE_TEST);
+        final MeilleurScore meilleurScore = new MeilleurScore();
+        final int[] ordreCles = ordrePrometteur(correlations, lignesImage, cles);
+
+        List<ResultatCrack.Candidat> candidats = new ArrayList<>();
+        int evaluees = 0;
         try {
-            // Lancement de toutes les tâches en parallèle
-            List<Future<Resultat>> futures = pool.invokeAll(taches);
-
-            // Récupération des meilleurs résultats de tous les threads
-            double bestScore = Double.NEGATIVE_INFINITY;
-            int bestR = 0, bestS = 0;
-            // Récupération et comparaison des résultats de tous les threads
-            for (Future<Resultat> f : futures) {
-                Resultat r = f.get();
-                if (r.score > bestScore) {
-                    bestScore = r.score;
-                    bestR = r.r;
-                    bestS = r.s;
-                }
+            List<MeilleuresCles> parThread = OrdonnanceurCles.parcourir(Math.min(cles.getNbCles(), budget.getClesMax()), ordreCles,
+                    new OrdonnanceurCles.Parcours<MeilleuresCles>() {
+                        // Clés distribuées, pour informer l'écouteur de l'avancement
+                        private volatile int distribuees = 0;
+
+                        @Override
+                        public MeilleuresCles nouvelEtat() {
+                            return new MeilleuresCles(n, lignesImage);
+                        }
+
+                        @Override
+                        public void evaluer(MeilleuresCles meilleures, int key) {
+                            RowPermutation.remplirForward(meilleures.ordreLignes, lignesImage, cles.r(key), cles.s(key));
+                            double score = evaluateKeyScore(correlations, meilleures.ordreLignes, indicesEchantillon, meilleures.seuil());
+                            meilleures.evaluees++;
+                            if (score == Double.NEGATIVE_INFINITY) meilleures.elaguees++;
+                            meilleures.proposer(key, score);
+                            if (meilleurScore.proposer(score, key) && ecouteur != null) {
+                                ecouteur.amelioration(cles.r(key), cles.s(key), score, distribuees);
+                            }
+                        }
+
+                        @Override
+                        public boolean arreter(int clesDistribuees) {
+                            distribuees = clesDistribuees;
+                            return System.nanoTime() >= echeance;
+                        }
+                    });
+            MeilleuresCles fusion = new MeilleuresCles(n);
+            long elaguees = 0;
+            for (MeilleuresCles meilleures : parThread) {
+                meilleures.verserDans(fusion);
+                evaluees += meilleures.evaluees;
+                elaguees += meilleures.elaguees;
             }
-            // On arrête tout les threads
-            pool.shutdownNow();
-            // Retour de la meilleur clé trouvée
-            return new int[]{bestR, bestS};
-        } catch (InterruptedException | ExecutionException e) {
+            MetriquesTraitement.clesElaguees(elaguees);
+            fusion.ajouterA(candidats, cles);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
             e.printStackTrace();
-            pool.shutdown();
+        }
+        return new ResultatCrack(candidats, indicesEchantillon.length, evaluees, evaluees >= cles.getNbCles());
+    }
+
+    /**
+     * Trouve la clé par résolution algébrique, puis par force brute si la vérification échoue.
+     * Dans le plus grand bloc (p lignes, puissance de 2), la ligne d'origine i est chiffrée en
+     * (r + a·i) mod p avec a = 2s+1 : deux lignes voisines de l'image d'origine sont donc toujours
+     * à distance a (modulo p) dans l'image chiffrée.
+     * 1. Pour quelques lignes échantillons, on cherche les lignes qui leur ressemblent le plus :
+     *    la distance la plus fréquente donne a (au signe près)
+     * 2. En suivant le cycle x → x + a, toutes les lignes voisines sont très corrélées sauf une :
+     *    le passage de la dernière ligne d'origine à la première, qui donne r
+     * 3. Les p rotations de a et de -a sont toutes scorées sur toutes les paires de lignes, en O(p)
+     *    grâce aux sommes cumulées le long des deux cycles ({@link BornesCorrelation#scoresExacts}).
+     *    La meilleure est vérifiée par rapport à la corrélation moyenne entre lignes quelconques
+     *    et doit devancer nettement la suivante : deux rotations ne diffèrent que par une paire
+     * Le travail est proportionnel à la hauteur de l'image au lieu du nombre de clés : c'est
+     * la méthode à utiliser pour un espace de clés étendu.
+     *
+     * @param imageCryptee  L'image chiffrée à déchiffrer
+     * @return Un tableau [r, s] contenant les clés trouvées, ou [0, 0] en cas d'erreur
+     */
+    public static int[] crackAnalytique(Mat imageCryptee) {
+        return crackAnalytique(imageCryptee, EspaceCles.STANDARD);
+    }
+
+    /**
+     * Résolution algébrique dans un espace de clés donné.
+     * Si elle n'est pas vérifiée, ou si la clé ne se détache pas assez des autres rotations,
+     * le secours est la recherche multi-résolution.
+     *
+     * @param imageCryptee  L'image chiffrée à déchiffrer
+     * @param espace        L'espace des clés cherchées
+     * @return La clé canonique [r, s] trouvée, ou [0, 0] en cas d'erreur
+     */
+    public static int[] crackAnalytique(Mat imageCryptee, EspaceCles espace) {
+        if (imageCryptee.rows() < 2) {
             return new int[]{0, 0};
         }
+        byte[][] lignes = extraireLignes(imageCryptee);
+        MatriceCorrelation correlations = new MatriceCorrelation(lignes);
+        int[] cle = resoudre(correlations, espace);
+        if (cle != null) {
+            return cle;
+        }
+        System.out.println("Résolution algébrique non vérifiée, recherche multi-résolution");
+        return bruteForceMultiResolution(lignes, imageCryptee.channels(), TOP_K_DEFAUT, espace).getCle();
+    }
+
+    /**
+     * Résolution algébrique de la clé (voir {@link #crackAnalytique(Mat)}).
+     *
+     * @param correlations  La matrice de corrélation des lignes de l'image chiffrée
+     * @param espace        L'espace des clés cherchées
+     * @return La clé canonique [r, s] vérifiée, ou null si la résolution n'a pas abouti
+     */
+    static int[] resoudre(MatriceCorrelation correlations, EspaceCles espace) {
+        int lignesImage = correlations.nbLignes();
+        int p = Integer.highestOneBit(lignesImage);
+        if (p < BLOC_MIN_RESOLUTION) return null;
+
+        // 1. Distance la plus fréquente entre une ligne et ses lignes les plus ressemblantes
+        int[] votes = new int[p];
+        double sommeFond = 0;
+        int nbFond = 0;
+        int pas = Math.max(1, p / LIGNES_ECHANTILLON_RESOLUTION);
+        for (int x = 0; x < p; x += pas) {
+            int premier = -1, second = -1;
+            double corrPremier = Double.NEGATIVE_INFINITY, corrSecond = Double.NEGATIVE_INFINITY;
+            for (int y = 0; y < p; y++) {
+                if (y == x) continue;
+                double c = correlations.correlation(x, y);
+                sommeFond += c;
+                nbFond++;
+                if (c > corrPremier) {
+                    second = premier;
+                    corrSecond = corrPremier;
+                    premier = y;
+                    corrPremier = c;
+                } else if (c > corrSecond) {
+                    second = y;
+                    corrSecond = c;
+                }
+            }
+            // Les voisines d'origine sont en x + a et x - a : on compte la distance sans son signe
+            for (int y : new int[]{premier, second}) {
+                if (y < 0) continue;
+                int d = Math.floorMod(y - x, p);
+                if ((d & 1) == 1) votes[Math.min(d, p - d)]++;
+            }
+        }
+        int a = 1;
+        for (int d = 3; d < p; d += 2) {
+            if (votes[d] > votes[a]) a = d;
+        }
+        double fond = sommeFond / Math.max(1, nbFond);
+
+        // 2. Score exact de toutes les rotations de a et de -a, sur toutes les paires de lignes
+        int sPlus = (a - 1) / 2;
+        int sMoins = (p - a - 1) / 2;
+        int[] toutesPaires = new int[lignesImage - 1];
+        for (int i = 0; i < toutesPaires.length; i++) {
+            toutesPaires[i] = i;
+        }
+        BornesCorrelation scores = BornesCorrelation.scoresExacts(correlations, new int[]{sPlus, sMoins}, toutesPaires);
+        int[] meilleure = null;
+        double meilleurScore = Double.NEGATIVE_INFINITY;
+        for (int cleS : new int[]{sPlus, sMoins}) {
+            for (int r = 0; r < p; r++) {
+                // Clé hors de l'espace des clés (par exemple r > 255 dans un bloc de 1024 lignes)
+                if (!espace.contient(r, cleS)) continue;
+                double score = scores.borneCle(r, cleS);
+                if (score > meilleurScore) {
+                    meilleurScore = score;
+                    meilleure = new int[]{r, cleS};
+                }
+            }
+        }
+        if (meilleure == null) return null;
+
+        // 3. Suivante : la clé miroir (-a, qui retourne chaque bloc) ne se distingue que par
+        // les paires entre blocs, voire pas du tout sur une hauteur puissance de 2 ; elle est écartée
+        int m = 2 * meilleure[1] + 1;
+        int rMiroir = (meilleure[0] - m) & (p - 1);
+        int sMiroir = (p - m - 1) / 2;
+        double suivant = Double.NEGATIVE_INFINITY;
+        for (int cleS : new int[]{sPlus, sMoins}) {
+            for (int r = 0; r < p; r++) {
+                if (!espace.contient(r, cleS)) continue;
+                if ((r == meilleure[0] && cleS == meilleure[1]) || (r == rMiroir && cleS == sMiroir)) continue;
+                suivant = Math.max(suivant, scores.borneCle(r, cleS));
+            }
+        }
+
+        // Vérification : la clé doit combler au moins la moitié de l'écart entre la corrélation
+        // de deux lignes quelconques et une corrélation parfaite, et devancer les autres rotations
+        double moyenne = meilleurScore / toutesPaires.length;
+        if (moyenne < fond + (1 - fond) * SEUIL_VERIFICATION) return null;
+        return meilleurScore - suivant >= SEUIL_MARGE * (moyenne - fond) ? meilleure : null;
+    }
+
+    /**
+     * Ordonne les clés pour tester d'abord les plus prometteuses.
+     * Deux lignes voisines de l'image d'origine, i et i+1, sont chiffrées aux positions x et
+     * x + (2s+1) (modulo la taille du bloc), quel que soit r. La corrélation moyenne des lignes
+     * chiffrées (x, x + 2s+1) sur quelques x du plus grand bloc donne donc un pré-score de s
+     * seul : les clés r du meilleur s passent en premier, puis celles du suivant, etc.
+     *
+     * @param correlations  La matrice de corrélation des lignes chiffrées
+     * @param lignesImage   Nombre de lignes de l'image
+     * @param cles          L'espace des clés, déjà réduit à la hauteur de l'image
+     * @return Toutes les clés codées de l'espace, dans l'ordre de parcours conseillé
+     */
+    static int[] ordrePrometteur(MatriceCorrelation correlations, int lignesImage, EspaceCles cles) {
+        // Le plus grand bloc, puissance de 2, commence à la ligne 0
+        int p = Integer.highestOneBit(lignesImage);
+        int nbEchantillons = Math.min(p, 32);
+        int pas = Math.max(1, p / nbEchantillons);
+
+        int nbS = cles.getNbValeursS();
+        double[] preScores = new double[nbS];
+        Integer[] ordreS = new Integer[nbS];
+        for (int s = 0; s < nbS; s++) {
+            int a = 2 * s + 1;
+            double somme = 0;
+            for (int x = 0; x < p; x += pas) {
+                int y = (x + a) & (p - 1);
+                if (x != y) somme += correlations.correlation(x, y);
+            }
+            preScores[s] = somme;
+            ordreS[s] = s;
+        }
+        Arrays.sort(ordreS, (s1, s2) -> Double.compare(preScores[s2], preScores[s1]));
+
+        int[] ordre = new int[cles.getNbCles()];
+        int i = 0;
+        for (int s : ordreS) {
+            for (int r = 0; r < cles.getNbValeursR(); r++) {
+                ordre[i++] = cles.coder(r, s);
+            }
+        }
+        return ordre;
+    }
+
+    /**
+     * Recherche multi-résolution de la clé (du grossier au fin).
+     * 1. Toutes les clés sont classées sur une version réduite de l'image : lignes en niveaux
+     *    de gris sous-échantillonnées à environ 96 pixels. Le score de chaque clé est lu dans les
+     *    sommes cumulées des corrélations le long des cycles ({@link BornesCorrelation#scoresExacts}),
+     *    sans évaluer les paires de chaque clé : le coût suit le nombre de maillons possibles, pas
+     *    le nombre de clés, ce qui garde la passe rapide dans un espace de clés étendu
+     * 2. Seules les topK meilleures clés sont réévaluées sur l'image complète
+     * Les deux passes utilisent l'échantillon de paires de {@link #bruteForce(Mat)}.
+     * Le coût de la recherche est surtout le calcul des corrélations entre lignes :
+     * sur des lignes réduites, la passe grossière en coûte une petite fraction, et la passe
+     * fine ne calcule que les corrélations des topK clés.
+     *
+     * @param imageCryptee  L'image chiffrée à déchiffrer
+     * @param topK          Nombre de clés réévaluées à pleine résolution
+     * @return Les topK clés classées, avec la marge entre la meilleure et la deuxième
+     */
+    public static ResultatCrack bruteForceMultiResolution(Mat imageCryptee, int topK) {
+        return bruteForceMultiResolution(imageCryptee, topK, EspaceCles.STANDARD);
+    }
+
+    /**
+     * Recherche multi-résolution dans un espace de clés donné.
+     *
+     * @param imageCryptee  L'image chiffrée à déchiffrer
+     * @param topK          Nombre de clés réévaluées à pleine résolution
+     * @param espace        L'espace des clés cherchées
+     * @return Les topK clés canoniques classées
+     */
+    public static ResultatCrack bruteForceMultiResolution(Mat imageCryptee, int topK, EspaceCles espace) {
+        if (imageCryptee.rows() < 2) {
+            return new ResultatCrack(new ArrayList<>(), 0, 0, false);
+        }
+        return bruteForceMultiResolution(extraireLignes(imageCryptee), imageCryptee.channels(), topK, espace);
+    }
+
+    /**
+     * Recherche multi-résolution sur des lignes déjà extraites.
+     *
+     * @param lignesSource  Les lignes de l'image chiffrée
+     * @param canaux        Nombre de canaux par pixel
+     * @param topK          Nombre de clés réévaluées à pleine résolution
+     * @param espace        L'espace des clés cherchées
+     * @return Les topK clés classées
+     */
+    static ResultatCrack bruteForceMultiResolution(byte[][] lignesSource, int canaux, int topK, EspaceCles espace) {
+        final int lignesImage = lignesSource.length;
+        final EspaceCles cles = espace.pourHauteur(lignesImage);
+        final int k = Math.max(2, Math.min(topK, cles.getNbCles()));
+
+        // Les deux passes utilisent les mêmes paires : r ne change que le maillon du cycle
+        // de lignes qui est coupé, un échantillon plus petit ne distinguerait pas les rotations
+        int[] indicesEchantillon = echantillonnerPaires(lignesImage - 1, LIGNES_POURCENTAGE_TEST);
+
+        BornesCorrelation scoresReduits = scoresGrossiers(lignesSource, canaux, cles, indicesEchantillon);
+
+        MeilleuresCles finalistes = new MeilleuresCles(k);
+        try {
+            List<MeilleuresCles> parThread = OrdonnanceurCles.parcourir(cles.getNbCles(), null,
+                    new OrdonnanceurCles.Parcours<MeilleuresCles>() {
+                        @Override
+                        public MeilleuresCles nouvelEtat() {
+                            return new MeilleuresCles(k);
+                        }
+
+                        @Override
+                        public void evaluer(MeilleuresCles meilleures, int key) {
+                            double score = scoresReduits.borneCle(cles.r(key), cles.s(key));
+                            if (score > meilleures.seuil()) meilleures.proposer(key, score);
+                        }
+                    });
+            for (MeilleuresCles meilleures : parThread) {
+                meilleures.verserDans(finalistes);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new ResultatCrack(new ArrayList<>(), 0, 0, false);
+        } catch (ExecutionException e) {
+            e.printStackTrace();
+            return new ResultatCrack(new ArrayList<>(), 0, 0, false);
+        }
+
+        // Passe fine : les finalistes sont réévalués sur l'image complète, sans élagage
+        // pour que la marge avec la deuxième clé soit exacte
+        MatriceCorrelation correlations = new MatriceCorrelation(lignesSource);
+        int[] ordreLignes = new int[lignesImage];
+        List<ResultatCrack.Candidat> candidats = new ArrayList<>();
+        for (int key : finalistes.cles()) {
+            // Recherche annulée : inutile de finir la passe fine
+            if (Thread.currentThread().isInterrupted()) break;
+            int r = cles.r(key);
+            int s = cles.s(key);
+            RowPermutation.remplirForward(ordreLignes, lignesImage, r, s);
+            double score = evaluateKeyScore(correlations, ordreLignes, indicesEchantillon, Double.NEGATIVE_INFINITY);
+            candidats.add(new ResultatCrack.Candidat(r, s, score));
+        }
+        return new ResultatCrack(candidats, indicesEchantillon.length, cles.getNbCles(), true);
+    }
+
+    /**
+     * Passe grossière de la recherche multi-résolution : corrélations sur des lignes réduites en
+     * niveaux de gris. Le score exact de chaque clé se lit dans les sommes cumulées le long des cycles :
+     * seules les corrélations des maillons possibles sont calculées, une fois pour toutes les valeurs de r.
+     *
+     * @param lignesSource          Les lignes de l'image chiffrée
+     * @param canaux                Nombre de canaux par pixel
+     * @param cles                  L'espace des clés, déjà réduit à la hauteur de l'image
+     * @param indicesEchantillon    Indices des paires évaluées pour chaque clé
+     * @return Les scores des clés sur les lignes réduites
+     */
+    static BornesCorrelation scoresGrossiers(byte[][] lignesSource, int canaux, EspaceCles cles, int[] indicesEchantillon) {
+        MatriceCorrelation correlationsReduites = new MatriceCorrelation(reduireLignes(lignesSource, canaux, LARGEUR_PASSE_GROSSIERE));
+        return BornesCorrelation.scoresExacts(correlationsReduites, cles.getNbValeursS(), indicesEchantillon);
+    }
+
+    /**
+     * Construit le tableau des indices de paires de lignes adjacentes à échantillonner.
+     * Les paires sont rendues dans un ordre étalé (ordre binaire inversé) : les premières
+     * paires évaluées sont réparties sur toute la hauteur de l'image. Des paires voisines
+     * tombent dans la même zone de l'image (ciel, aplat...) où une mauvaise clé peut faire
+     * illusion ; des paires éloignées la démasquent plus tôt et l'élagage intervient plus vite.
+     * Ce n'est qu'une approximation de « les paires les plus discriminantes d'abord » : une paire
+     * élague d'autant plus que sa borne ({@link BornesCorrelation#bornePaire(int[], int)}) dépasse
+     * sa vraie corrélation, mais les lignes chiffrées placées à une position changent avec chaque clé.
+     * Classer les paires par borne demanderait un tri par clé évaluée, plus coûteux que les paires
+     * qu'il éviterait ; l'ordre étalé, lui, est le même pour toutes les clés.
+     *
+     * @param totalPaires   Nombre total de paires de lignes adjacentes
+     * @param pourcentage   Part des paires à tester
+     * @return Les indices des premières lignes des paires testées, dans l'ordre d'évaluation
+     */
+    static int[] echantillonnerPaires(int totalPaires, double pourcentage) {
+        // Nombre de paires possibles à tester
+        int nbPaireTest = Math.max(1, (int) Math.round(totalPaires * pourcentage));
+        int pas = Math.max(1, totalPaires / nbPaireTest);
+        IntArrayListBuilder liste = new IntArrayListBuilder();
+        for (int i = 0; i < totalPaires; i += pas) {
+            liste.add(i);
+        }
+        return etaler(liste.toArray());
+    }
+
+    /**
+     * Réordonne un tableau selon l'ordre binaire inversé de ses positions
+     * (0, n/2, n/4, 3n/4...), pour que tout préfixe soit réparti sur l'ensemble du tableau.
+     */
+    private static int[] etaler(int[] valeurs) {
+        int n = valeurs.length;
+        if (n < 3) return valeurs;
+        int bits = 32 - Integer.numberOfLeadingZeros(n - 1);
+        int[] etale = new int[n];
+        int k = 0;
+        for (int v = 0; v < (1 << bits); v++) {
+            int position = Integer.reverse(v) >>> (32 - bits);
+            if (position < n) etale[k++] = valeurs[position];
+        }
+        return etale;
+    }
+
+    /**
+     * Réduit des lignes de pixels en lignes de niveaux de gris sous-échantillonnées.
+     * Chaque pixel gardé est la moyenne de ses canaux ; un pixel sur "pas" est gardé
+     * pour obtenir environ largeurCible pixels par ligne.
+     *
+     * @param lignes        Les lignes d'origine
+     * @param canaux        Nombre de canaux par pixel
+     * @param largeurCible  Nombre de pixels souhaités par ligne réduite
+     * @return Les lignes réduites
+     */
+    static byte[][] reduireLignes(byte[][] lignes, int canaux, int largeurCible) {
+        int nbPixels = lignes.length == 0 ? 0 : lignes[0].length / canaux;
+        int pas = Math.max(1, nbPixels / largeurCible);
+        int largeur = (nbPixels + pas - 1) / pas;
+        byte[][] reduites = new byte[lignes.length][largeur];
+        for (int i = 0; i < lignes.length; i++) {
+            byte[] ligne = lignes[i];
+            byte[] reduite = reduites[i];
+            for (int x = 0, p = 0; x < largeur; x++, p += pas) {
+                int somme = 0;
+                for (int c = 0; c < canaux; c++) {
+                    somme += ligne[p * canaux + c] & 0xFF;
+                }
+                reduite[x] = (byte) (somme / canaux);
+            }
+        }
+        return reduites;
+    }
+
+    /**
+     * État d'un thread de la force brute : tampon d'ordre des lignes et clés élaguées.
+     */
+    private static class EtatForceBrute {
+        final int[] ordreLignes;
+        long elaguees = 0;
+
+        EtatForceBrute(int lignesImage) {
+            ordreLignes = new int[lignesImage];
+        }
+    }
+
+    /**
+     * Classe interne gardant les k meilleures clés vues par un thread.
+     * k reste petit : un simple tableau suffit, la plus faible clé est remplacée.
+     */
+    private static class MeilleuresCles {
+        // Tampon d'ordre des lignes du thread propriétaire
+        final int[] ordreLignes;
+        private final int[] cles;
+        private final double[] scores;
+        private int taille = 0;
+        // Position de la plus faible clé gardée
+        private int plusFaible = 0;
+        // Nombre de clés évaluées par le thread propriétaire, dont élaguées
+        int evaluees = 0;
+        int elaguees = 0;
+
+        MeilleuresCles(int k) {
+            this(k, 0);
+        }
+
+        MeilleuresCles(int k, int lignesImage) {
+            ordreLignes = new int[lignesImage];
+            cles = new int[k];
+            scores = new double[k];
+        }
+
+        /**
+         * @return Le score à battre pour entrer dans le classement
+         */
+        double seuil() {
+            return taille < cles.length ? Double.NEGATIVE_INFINITY : scores[plusFaible];
+        }
+
+        void proposer(int cle, double score) {
+            if (score == Double.NEGATIVE_INFINITY) return;
+            if (taille < cles.length) {
+                cles[taille] = cle;
+                scores[taille] = score;
+                taille++;
+            } else if (score > scores[plusFaible]) {
+                cles[plusFaible] = cle;
+                scores[plusFaible] = score;
+            } else {
+                return;
+            }
+            // Recherche de la nouvelle plus faible clé
+            plusFaible = 0;
+            for (int i = 1; i < taille; i++) {
+                if (scores[i] < scores[plusFaible]) plusFaible = i;
+            }
+        }
+
+        void verserDans(MeilleuresCles autre) {
+            for (int i = 0; i < taille; i++) {
+                autre.proposer(cles[i], scores[i]);
+            }
+        }
+
+        int[] cles() {
+            int[] out = new int[taille];
+            System.arraycopy(cles, 0, out, 0, taille);
+            return out;
+        }
+
+        void ajouterA(List<ResultatCrack.Candidat> candidats, EspaceCles espace) {
+            for (int i = 0; i < taille; i++) {
+                candidats.add(new ResultatCrack.Candidat(espace.r(cles[i]), espace.s(cles[i]), scores[i]));
+            }
+        }
+    }
+
+    /**
+     * Extrait toutes les lignes d'une image dans des tableaux de bytes.
+     *
+     * @param image     L'image dont on extrait les lignes
+     * @return Un tableau contenant les octets de chaque ligne
+     */
+    static byte[][] extraireLignes(Mat image) {
+        int nbLignes = image.rows();
+        int octetsParLigne = image.cols() * image.channels();
+        byte[][] lignes = new byte[nbLignes][];
+        for (int i = 0; i < nbLignes; i++) {
+            byte[] ligne = new byte[octetsParLigne];
+            image.row(i).get(0, 0, ligne);
+            lignes[i] = ligne;
+        }
+        return lignes;
     }
 }
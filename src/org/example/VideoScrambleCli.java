@@ -0,0 +1,273 @@
+/**
+ * Mode ligne de commande
+ * Auteurs : BONNIN Simon, CARRARA Tim
+ * Groupe  : S5 - A2
+ * Date    : Octobre 2026
+ * Description : Point d'entrée sans interface graphique pour chiffrer,
+ * déchiffrer ou cracker des vidéos par lots sur un serveur sans écran.
+ * Aucune classe JavaFX n'est chargée.
+ */
+
+package org.example;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Traitement par lots de vidéos en ligne de commande.
+ * Réutilise {@link TraitementVideo} (et donc PermutationLignes, EmbarquementCle
+ * et TrouveCleBruteForce) sans démarrer JavaFX.
+ * Plusieurs fichiers peuvent être traités en parallèle ; le code de sortie vaut
+ * 0 si tout a réussi, 1 si au moins un fichier a échoué et 2 en cas d'erreur d'usage.
+ *
+ * @author BONNIN Simon, CARRARA Tim
+ * @version 1.0
+ */
+public class VideoScrambleCli {
+
+    private static final int SUCCES = 0;
+    private static final int ECHEC = 1;
+    private static final int ERREUR_USAGE = 2;
+
+    private static final String USAGE = String.join("\n",
+            "Usage : java org.example.VideoScrambleCli <mode> [options] <entrée>...",
+            "Modes :",
+            "  -e        chiffrement",
+            "  -d        déchiffrement avec la clé fournie",
+            "  -de       déchiffrement avec la clé embarquée",
+            "  -crack    crack de la clé puis déchiffrement",
+            "  -reconstruire  déchiffrement sans clé (ordre des lignes retrouvé par ressemblance)",
+            "Options :",
+            "  -r <r>            première clé (défaut 42)",
+            "  -s <s>            seconde clé (défaut 17)",
+            "  --bits <n>        largeur de r en bits, s ayant un bit de moins (8 par défaut, jusqu'à 16)",
+            "  --embed           embarque la clé dans la vidéo chiffrée (mode -e)",
+            "  --rapide          crack multi-résolution (mode -crack)",
+            "  --consensus <n>   crack par consensus sur n frames (mode -crack)",
+            "  --budget <ms>     durée maximale du crack, meilleure clé trouvée (mode -crack)",
+            "  --sans-cache      ne pas utiliser le cache des clés crackées (mode -crack)",
+            "  -o <chemin>       fichier de sortie (une seule entrée) ou dossier de sortie",
+            "  -j <n>            nombre de fichiers traités en parallèle (défaut 1)",
+            "  -t <n>            threads de transformation par fichier");
+
+    /**
+     * Options lues sur la ligne de commande.
+     */
+    private static class Options {
+        String mode;
+        int r = 42;
+        int s = 17;
+        boolean embedKey = false;
+        boolean extractKey = false;
+        boolean crackKey = false;
+        boolean reconstruction = false;
+        boolean crackRapide = false;
+        int framesConsensus = 1;
+        int budgetCrackMs = 0;
+        boolean cacheCracks = true;
+        EspaceCles espaceCles = EspaceCles.STANDARD;
+        String sortie = null;
+        int nbFichiersParalleles = 1;
+        int nbTravailleurs = 0;
+        final List<String> entrees = new ArrayList<>();
+    }
+
+    public static void main(String[] args) {
+        System.exit(executer(args));
+    }
+
+    /**
+     * Exécute la ligne de commande et retourne le code de sortie.
+     *
+     * @param args  Les arguments de la ligne de commande
+     * @return Le code de sortie du processus
+     */
+    public static int executer(String[] args) {
+        Options options;
+        try {
+            options = lireOptions(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Erreur : " + e.getMessage());
+            System.err.println(USAGE);
+            return ERREUR_USAGE;
+        }
+
+        ChargeurOpenCV.charger(false);
+
+        // Les threads de transformation sont partagés entre les fichiers traités en parallèle
+        int nbTravailleurs = options.nbTravailleurs > 0 ? options.nbTravailleurs
+                : Math.max(1, PipelineVideo.nbTravailleursParDefaut() / options.nbFichiersParalleles);
+
+        ExecutorService pool = Executors.newFixedThreadPool(options.nbFichiersParalleles);
+        List<Future<Boolean>> resultats = new ArrayList<>();
+        for (String entree : options.entrees) {
+            String sortie = cheminSortie(options, entree);
+            resultats.add(pool.submit(() -> traiter(options, entree, sortie, nbTravailleurs)));
+        }
+
+        int code = SUCCES;
+        for (Future<Boolean> resultat : resultats) {
+            try {
+                if (!resultat.get()) code = ECHEC;
+            } catch (Exception e) {
+                code = ECHEC;
+            }
+        }
+        pool.shutdown();
+        return code;
+    }
+
+    /**
+     * Traite un fichier et indique s'il a réussi.
+     */
+    private static boolean traiter(Options options, String entree, String sortie, int nbTravailleurs) {
+        try {
+            if (!new File(entree).exists()) {
+                System.err.println("Le fichier d'entrée n'existe pas : " + entree);
+                return false;
+            }
+            TraitementVideo traitement = new TraitementVideo(entree, sortie, options.mode, options.r, options.s);
+            traitement.setEmbedKey(options.embedKey);
+            traitement.setExtractKey(options.extractKey);
+            traitement.setCrackKey(options.crackKey);
+            traitement.setReconstruction(options.reconstruction);
+            traitement.setCrackRapide(options.crackRapide);
+            traitement.setFramesConsensus(options.framesConsensus);
+            traitement.setBudgetCrack(options.budgetCrackMs);
+            traitement.setCacheCracks(options.cacheCracks);
+            traitement.setEspaceCles(options.espaceCles);
+            traitement.setNbTravailleurs(nbTravailleurs);
+            traitement.setEcouteur(new TraitementVideo.Ecouteur() {
+                @Override
+                public void progressionCrack(int clesEvaluees, int totalCles, long resteMs) {
+                    System.out.println(entree + " : crack " + clesEvaluees + " / " + totalCles + " clés"
+                            + (resteMs >= 0 ? " (reste ~" + (resteMs + 500) / 1000 + " s)" : ""));
+                }
+            });
+            traitement.executer();
+            System.out.println(entree + " -> " + sortie + " : " + traitement.getFramesEcrites() + " frames écrites"
+                    + (options.crackKey ? " (clé r=" + traitement.getR() + ", s=" + traitement.getS() + ")" : ""));
+            return traitement.getFramesEcrites() > 0;
+        } catch (Exception e) {
+            System.err.println("Erreur de traitement de " + entree + " : " + e.getMessage());
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Lit les arguments de la ligne de commande.
+     *
+     * @throws IllegalArgumentException si les arguments sont invalides
+     */
+    private static Options lireOptions(String[] args) {
+        Options options = new Options();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+                case "-e":
+                case "-d":
+                    options.mode = arg;
+                    break;
+                case "-de":
+                    options.mode = "-d";
+                    options.extractKey = true;
+                    break;
+                case "-crack":
+                    options.mode = "-d";
+                    options.crackKey = true;
+                    break;
+                case "-reconstruire":
+                    options.mode = "-d";
+                    options.reconstruction = true;
+                    break;
+                case "-r":
+                    options.r = lireEntier(args, ++i, arg);
+                    break;
+                case "-s":
+                    options.s = lireEntier(args, ++i, arg);
+                    break;
+                case "--bits":
+                    options.espaceCles = EspaceCles.deLargeur(lireEntier(args, ++i, arg));
+                    break;
+                case "--embed":
+                    options.embedKey = true;
+                    break;
+                case "--rapide":
+                    options.crackRapide = true;
+                    break;
+                case "--consensus":
+                    options.framesConsensus = lireEntier(args, ++i, arg);
+                    break;
+                case "--budget":
+                    options.budgetCrackMs = lireEntier(args, ++i, arg);
+                    break;
+                case "--sans-cache":
+                    options.cacheCracks = false;
+                    break;
+                case "-o":
+                    if (++i >= args.length) throw new IllegalArgumentException("valeur manquante pour -o");
+                    options.sortie = args[i];
+                    break;
+                case "-j":
+                    options.nbFichiersParalleles = lireEntier(args, ++i, arg);
+                    break;
+                case "-t":
+                    options.nbTravailleurs = lireEntier(args, ++i, arg);
+                    break;
+                default:
+                    if (arg.startsWith("-")) throw new IllegalArgumentException("option inconnue : " + arg);
+                    options.entrees.add(arg);
+            }
+        }
+
+        if (options.mode == null) throw new IllegalArgumentException("mode manquant");
+        if (options.entrees.isEmpty()) throw new IllegalArgumentException("aucune vidéo d'entrée");
+        if (options.embedKey && !options.mode.equals("-e")) {
+            throw new IllegalArgumentException("--embed n'est possible qu'en chiffrement");
+        }
+        if (!EmbarquementCle.estUneCleValide(new int[]{options.r, options.s}, options.espaceCles)) {
+            throw new IllegalArgumentException("clé invalide : r=" + options.r + ", s=" + options.s + " (" + options.espaceCles + ")");
+        }
+        if (options.framesConsensus < 1) throw new IllegalArgumentException("--consensus doit valoir au moins 1");
+        if (options.nbFichiersParalleles < 1) throw new IllegalArgumentException("-j doit valoir au moins 1");
+        if (options.entrees.size() > 1 && options.sortie != null && !new File(options.sortie).isDirectory()) {
+            throw new IllegalArgumentException("-o doit être un dossier existant quand plusieurs entrées sont données");
+        }
+        return options;
+    }
+
+    private static int lireEntier(String[] args, int i, String option) {
+        if (i >= args.length) throw new IllegalArgumentException("valeur manquante pour " + option);
+        try {
+            return Integer.parseInt(args[i]);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("nombre attendu pour " + option + " : " + args[i]);
+        }
+    }
+
+    /**
+     * Détermine le fichier de sortie d'une entrée : le chemin donné par -o s'il désigne un fichier,
+     * sinon un nom dérivé de l'entrée (suffixe _encrypted ou _decrypted), dans le dossier -o ou
+     * à côté de l'entrée. La clé embarquée impose un AVI non compressé.
+     */
+    private static String cheminSortie(Options options, String entree) {
+        if (options.sortie != null && !new File(options.sortie).isDirectory()) {
+            return options.sortie;
+        }
+        File inputFile = new File(entree);
+        String nom = inputFile.getName();
+        String baseName = nom.replaceFirst("[.][^.]+$", "");
+        String extension = nom.contains(".") ? nom.substring(nom.lastIndexOf(".")) : ".avi";
+        if (options.embedKey || options.extractKey) {
+            extension = ".avi";
+        }
+        String modePrefix = options.mode.equals("-e") ? "_encrypted" : "_decrypted";
+        File dossier = options.sortie != null ? new File(options.sortie) : inputFile.getAbsoluteFile().getParentFile();
+        return new File(dossier, baseName + modePrefix + extension).getPath();
+    }
+}